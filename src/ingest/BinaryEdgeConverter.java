@@ -0,0 +1,46 @@
+package ingest;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Converts a CSV or GT_GRAPH edge file to the binary edge format, so it can be reloaded without parsing text.
+ * Usage: BinaryEdgeConverter inputFile outputFile [format] [delimiter]
+ */
+public class BinaryEdgeConverter {
+
+    /**
+     * Converts the given text edge file to a binary edge file. If the conversion fails, the partial output file is
+     * deleted, so no incomplete binary edge file is left behind.
+     *
+     * @param inputFilename
+     * @param outputFilename
+     * @param format
+     * @param delimiter
+     * @return The number of edges converted
+     * @throws IOException
+     */
+    public static long convert(String inputFilename, String outputFilename, String format, String delimiter) throws IOException {
+        try (BinaryEdgeWriter writer = new BinaryEdgeWriter(outputFilename)) {
+            new EdgeStreamReader(delimiter, format).readFile(inputFilename, writer);
+            writer.finish();
+            return writer.getNrOfEdges();
+        } catch (IOException | RuntimeException e) {
+            new File(outputFilename).delete();
+            throw e;
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: BinaryEdgeConverter inputFile outputFile [CSV|GT_GRAPH] [delimiter]");
+            return;
+        }
+        String format = args.length > 2 ? args[2] : EdgeStreamReader.FORMAT_CSV;
+        String delimiter = args.length > 3 ? args[3] : (EdgeStreamReader.FORMAT_GT_GRAPH.equals(format) ? " " : ",");
+
+        long start = System.currentTimeMillis();
+        long nrOfEdges = convert(args[0], args[1], format, delimiter);
+        System.out.println(String.format("Converted %s edges in %s ms", nrOfEdges, System.currentTimeMillis() - start));
+    }
+}
@@ -0,0 +1,137 @@
+package ingest;
+
+import net.jpountz.lz4.LZ4FastDecompressor;
+import net.jpountz.lz4.LZ4Factory;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reads a graph stream written by BinaryEdgeWriter. Since vertex labels are stored once in the label dictionary,
+ * reading a stream only decompresses blocks and decodes varints, and every label String is created only once.
+ */
+public class BinaryEdgeReader {
+
+    public static final String FORMAT_BINARY = "BINARY";
+
+    private final LZ4FastDecompressor decompressor;
+
+    private byte[] block;
+    private int position;
+
+    public BinaryEdgeReader() {
+        this.decompressor = LZ4Factory.fastestInstance().fastDecompressor();
+        this.block = new byte[BinaryEdgeWriter.BLOCK_SIZE];
+    }
+
+    /**
+     * Reads all edges from the file with the given name
+     *
+     * @param filename
+     * @param consumer
+     * @return The number of edges read
+     * @throws IOException
+     */
+    public long readFile(String filename, EdgeConsumer consumer) throws IOException {
+        try (InputStream inputStream = new FileInputStream(filename)) {
+            return read(inputStream, consumer);
+        }
+    }
+
+    /**
+     * Reads all edges from the given input stream. A stream that ends before its end of stream marker, such as the
+     * output of a conversion that failed, is rejected with an IOException, after its complete blocks were passed to the
+     * consumer.
+     *
+     * @param inputStream
+     * @param consumer
+     * @return The number of edges read
+     * @throws IOException
+     */
+    public long read(InputStream inputStream, EdgeConsumer consumer) throws IOException {
+        DataInputStream input = new DataInputStream(new BufferedInputStream(inputStream));
+
+        byte[] magic = new byte[BinaryEdgeWriter.MAGIC.length];
+        input.readFully(magic);
+        if (!Arrays.equals(magic, BinaryEdgeWriter.MAGIC)) {
+            throw new IOException("Input is not a binary edge stream");
+        }
+        int version = input.readInt();
+        if (version != BinaryEdgeWriter.VERSION) {
+            throw new IOException(String.format("Binary edge stream version %s is not supported", version));
+        }
+
+        List<String> dictionary = new ArrayList<>();
+        byte[] compressed = new byte[0];
+        long count = 0;
+
+        int blockLength;
+        while ((blockLength = readInt(input)) != 0) {
+            int compressedLength = readInt(input);
+            if (compressed.length < compressedLength) {
+                compressed = new byte[compressedLength];
+            }
+            if (block.length < blockLength) {
+                block = new byte[blockLength];
+            }
+            try {
+                input.readFully(compressed, 0, compressedLength);
+            } catch (EOFException e) {
+                throw truncated();
+            }
+            decompressor.decompress(compressed, 0, block, 0, blockLength);
+
+            position = 0;
+            while (position < blockLength) {
+                String from = readVertex(dictionary);
+                String to = readVertex(dictionary);
+                int zigzag = readVarInt();
+                consumer.addEdge(from, to, (zigzag >>> 1) ^ -(zigzag & 1));
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private int readInt(DataInputStream input) throws IOException {
+        try {
+            return input.readInt();
+        } catch (EOFException e) {
+            throw truncated();
+        }
+    }
+
+    private IOException truncated() {
+        return new IOException("Binary edge stream ends without an end of stream marker, it may be the output of a failed conversion");
+    }
+
+    private String readVertex(List<String> dictionary) throws IOException {
+        int id = readVarInt();
+        if (id < dictionary.size()) {
+            return dictionary.get(id);
+        }
+        if (id != dictionary.size()) {
+            throw new IOException(String.format("Unknown vertex id %s in binary edge stream", id));
+        }
+        int length = readVarInt();
+        String label = new String(block, position, length, StandardCharsets.UTF_8);
+        position += length;
+        dictionary.add(label);
+        return label;
+    }
+
+    private int readVarInt() {
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = block[position++];
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+}
@@ -0,0 +1,157 @@
+package ingest;
+
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Writes a graph stream in the compact binary edge format read by BinaryEdgeReader.
+ * <p>
+ * The file starts with the magic bytes "TCMB" and a format version, followed by a sequence of LZ4 compressed blocks.
+ * Each block is written as its uncompressed length, its compressed length and the compressed bytes, a block with
+ * uncompressed length 0 marks the end of the stream. A block contains whole edge records, each record consists of the
+ * varint encoded id of the source vertex, the id of the destination vertex and the zigzag varint encoded weight.
+ * Vertex ids are assigned in order of first appearance, the first time an id appears it is directly followed by the
+ * label of the vertex (varint length and UTF-8 bytes), so the label dictionary is built up while the stream is read.
+ * <p>
+ * The end of stream marker is only written by finish, so a stream that is closed before all edges were written, e.g.
+ * because parsing the input failed, is rejected by BinaryEdgeReader instead of being read as a shorter stream.
+ */
+public class BinaryEdgeWriter implements EdgeConsumer, Closeable {
+
+    static final byte[] MAGIC = {'T', 'C', 'M', 'B'};
+    static final int VERSION = 1;
+    static final int BLOCK_SIZE = 1 << 20;
+
+    private final DataOutputStream output;
+    private final LZ4Compressor compressor;
+    private final Map<String, Integer> dictionary;
+
+    private byte[] block;
+    private int blockLength;
+    private byte[] compressed;
+    private long nrOfEdges;
+    private boolean finished;
+
+    /**
+     * Creates a new writer that writes to the file with the given name
+     *
+     * @param filename
+     * @throws IOException
+     */
+    public BinaryEdgeWriter(String filename) throws IOException {
+        this(new FileOutputStream(filename));
+    }
+
+    /**
+     * Creates a new writer that writes to the given output stream
+     *
+     * @param outputStream
+     * @throws IOException
+     */
+    public BinaryEdgeWriter(OutputStream outputStream) throws IOException {
+        this.output = new DataOutputStream(new BufferedOutputStream(outputStream));
+        this.compressor = LZ4Factory.fastestInstance().fastCompressor();
+        this.dictionary = new HashMap<>();
+        this.block = new byte[BLOCK_SIZE];
+        this.compressed = new byte[compressor.maxCompressedLength(BLOCK_SIZE)];
+
+        this.output.write(MAGIC);
+        this.output.writeInt(VERSION);
+    }
+
+    public long getNrOfEdges() {
+        return nrOfEdges;
+    }
+
+    @Override
+    public void addEdge(String from, String to, int weight) {
+        if (finished) {
+            throw new IllegalStateException("Edges can not be added to a finished binary edge stream");
+        }
+        // A record takes at most 3 varints of 5 bytes plus the labels of new vertices
+        int maxRecordLength = 15 + maxLabelLength(from) + maxLabelLength(to);
+        if (blockLength + maxRecordLength > block.length) {
+            try {
+                flushBlock();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            if (maxRecordLength > block.length) {
+                block = new byte[maxRecordLength];
+                compressed = new byte[compressor.maxCompressedLength(maxRecordLength)];
+            }
+        }
+        writeVertex(from);
+        writeVertex(to);
+        writeVarInt((weight << 1) ^ (weight >> 31));
+        nrOfEdges++;
+    }
+
+    private int maxLabelLength(String label) {
+        return dictionary.containsKey(label) ? 0 : 5 + 3 * label.length();
+    }
+
+    private void writeVertex(String label) {
+        Integer id = dictionary.get(label);
+        if (id != null) {
+            writeVarInt(id);
+            return;
+        }
+        id = dictionary.size();
+        dictionary.put(label, id);
+        writeVarInt(id);
+        byte[] bytes = label.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(bytes.length);
+        System.arraycopy(bytes, 0, block, blockLength, bytes.length);
+        blockLength += bytes.length;
+    }
+
+    private void writeVarInt(int value) {
+        while ((value & ~0x7F) != 0) {
+            block[blockLength++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        block[blockLength++] = (byte) value;
+    }
+
+    private void flushBlock() throws IOException {
+        if (blockLength == 0) {
+            return;
+        }
+        int compressedLength = compressor.compress(block, 0, blockLength, compressed, 0, compressed.length);
+        output.writeInt(blockLength);
+        output.writeInt(compressedLength);
+        output.write(compressed, 0, compressedLength);
+        blockLength = 0;
+    }
+
+    /**
+     * Writes the remaining edges and the end of stream marker, after which no more edges can be added
+     *
+     * @throws IOException
+     */
+    public void finish() throws IOException {
+        if (finished) {
+            return;
+        }
+        flushBlock();
+        output.writeInt(0);
+        output.flush();
+        finished = true;
+    }
+
+    /**
+     * Closes the underlying stream. Unless finish was called, the stream has no end of stream marker and is incomplete.
+     *
+     * @throws IOException
+     */
+    @Override
+    public void close() throws IOException {
+        output.close();
+    }
+}
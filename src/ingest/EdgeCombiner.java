@@ -0,0 +1,118 @@
+package ingest;
+
+/**
+ * Sums the weights of repeated edges before passing them on, so that a stream that repeats the same edges within a
+ * short span, like a flow trace, causes one sketch update per distinct edge instead of one per record. Since the cells
+ * of a sketch are sums, this does not change the resulting summary.
+ * <p>
+ * The edges are kept in a fixed-size open-addressing table. An edge is looked up in a few slots starting at its hash,
+ * if these all hold other edges, the edge in the first slot is evicted, i.e. passed on, to make room. All remaining
+ * edges are passed on by flush, which should be called at the end of the stream and at any other point where the
+ * consumer should be up to date, e.g. before a query.
+ */
+public class EdgeCombiner implements NumericEdgeConsumer {
+
+    private static final int MAX_PROBES = 8;
+
+    private final NumericEdgeConsumer consumer;
+    private final int shift;
+    private final long[] froms;
+    private final long[] tos;
+    private final int[] weights;
+    private final boolean[] occupied;
+    // The occupied slots, so flush takes time linear in the number of edges in the table instead of its capacity
+    private final int[] usedSlots;
+    private int size;
+
+    private long nrOfRecords;
+    private long nrOfEdges;
+
+    /**
+     * Creates a new combiner that passes the summed edges on to the given consumer, which holds up to the given number
+     * of distinct edges, which should be a power of 2
+     *
+     * @param consumer
+     * @param capacity
+     */
+    public EdgeCombiner(NumericEdgeConsumer consumer, int capacity) {
+        if (capacity < MAX_PROBES || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException(String.format("The capacity should be a power of 2 of at least %s, found %s", MAX_PROBES, capacity));
+        }
+        this.consumer = consumer;
+        this.shift = 64 - Integer.numberOfTrailingZeros(capacity);
+        this.froms = new long[capacity];
+        this.tos = new long[capacity];
+        this.weights = new int[capacity];
+        this.occupied = new boolean[capacity];
+        this.usedSlots = new int[capacity];
+    }
+
+    @Override
+    public void addEdge(long from, long to, int weight) {
+        nrOfRecords++;
+        int home = slot(from, to);
+        int mask = froms.length - 1;
+        for (int probe = 0; probe < MAX_PROBES; probe++) {
+            int slot = (home + probe) & mask;
+            if (!occupied[slot]) {
+                occupied[slot] = true;
+                froms[slot] = from;
+                tos[slot] = to;
+                weights[slot] = weight;
+                usedSlots[size++] = slot;
+                return;
+            }
+            if (froms[slot] == from && tos[slot] == to) {
+                weights[slot] += weight;
+                return;
+            }
+        }
+
+        // All slots this edge can go to hold other edges, so make room in the first one
+        pass(home);
+        froms[home] = from;
+        tos[home] = to;
+        weights[home] = weight;
+    }
+
+    /**
+     * Passes all edges in the table on to the consumer and empties the table
+     */
+    public void flush() {
+        for (int i = 0; i < size; i++) {
+            pass(usedSlots[i]);
+            occupied[usedSlots[i]] = false;
+        }
+        size = 0;
+    }
+
+    /**
+     * Returns the number of edges added to this combiner
+     * @return
+     */
+    public long getNrOfRecords() {
+        return nrOfRecords;
+    }
+
+    /**
+     * Returns the number of (summed) edges passed on to the consumer
+     * @return
+     */
+    public long getNrOfEdges() {
+        return nrOfEdges;
+    }
+
+    private void pass(int slot) {
+        nrOfEdges++;
+        consumer.addEdge(froms[slot], tos[slot], weights[slot]);
+    }
+
+    private int slot(long from, long to) {
+        // The SplitMix64 finalizer of a combination of both labels, of which the high bits are used
+        long z = from * 0x9E3779B97F4A7C15L + to;
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        z ^= z >>> 31;
+        return (int) (z >>> shift);
+    }
+}
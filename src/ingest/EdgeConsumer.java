@@ -0,0 +1,16 @@
+package ingest;
+
+/**
+ * Receives the edges of a graph stream one at a time, e.g. while an input file is being read.
+ */
+public interface EdgeConsumer {
+
+    /**
+     * Processes a single directed edge from->to with the given weight
+     *
+     * @param from
+     * @param to
+     * @param weight
+     */
+    void addEdge(String from, String to, int weight);
+}
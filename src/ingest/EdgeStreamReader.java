@@ -0,0 +1,177 @@
+package ingest;
+
+import java.io.*;
+import java.util.function.Predicate;
+
+/**
+ * Reads edges line by line from a file or stream and passes each of them to an EdgeConsumer. Lines are parsed as soon
+ * as they are read and are not retained, so the memory used by the reader does not depend on the length of the stream.
+ * For CSV format, each line should have the following format: fromVertex,toVertex,weight. With ',' being an arbitrary delimiter
+ * For GT_GRAPH format, only lines starting with 'a' are considered as edges, they should have the following format: a fromVertex toVertex weight. With ' '(space) being an arbitrary delimiter
+ * Edges can be read with a timestamp, which is then the integer in the column after the weight.
+ */
+public class EdgeStreamReader {
+
+    public static final String FORMAT_CSV = "CSV";
+    public static final String FORMAT_GT_GRAPH = "GT_GRAPH";
+
+    private final String delimiter;
+    private final String format;
+
+    /**
+     * Creates a new reader for the given delimiter and input format
+     *
+     * @param delimiter
+     * @param format
+     */
+    public EdgeStreamReader(String delimiter, String format) {
+        if (!FORMAT_CSV.equals(format) && !FORMAT_GT_GRAPH.equals(format)) {
+            throw new IllegalArgumentException(String.format("Format %s is not supported, currently only CSV and GT_GRAPH are supported", format));
+        }
+        this.delimiter = delimiter;
+        this.format = format;
+    }
+
+    /**
+     * Reads all edges from the file with the given name
+     *
+     * @param filename
+     * @param consumer
+     * @return The number of edges read
+     * @throws IOException
+     */
+    public long readFile(String filename, EdgeConsumer consumer) throws IOException {
+        try (BufferedReader bufferedReader = new BufferedReader(new FileReader(filename))) {
+            return read(bufferedReader, consumer);
+        }
+    }
+
+    /**
+     * Reads all edges from the file with the given name, with the timestamp in the column after the weight
+     *
+     * @param filename
+     * @param consumer
+     * @return The number of edges read
+     * @throws IOException
+     */
+    public long readFile(String filename, TimedEdgeConsumer consumer) throws IOException {
+        try (BufferedReader bufferedReader = new BufferedReader(new FileReader(filename))) {
+            return read(bufferedReader, consumer);
+        }
+    }
+
+    /**
+     * Reads all edges from the given input stream
+     *
+     * @param inputStream
+     * @param consumer
+     * @return The number of edges read
+     * @throws IOException
+     */
+    public long read(InputStream inputStream, EdgeConsumer consumer) throws IOException {
+        return read(new BufferedReader(new InputStreamReader(inputStream)), consumer);
+    }
+
+    /**
+     * Reads all edges from the given input stream, with the timestamp in the column after the weight
+     *
+     * @param inputStream
+     * @param consumer
+     * @return The number of edges read
+     * @throws IOException
+     */
+    public long read(InputStream inputStream, TimedEdgeConsumer consumer) throws IOException {
+        return read(new BufferedReader(new InputStreamReader(inputStream)), consumer);
+    }
+
+    /**
+     * Reads all edges from the given reader
+     *
+     * @param reader
+     * @param consumer
+     * @return The number of edges read
+     * @throws IOException
+     */
+    public long read(BufferedReader reader, EdgeConsumer consumer) throws IOException {
+        return readLines(reader, line -> parseLine(line, consumer));
+    }
+
+    /**
+     * Reads all edges from the given reader, with the timestamp in the column after the weight
+     *
+     * @param reader
+     * @param consumer
+     * @return The number of edges read
+     * @throws IOException
+     */
+    public long read(BufferedReader reader, TimedEdgeConsumer consumer) throws IOException {
+        return readLines(reader, line -> parseLine(line, consumer));
+    }
+
+    private long readLines(BufferedReader reader, Predicate<String> lineParser) throws IOException {
+        long count = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (lineParser.test(line)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Parses a single line and passes the edge it contains to the consumer.
+     *
+     * @param line
+     * @param consumer
+     * @return true if the line contained an edge, false if it was skipped (e.g. a GT_GRAPH comment line)
+     */
+    public boolean parseLine(String line, EdgeConsumer consumer) {
+        String[] fields = split(line, false);
+        if (fields == null) {
+            return false;
+        }
+        int first = format.equals(FORMAT_GT_GRAPH) ? 1 : 0;
+        consumer.addEdge(fields[first], fields[first + 1], Integer.parseInt(fields[first + 2]));
+        return true;
+    }
+
+    /**
+     * Parses a single line with the timestamp in the column after the weight and passes the edge it contains to the
+     * consumer.
+     *
+     * @param line
+     * @param consumer
+     * @return true if the line contained an edge, false if it was skipped (e.g. a GT_GRAPH comment line)
+     */
+    public boolean parseLine(String line, TimedEdgeConsumer consumer) {
+        String[] fields = split(line, true);
+        if (fields == null) {
+            return false;
+        }
+        int first = format.equals(FORMAT_GT_GRAPH) ? 1 : 0;
+        consumer.addEdge(fields[first], fields[first + 1], Integer.parseInt(fields[first + 2]), Long.parseLong(fields[first + 3]));
+        return true;
+    }
+
+    /**
+     * Splits a line into its columns, checking that it has a weight or a timestamp column. For GT_GRAPH format the
+     * leading 'a' is the first column.
+     *
+     * @return The columns, or null if the line is not an edge
+     */
+    private String[] split(String line, boolean timestamped) {
+        boolean gtGraph = format.equals(FORMAT_GT_GRAPH);
+        if (gtGraph && !line.startsWith("a ")) {
+            return null;
+        }
+        int nrOfColumns = (gtGraph ? 4 : 3) + (timestamped ? 1 : 0);
+        String[] split = line.split(delimiter);
+        if (split.length < nrOfColumns) {
+            String expected = (gtGraph ? "a " : "") + "from %s to %s weight" + (timestamped ? " %s timestamp" : "");
+            throw new IllegalArgumentException(String.format("Input data should be in the form of '" + expected + "' (without quotes)",
+                    delimiter, delimiter, delimiter));
+        }
+        return split;
+    }
+}
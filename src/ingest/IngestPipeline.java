@@ -0,0 +1,344 @@
+package ingest;
+
+import model.GraphSketch;
+import model.GraphSummary;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Adds the edges of a stream to a GraphSummary in three stages that run on their own threads and are connected by a
+ * preallocated ring buffer of primitive edge records, in the style of the LMAX Disruptor:
+ * <ol>
+ * <li>The parser, running on the calling thread, parses each line with a MappedEdgeParser and writes the labels and
+ * weight of its edge into the next free slot.</li>
+ * <li>The hashers hash both labels of each parsed slot and write their bins in every sketch into the slot. Hasher k
+ * of n handles the slots whose sequence number is k modulo n.</li>
+ * <li>One writer per sketch adds the hashed slots to its sketch, in batches of all slots hashed since its last batch.
+ * Since every sketch has a single writer, no sketch is updated by two threads at once.</li>
+ * </ol>
+ * Each stage publishes how far it got with a cursor. A stage only reads slots that are behind the cursors of the stages
+ * before it, and the parser only reuses a slot once every writer is done with it. A slow stage therefore makes the
+ * parser wait, and the memory used does not depend on the length of the stream.
+ * Vertex labels must be integers, see MappedEdgeParser, and the sketches of the summary should not track labels.
+ */
+public class IngestPipeline {
+
+    private static final int DEFAULT_CAPACITY = 1 << 16;
+    private static final int SPINS = 100;
+    private static final long PARK_NANOS = 50_000;
+
+    private final MappedEdgeParser parser;
+    private final int nrOfHashers;
+    private final int capacity;
+
+    /**
+     * Creates a new pipeline for the given delimiter and input format, using the given number of hasher threads and
+     * a ring buffer of the given number of slots, which should be a power of 2
+     *
+     * @param delimiter
+     * @param format
+     * @param nrOfHashers
+     * @param capacity
+     */
+    public IngestPipeline(String delimiter, String format, int nrOfHashers, int capacity) {
+        if (nrOfHashers < 1) {
+            throw new IllegalArgumentException("The number of hashers should be at least 1");
+        }
+        if (capacity < 1 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException(String.format("The capacity should be a power of 2, found %s", capacity));
+        }
+        this.parser = new MappedEdgeParser(delimiter, format);
+        this.nrOfHashers = nrOfHashers;
+        this.capacity = capacity;
+    }
+
+    /**
+     * Creates a new pipeline for the given delimiter and input format, with a single hasher thread
+     *
+     * @param delimiter
+     * @param format
+     */
+    public IngestPipeline(String delimiter, String format) {
+        this(delimiter, format, 1, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Adds all edges in the file with the given name to the given summary
+     *
+     * @param filename
+     * @param graphSummary
+     * @return The number of edges read
+     * @throws IOException
+     */
+    public long run(String filename, GraphSummary graphSummary) throws IOException {
+        try (InputStream inputStream = new FileInputStream(filename)) {
+            return run(inputStream, graphSummary);
+        }
+    }
+
+    /**
+     * Adds all edges read from the given stream to the given summary, until the end of the stream. All edges have been
+     * added to the sketches when this returns.
+     *
+     * @param inputStream
+     * @param graphSummary
+     * @return The number of edges read
+     * @throws IOException
+     */
+    public long run(InputStream inputStream, GraphSummary graphSummary) throws IOException {
+        List<GraphSketch> sketches = graphSummary.getGraphSketches();
+        for (GraphSketch sketch : sketches) {
+            if (sketch.getBins() != null) {
+                throw new IllegalArgumentException("The pipeline can only add edges to sketches that do not track labels");
+            }
+        }
+
+        Ring ring = new Ring(capacity, nrOfHashers, sketches.size());
+        ExecutorService executor = Executors.newFixedThreadPool(nrOfHashers + sketches.size());
+        List<Future<?>> futures = new ArrayList<>();
+        long count = 0;
+        try {
+            for (int k = 0; k < nrOfHashers; k++) {
+                futures.add(executor.submit(new Hasher(ring, k, graphSummary)));
+            }
+            for (int k = 0; k < sketches.size(); k++) {
+                futures.add(executor.submit(new Writer(ring, k, sketches.get(k))));
+            }
+
+            // If any stage fails, the others stop waiting for it and the first failure is thrown
+            try {
+                count = parser.withNumericLabels(graphSummary.getHashFamily().hasNumericLabels()).parse(inputStream, ring::publish);
+                ring.finish();
+            } catch (IOException | RuntimeException e) {
+                ring.abort(e);
+            }
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    ring.abort(e.getCause());
+                }
+            }
+        } catch (InterruptedException e) {
+            ring.abort(e);
+            Thread.currentThread().interrupt();
+        } finally {
+            executor.shutdown();
+        }
+
+        Throwable failure = ring.failure;
+        if (failure instanceof IOException) {
+            throw (IOException) failure;
+        }
+        if (failure instanceof RuntimeException) {
+            throw (RuntimeException) failure;
+        }
+        if (failure instanceof Error) {
+            throw (Error) failure;
+        }
+        if (failure != null) {
+            throw new IOException(failure);
+        }
+        return count;
+    }
+
+    /**
+     * The ring buffer shared by all stages, with the cursor of each stage. A cursor is the number of slots the stage is
+     * done with, slot i of the stream is stored at index i modulo the capacity.
+     */
+    private static class Ring {
+        private final int mask;
+        private final int capacity;
+        private final long[] from;
+        private final long[] to;
+        private final int[] weights;
+        // The bins of slot i in sketch k are stored at k*capacity+i, so each writer reads a contiguous range
+        private final int[] binsFrom;
+        private final int[] binsTo;
+
+        private final AtomicLong[] parserCursor;
+        private final AtomicLong[] hasherCursors;
+        private final AtomicLong[] writerCursors;
+        // The number of slots in the stream, known once the parser is done
+        private volatile long end;
+        private volatile Throwable failure;
+        // Only used by the parser thread
+        private long next;
+        private long writersDone;
+
+        Ring(int capacity, int nrOfHashers, int nrOfSketches) {
+            this.mask = capacity - 1;
+            this.capacity = capacity;
+            this.from = new long[capacity];
+            this.to = new long[capacity];
+            this.weights = new int[capacity];
+            this.binsFrom = new int[nrOfSketches * capacity];
+            this.binsTo = new int[nrOfSketches * capacity];
+            this.parserCursor = new AtomicLong[]{new AtomicLong()};
+            this.hasherCursors = cursors(nrOfHashers);
+            this.writerCursors = cursors(nrOfSketches);
+            this.end = Long.MAX_VALUE;
+        }
+
+        private static AtomicLong[] cursors(int n) {
+            AtomicLong[] cursors = new AtomicLong[n];
+            for (int i = 0; i < n; i++) {
+                cursors[i] = new AtomicLong();
+            }
+            return cursors;
+        }
+
+        /**
+         * Writes a parsed edge into the next slot, once all writers are done with the edge that used it before
+         */
+        void publish(long labelFrom, long labelTo, int weight) {
+            if (next - capacity >= writersDone) {
+                writersDone = waitFor(writerCursors, next - capacity + 1);
+            }
+            int slot = (int) (next & mask);
+            from[slot] = labelFrom;
+            to[slot] = labelTo;
+            weights[slot] = weight;
+            parserCursor[0].lazySet(++next);
+        }
+
+        void finish() {
+            end = next;
+        }
+
+        synchronized void abort(Throwable cause) {
+            if (failure == null) {
+                failure = cause;
+            }
+        }
+
+        /**
+         * Waits until all given cursors are at least at the given sequence, or at the end of the stream
+         * @return The smallest of the cursors
+         */
+        long waitFor(AtomicLong[] cursors, long sequence) {
+            int spins = 0;
+            while (true) {
+                long minimum = Long.MAX_VALUE;
+                for (AtomicLong cursor : cursors) {
+                    minimum = Math.min(minimum, cursor.get());
+                }
+                if (minimum >= sequence || minimum == end) {
+                    return minimum;
+                }
+                if (failure != null) {
+                    throw new CancellationException("Ingestion was aborted");
+                }
+                if (++spins < SPINS) {
+                    Thread.yield();
+                }
+                else {
+                    LockSupport.parkNanos(PARK_NANOS);
+                }
+            }
+        }
+    }
+
+    /**
+     * Computes the bins of both labels of its share of the slots, for all sketches
+     */
+    private static class Hasher implements Runnable {
+        private final Ring ring;
+        private final int index;
+        private final GraphSummary graphSummary;
+        private final List<GraphSketch> sketches;
+
+        Hasher(Ring ring, int index, GraphSummary graphSummary) {
+            this.ring = ring;
+            this.index = index;
+            this.graphSummary = graphSummary;
+            this.sketches = graphSummary.getGraphSketches();
+        }
+
+        @Override
+        public void run() {
+            try {
+                process();
+            } catch (RuntimeException | Error e) {
+                ring.abort(e);
+                throw e;
+            }
+        }
+
+        private void process() {
+            int stride = ring.hasherCursors.length;
+            AtomicLong cursor = ring.hasherCursors[index];
+            long next = index;
+            long done = 0;
+            while (true) {
+                // Wait for any new slot, not only for the next slot of this hasher, so its cursor keeps up with the
+                // parser even while the other hashers get all new slots
+                long available = ring.waitFor(ring.parserCursor, done + 1);
+                for (; next < available; next += stride) {
+                    int slot = (int) (next & ring.mask);
+                    long baseHashFrom = graphSummary.baseHash(ring.from[slot]);
+                    long baseHashTo = graphSummary.baseHash(ring.to[slot]);
+                    for (int k = 0; k < sketches.size(); k++) {
+                        ring.binsFrom[k * ring.capacity + slot] = (int) sketches.get(k).getHash().hashToBin(baseHashFrom);
+                        ring.binsTo[k * ring.capacity + slot] = (int) sketches.get(k).getHash().hashToBin(baseHashTo);
+                    }
+                }
+                // Every slot of this hasher before available is hashed now
+                cursor.lazySet(available);
+                done = available;
+                if (available == ring.end) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds the hashed slots to a single sketch
+     */
+    private static class Writer implements Runnable {
+        private final Ring ring;
+        private final int index;
+        private final GraphSketch sketch;
+
+        Writer(Ring ring, int index, GraphSketch sketch) {
+            this.ring = ring;
+            this.index = index;
+            this.sketch = sketch;
+        }
+
+        @Override
+        public void run() {
+            try {
+                process();
+            } catch (RuntimeException | Error e) {
+                ring.abort(e);
+                throw e;
+            }
+        }
+
+        private void process() {
+            AtomicLong cursor = ring.writerCursors[index];
+            int offset = index * ring.capacity;
+            long next = 0;
+            while (true) {
+                long available = ring.waitFor(ring.hasherCursors, next + 1);
+                for (; next < available; next++) {
+                    int slot = (int) (next & ring.mask);
+                    sketch.addToCell(ring.binsFrom[offset + slot], ring.binsTo[offset + slot], ring.weights[slot]);
+                }
+                cursor.lazySet(available);
+                if (available == ring.end) {
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,340 @@
+package ingest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Parses CSV and GT_GRAPH edge files directly from a memory mapped file. Lines are parsed byte by byte, so no Strings
+ * are created for the vertex labels and weights. Vertex labels must therefore be (non-negative) integers.
+ * For CSV format, each line should have the following format: fromVertex,toVertex,weight. With ',' being an arbitrary single character delimiter
+ * For GT_GRAPH format, only lines starting with 'a' are considered as edges, they should have the following format: a fromVertex toVertex weight. With ' '(space) being an arbitrary single character delimiter
+ * Any columns after the weight are ignored, unless edges are parsed with a timestamp, which is then the integer in the
+ * column after the weight.
+ * A label with leading zeros, like 007, is rejected, since it would be a different vertex than 7 when its String is
+ * hashed, as EdgeStreamReader does. It is only accepted as 7 by a parser for numeric labels, see withNumericLabels.
+ * Streams that can not be mapped, like pipes, are parsed the same way through a fixed size buffer.
+ */
+public class MappedEdgeParser {
+
+    /**
+     * Size of the part of the file that is mapped at once. Files larger than this are parsed window by window.
+     */
+    private static final long WINDOW_SIZE = 64L * 1024 * 1024;
+
+    /**
+     * Size of the buffer used to parse streams, which is also the maximum length of a line in a stream
+     */
+    private static final int STREAM_BUFFER_SIZE = 1024 * 1024;
+
+    /**
+     * Largest value a field can have before another digit is appended without overflowing a long
+     */
+    private static final long MAX_PREFIX = Long.MAX_VALUE / 10;
+    private static final int MAX_LAST_DIGIT = (int) (Long.MAX_VALUE % 10);
+
+    private final byte delimiter;
+    private final boolean gtGraph;
+    private final boolean numericLabels;
+
+    /**
+     * Creates a new parser for the given delimiter and input format, which rejects labels with leading zeros
+     *
+     * @param delimiter
+     * @param format
+     */
+    public MappedEdgeParser(String delimiter, String format) {
+        if (!EdgeStreamReader.FORMAT_CSV.equals(format) && !EdgeStreamReader.FORMAT_GT_GRAPH.equals(format)) {
+            throw new IllegalArgumentException(String.format("Format %s is not supported, currently only CSV and GT_GRAPH are supported", format));
+        }
+        if (delimiter.length() != 1 || delimiter.charAt(0) > 127) {
+            throw new IllegalArgumentException(String.format("Delimiter '%s' is not supported, only single ASCII characters are supported", delimiter));
+        }
+        this.delimiter = (byte) delimiter.charAt(0);
+        this.gtGraph = EdgeStreamReader.FORMAT_GT_GRAPH.equals(format);
+        this.numericLabels = false;
+    }
+
+    private MappedEdgeParser(byte delimiter, boolean gtGraph, boolean numericLabels) {
+        this.delimiter = delimiter;
+        this.gtGraph = gtGraph;
+        this.numericLabels = numericLabels;
+    }
+
+    /**
+     * Returns a parser for the same delimiter and format that accepts labels with leading zeros as their value if
+     * numericLabels is true, like a summary whose hash family has numeric labels does, see HashFamily.numeric, or
+     * rejects them otherwise
+     *
+     * @param numericLabels
+     * @return
+     */
+    public MappedEdgeParser withNumericLabels(boolean numericLabels) {
+        return numericLabels == this.numericLabels ? this : new MappedEdgeParser(delimiter, gtGraph, numericLabels);
+    }
+
+    /**
+     * Parses all edges in the file with the given name
+     *
+     * @param filename
+     * @param consumer
+     * @return The number of edges parsed
+     * @throws IOException
+     */
+    public long parseFile(String filename, NumericEdgeConsumer consumer) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(filename, "r");
+             FileChannel channel = file.getChannel()) {
+            return parse(channel, 0, channel.size(), consumer);
+        }
+    }
+
+    /**
+     * Parses all edges in the file with the given name, with the timestamp in the column after the weight
+     *
+     * @param filename
+     * @param consumer
+     * @return The number of edges parsed
+     * @throws IOException
+     */
+    public long parseFile(String filename, NumericTimedEdgeConsumer consumer) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(filename, "r");
+             FileChannel channel = file.getChannel()) {
+            return parse(channel, 0, channel.size(), consumer);
+        }
+    }
+
+    /**
+     * Parses all lines that start in the byte range [start, end) of the given channel. The start of the range should
+     * be the start of a line, a line that starts before the end of the range is parsed completely.
+     *
+     * @param channel
+     * @param start
+     * @param end
+     * @param consumer
+     * @return The number of edges parsed
+     * @throws IOException
+     */
+    public long parse(FileChannel channel, long start, long end, NumericEdgeConsumer consumer) throws IOException {
+        return parse(channel, start, end, consumer, null);
+    }
+
+    /**
+     * Parses all lines that start in the byte range [start, end) of the given channel like
+     * parse(FileChannel, long, long, NumericEdgeConsumer), with the timestamp in the column after the weight
+     *
+     * @param channel
+     * @param start
+     * @param end
+     * @param consumer
+     * @return The number of edges parsed
+     * @throws IOException
+     */
+    public long parse(FileChannel channel, long start, long end, NumericTimedEdgeConsumer consumer) throws IOException {
+        return parse(channel, start, end, null, consumer);
+    }
+
+    /**
+     * Passes the parsed edges to the timed consumer if it is not null, else to the consumer
+     */
+    private long parse(FileChannel channel, long start, long end, NumericEdgeConsumer consumer, NumericTimedEdgeConsumer timedConsumer) throws IOException {
+        long size = channel.size();
+        long count = 0;
+        long position = start;
+
+        while (position < end && position < size) {
+            long windowEnd = Math.min(position + WINDOW_SIZE, size);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, windowEnd - position);
+
+            // Only parse the lines that end inside this window, unless it is the end of the file
+            int limit = buffer.limit();
+            if (windowEnd < size) {
+                while (limit > 0 && buffer.get(limit - 1) != '\n') {
+                    limit--;
+                }
+                if (limit == 0) {
+                    throw new IllegalArgumentException(String.format("Line starting at byte %s is longer than %s bytes", position, WINDOW_SIZE));
+                }
+            }
+
+            int lineStart = 0;
+            while (lineStart < limit && position + lineStart < end) {
+                int lineEnd = lineStart;
+                while (lineEnd < limit && buffer.get(lineEnd) != '\n') {
+                    lineEnd++;
+                }
+                if (parseLine(buffer, lineStart, lineEnd, consumer, timedConsumer)) {
+                    count++;
+                }
+                lineStart = lineEnd + 1;
+            }
+            position += lineStart;
+        }
+
+        return count;
+    }
+
+    /**
+     * Parses all edges read from the given stream, until its end. Edges are passed to the consumer as soon as their
+     * line is complete, so a live stream is parsed while it is being written.
+     *
+     * @param inputStream
+     * @param consumer
+     * @return The number of edges parsed
+     * @throws IOException
+     */
+    public long parse(InputStream inputStream, NumericEdgeConsumer consumer) throws IOException {
+        return parse(inputStream, consumer, null);
+    }
+
+    /**
+     * Parses all edges read from the given stream like parse(InputStream, NumericEdgeConsumer), with the timestamp in
+     * the column after the weight
+     *
+     * @param inputStream
+     * @param consumer
+     * @return The number of edges parsed
+     * @throws IOException
+     */
+    public long parse(InputStream inputStream, NumericTimedEdgeConsumer consumer) throws IOException {
+        return parse(inputStream, null, consumer);
+    }
+
+    private long parse(InputStream inputStream, NumericEdgeConsumer consumer, NumericTimedEdgeConsumer timedConsumer) throws IOException {
+        byte[] bytes = new byte[STREAM_BUFFER_SIZE];
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        long count = 0;
+        // bytes[0 .. length) has been read, bytes[0 .. scanned) contains no newline
+        int length = 0;
+        int scanned = 0;
+
+        int read;
+        while ((read = inputStream.read(bytes, length, bytes.length - length)) >= 0) {
+            length += read;
+            int lineStart = 0;
+            for (int i = scanned; i < length; i++) {
+                if (bytes[i] == '\n') {
+                    if (parseLine(buffer, lineStart, i, consumer, timedConsumer)) {
+                        count++;
+                    }
+                    lineStart = i + 1;
+                }
+            }
+
+            // Keep the incomplete last line for the next read
+            System.arraycopy(bytes, lineStart, bytes, 0, length - lineStart);
+            length -= lineStart;
+            scanned = length;
+            if (length == bytes.length) {
+                throw new IllegalArgumentException(String.format("Line is longer than %s bytes", STREAM_BUFFER_SIZE));
+            }
+        }
+        if (length > 0 && parseLine(buffer, 0, length, consumer, timedConsumer)) {
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Parses the line between the given positions in the buffer (the end position is exclusive)
+     *
+     * @return true if the line contained an edge, false if it was skipped (empty line or GT_GRAPH comment line)
+     */
+    private boolean parseLine(ByteBuffer buffer, int start, int end, NumericEdgeConsumer consumer, NumericTimedEdgeConsumer timedConsumer) {
+        if (end > start && buffer.get(end - 1) == '\r') {
+            end--;
+        }
+        if (start == end) {
+            return false;
+        }
+
+        int position = start;
+        if (gtGraph) {
+            if (end - start < 2 || buffer.get(start) != 'a' || buffer.get(start + 1) != delimiter) {
+                return false;
+            }
+            position = skipDelimiters(buffer, start + 1, end);
+        }
+
+        long from = 0;
+        long to = 0;
+        long weight = 0;
+        boolean negativeWeight = false;
+        long timestamp = 0;
+
+        int nrOfFields = timedConsumer == null ? 3 : 4;
+        for (int field = 0; field < nrOfFields; field++) {
+            if (position >= end) {
+                throw malformedLine(buffer, start, end, timedConsumer != null);
+            }
+            boolean negative = false;
+            if (field >= 2 && buffer.get(position) == '-') {
+                negative = true;
+                position++;
+            }
+            int fieldStart = position;
+            long value = 0;
+            while (position < end && buffer.get(position) != delimiter) {
+                int digit = buffer.get(position) - '0';
+                if (digit < 0 || digit > 9) {
+                    throw malformedLine(buffer, start, end, timedConsumer != null);
+                }
+                if (value >= MAX_PREFIX && (value > MAX_PREFIX || digit > MAX_LAST_DIGIT)) {
+                    throw malformedLine(buffer, start, end, timedConsumer != null);
+                }
+                value = value * 10 + digit;
+                position++;
+            }
+            if (position == fieldStart
+                    || (field < 2 && !numericLabels && position - fieldStart > 1 && buffer.get(fieldStart) == '0')) {
+                throw malformedLine(buffer, start, end, timedConsumer != null);
+            }
+            switch (field) {
+                case 0:
+                    from = value;
+                    break;
+                case 1:
+                    to = value;
+                    break;
+                case 2:
+                    weight = value;
+                    negativeWeight = negative;
+                    break;
+                default:
+                    timestamp = negative ? -value : value;
+                    break;
+            }
+            position = gtGraph ? skipDelimiters(buffer, position, end) : position + 1;
+        }
+        if (negativeWeight ? -weight < Integer.MIN_VALUE : weight > Integer.MAX_VALUE) {
+            throw malformedLine(buffer, start, end, timedConsumer != null);
+        }
+
+        if (timedConsumer != null) {
+            timedConsumer.addEdge(from, to, (int) (negativeWeight ? -weight : weight), timestamp);
+        }
+        else {
+            consumer.addEdge(from, to, (int) (negativeWeight ? -weight : weight));
+        }
+        return true;
+    }
+
+    private int skipDelimiters(ByteBuffer buffer, int position, int end) {
+        while (position < end && buffer.get(position) == delimiter) {
+            position++;
+        }
+        return position;
+    }
+
+    private IllegalArgumentException malformedLine(ByteBuffer buffer, int start, int end, boolean timestamped) {
+        byte[] line = new byte[end - start];
+        for (int i = 0; i < line.length; i++) {
+            line[i] = buffer.get(start + i);
+        }
+        String expected = (gtGraph ? "a from %1$s to %1$s weight" : "from %1$s to %1$s weight") + (timestamped ? " %1$s timestamp" : "");
+        return new IllegalArgumentException(String.format("Input data should be in the form of '" + expected + "' (without quotes) with non-negative long labels without leading zeros and an int weight, found: %2$s",
+                (char) delimiter, new String(line)));
+    }
+}
@@ -0,0 +1,27 @@
+package ingest;
+
+/**
+ * Receives the edges of a graph stream whose vertex labels are integers, without creating a String per label.
+ */
+public interface NumericEdgeConsumer {
+
+    /**
+     * Processes a single directed edge from->to with the given weight
+     *
+     * @param from
+     * @param to
+     * @param weight
+     */
+    void addEdge(long from, long to, int weight);
+
+    /**
+     * Returns a NumericEdgeConsumer that passes all edges on to the given EdgeConsumer, converting the numeric
+     * labels to Strings.
+     *
+     * @param consumer
+     * @return
+     */
+    static NumericEdgeConsumer labelled(EdgeConsumer consumer) {
+        return (from, to, weight) -> consumer.addEdge(Long.toString(from), Long.toString(to), weight);
+    }
+}
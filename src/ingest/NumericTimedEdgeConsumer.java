@@ -0,0 +1,18 @@
+package ingest;
+
+/**
+ * Receives the edges of a timestamped graph stream whose vertex labels are integers, without creating a String per
+ * label.
+ */
+public interface NumericTimedEdgeConsumer {
+
+    /**
+     * Processes a single directed edge from->to with the given weight, which occurred at the given time
+     *
+     * @param from
+     * @param to
+     * @param weight
+     * @param timestamp
+     */
+    void addEdge(long from, long to, int weight, long timestamp);
+}
@@ -0,0 +1,200 @@
+package ingest;
+
+import model.GraphSketch;
+import model.GraphSummary;
+import model.SketchStorage;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * Adds the edges of a file to a GraphSummary using multiple threads. The file is split into byte ranges that are
+ * aligned on line boundaries, each range is parsed by its own worker into thread-local sketches that use the same
+ * hash functions as the sketches of the summary. Since each sketch cell is a sum, the thread-local sketches are
+ * simply added to the sketches of the summary once all workers are done.
+ * Vertex labels must be integers, see MappedEdgeParser. If the summary uses a hash family with numeric labels, see
+ * HashFamily.numeric, the labels are hashed without creating Strings.
+ */
+public class ParallelSummaryBuilder {
+
+    private final MappedEdgeParser parser;
+    private final int nrOfThreads;
+
+    /**
+     * Creates a new builder for the given delimiter and input format, using the given number of threads
+     *
+     * @param delimiter
+     * @param format
+     * @param nrOfThreads
+     */
+    public ParallelSummaryBuilder(String delimiter, String format, int nrOfThreads) {
+        if (nrOfThreads < 1) {
+            throw new IllegalArgumentException("The number of threads should be at least 1");
+        }
+        this.parser = new MappedEdgeParser(delimiter, format);
+        this.nrOfThreads = nrOfThreads;
+    }
+
+    /**
+     * Creates a new builder for the given delimiter and input format, using one thread per available processor
+     *
+     * @param delimiter
+     * @param format
+     */
+    public ParallelSummaryBuilder(String delimiter, String format) {
+        this(delimiter, format, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Adds all edges in the file with the given name to the given summary
+     *
+     * @param filename
+     * @param graphSummary
+     * @return The number of edges read
+     * @throws IOException
+     */
+    public long build(String filename, GraphSummary graphSummary) throws IOException {
+        ExecutorService executor = Executors.newFixedThreadPool(nrOfThreads);
+        try (RandomAccessFile file = new RandomAccessFile(filename, "r");
+             FileChannel channel = file.getChannel()) {
+            long[] boundaries = split(channel, nrOfThreads);
+
+            List<Future<Worker>> futures = new ArrayList<>();
+            for (int i = 0; i < boundaries.length - 1; i++) {
+                futures.add(executor.submit(new Worker(channel, boundaries[i], boundaries[i + 1], graphSummary)));
+            }
+
+            List<Worker> workers = new ArrayList<>();
+            for (Future<Worker> future : futures) {
+                workers.add(future.get());
+            }
+
+            // Merge sketch by sketch, so the sketches themselves are merged in parallel
+            List<Future<?>> merges = new ArrayList<>();
+            List<GraphSketch> sketches = graphSummary.getGraphSketches();
+            for (int i = 0; i < sketches.size(); i++) {
+                int index = i;
+                merges.add(executor.submit(() -> {
+                    for (Worker worker : workers) {
+                        sketches.get(index).merge(worker.sketches.get(index));
+                    }
+                }));
+            }
+            for (Future<?> merge : merges) {
+                merge.get();
+            }
+
+            long count = 0;
+            for (Worker worker : workers) {
+                count += worker.count;
+            }
+            return count;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Splits the channel into (at most) the given number of byte ranges of roughly equal size, each starting at the
+     * start of a line. Range i is [boundaries[i], boundaries[i+1]).
+     *
+     * @param channel
+     * @param nrOfRanges
+     * @return
+     * @throws IOException
+     */
+    static long[] split(FileChannel channel, int nrOfRanges) throws IOException {
+        long size = channel.size();
+        List<Long> boundaries = new ArrayList<>();
+        boundaries.add(0L);
+
+        ByteBuffer buffer = ByteBuffer.allocate(4096);
+        for (int i = 1; i < nrOfRanges; i++) {
+            long position = Math.max(size * i / nrOfRanges, boundaries.get(boundaries.size() - 1));
+            position = nextLineStart(channel, position, buffer);
+            if (position >= size) {
+                break;
+            }
+            if (position > boundaries.get(boundaries.size() - 1)) {
+                boundaries.add(position);
+            }
+        }
+        boundaries.add(size);
+
+        long[] result = new long[boundaries.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = boundaries.get(i);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the position directly after the first newline at or after the given position
+     */
+    private static long nextLineStart(FileChannel channel, long position, ByteBuffer buffer) throws IOException {
+        while (true) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read <= 0) {
+                return channel.size();
+            }
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+    }
+
+    /**
+     * Parses a single byte range into thread-local sketches
+     */
+    private class Worker implements Callable<Worker> {
+        private final FileChannel channel;
+        private final long start;
+        private final long end;
+        private final List<GraphSketch> sketches;
+        private final GraphSummary graphSummary;
+        private long count;
+
+        Worker(FileChannel channel, long start, long end, GraphSummary graphSummary) {
+            this.channel = channel;
+            this.start = start;
+            this.end = end;
+            this.sketches = new ArrayList<>();
+            this.graphSummary = graphSummary;
+            for (GraphSketch sketch : graphSummary.getGraphSketches()) {
+                this.sketches.add(new GraphSketch(sketch.getHash(), sketch.getBins() != null, SketchStorage.adaptive(0).create(sketch.getHash())));
+            }
+        }
+
+        @Override
+        public Worker call() throws IOException {
+            this.count = parser.withNumericLabels(graphSummary.getHashFamily().hasNumericLabels()).parse(channel, start, end, (from, to, weight) -> {
+                long baseHashFrom = graphSummary.baseHash(from);
+                long baseHashTo = graphSummary.baseHash(to);
+                for (GraphSketch sketch : sketches) {
+                    sketch.addEdge(from, to, baseHashFrom, baseHashTo, weight);
+                }
+            });
+            return this;
+        }
+    }
+}
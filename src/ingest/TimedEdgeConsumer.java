@@ -0,0 +1,18 @@
+package ingest;
+
+/**
+ * Receives the edges of a timestamped graph stream one at a time, e.g. while an input file with a timestamp column is
+ * being read.
+ */
+public interface TimedEdgeConsumer {
+
+    /**
+     * Processes a single directed edge from->to with the given weight, which occurred at the given time
+     *
+     * @param from
+     * @param to
+     * @param weight
+     * @param timestamp
+     */
+    void addEdge(String from, String to, int weight, long timestamp);
+}
@@ -0,0 +1,88 @@
+package model;
+
+/**
+ * The occupied cells of the adjacency matrix of a sketch as two w*w bit matrices, one row per bin. The out rows contain
+ * the bins each bin has an edge to, the in rows the bins each bin has an edge from. This allows a search over the sketch
+ * to expand a whole frontier of bins with word-wide OR operations. For a sketch with HeapSketchStorage, the out rows
+ * are the bitset of occupied cells of the storage itself, so only the in rows take extra memory.
+ */
+public class AdjacencyBits {
+
+    private final int nrOfBins;
+    // Number of longs per row
+    private final int words;
+    // Row bin occupies [bin*words .. (bin+1)*words)
+    private final long[] outRows;
+    private final long[] inRows;
+
+    private AdjacencyBits(int nrOfBins, long[] outRows) {
+        if ((long) nrOfBins * ((nrOfBins + 63) >>> 6) > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException(String.format("The adjacency bits of a sketch with %s bins do not fit on the heap", nrOfBins));
+        }
+        this.nrOfBins = nrOfBins;
+        this.words = (nrOfBins + 63) >>> 6;
+        this.outRows = outRows != null ? outRows : new long[nrOfBins * words];
+        this.inRows = new long[nrOfBins * words];
+    }
+
+    /**
+     * Collects the occupied cells of the given sketch, which takes time linear in the number of occupied cells. If the
+     * sketch has HeapSketchStorage, only the in rows are collected and the out rows follow the storage as edges are
+     * added to it.
+     * @param sketch
+     * @return
+     */
+    public static AdjacencyBits build(GraphSketch sketch) {
+        SketchStorage storage = sketch.getStorage();
+        if (storage instanceof HeapSketchStorage) {
+            AdjacencyBits adjacency = new AdjacencyBits(storage.getNrOfBins(), ((HeapSketchStorage) storage).getOccupiedRows());
+            storage.forEachCell((from, to, weight) -> adjacency.addInEdge(from, to));
+            return adjacency;
+        }
+        AdjacencyBits adjacency = new AdjacencyBits(sketch.getHash().getNrOfBins(), null);
+        storage.forEachCell((from, to, weight) -> adjacency.addEdge(from, to));
+        return adjacency;
+    }
+
+    public int getNrOfBins() {
+        return nrOfBins;
+    }
+
+    /**
+     * Returns the number of longs used for each row
+     * @return
+     */
+    public int getWords() {
+        return words;
+    }
+
+    /**
+     * Returns the out rows, row from starts at index from*getWords() and has bit to set if cell from->to is occupied
+     * @return
+     */
+    public long[] getOutRows() {
+        return outRows;
+    }
+
+    /**
+     * Returns the in rows, row to starts at index to*getWords() and has bit from set if cell from->to is occupied
+     * @return
+     */
+    public long[] getInRows() {
+        return inRows;
+    }
+
+    /**
+     * Marks cell from->to as occupied
+     * @param from
+     * @param to
+     */
+    public void addEdge(int from, int to) {
+        outRows[from * words + (to >>> 6)] |= 1L << to;
+        addInEdge(from, to);
+    }
+
+    private void addInEdge(int from, int to) {
+        inRows[to * words + (from >>> 6)] |= 1L << from;
+    }
+}
@@ -0,0 +1,84 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * The occupied cells of the adjacency matrix of a sketch as adjacency lists in CSR form, like a CompactGraph of the
+ * bins. The out lists contain the bins each bin has an edge to, the in lists the bins each bin has an edge from. Unlike
+ * AdjacencyBits, these take memory linear in the number of occupied cells, which suits sketches whose storage only
+ * keeps the occupied cells.
+ */
+public class AdjacencyLists {
+
+    private final int nrOfBins;
+    // The out list of bin b is outTargets[outOffsets[b] .. outOffsets[b+1])
+    private final int[] outOffsets;
+    private final int[] outTargets;
+    private final int[] inOffsets;
+    private final int[] inTargets;
+
+    private AdjacencyLists(int nrOfBins, int[] outOffsets, int[] outTargets, int[] inOffsets, int[] inTargets) {
+        this.nrOfBins = nrOfBins;
+        this.outOffsets = outOffsets;
+        this.outTargets = outTargets;
+        this.inOffsets = inOffsets;
+        this.inTargets = inTargets;
+    }
+
+    /**
+     * Collects the occupied cells of the given storage, which takes two passes over its cells
+     * @param storage
+     * @return
+     */
+    public static AdjacencyLists build(SketchStorage storage) {
+        int nrOfBins = storage.getNrOfBins();
+        int[] outOffsets = new int[nrOfBins + 1];
+        int[] inOffsets = new int[nrOfBins + 1];
+        storage.forEachCell((from, to, weight) -> {
+            outOffsets[from + 1]++;
+            inOffsets[to + 1]++;
+        });
+        for (int bin = 0; bin < nrOfBins; bin++) {
+            outOffsets[bin + 1] += outOffsets[bin];
+            inOffsets[bin + 1] += inOffsets[bin];
+        }
+
+        int[] nextOut = Arrays.copyOf(outOffsets, nrOfBins);
+        int[] nextIn = Arrays.copyOf(inOffsets, nrOfBins);
+        int[] outTargets = new int[outOffsets[nrOfBins]];
+        int[] inTargets = new int[inOffsets[nrOfBins]];
+        storage.forEachCell((from, to, weight) -> {
+            outTargets[nextOut[from]++] = to;
+            inTargets[nextIn[to]++] = from;
+        });
+        return new AdjacencyLists(nrOfBins, outOffsets, outTargets, inOffsets, inTargets);
+    }
+
+    public int getNrOfBins() {
+        return nrOfBins;
+    }
+
+    /**
+     * Returns the number of occupied cells
+     * @return
+     */
+    public int getNrOfCells() {
+        return outTargets.length;
+    }
+
+    public int[] getOutOffsets() {
+        return outOffsets;
+    }
+
+    public int[] getOutTargets() {
+        return outTargets;
+    }
+
+    public int[] getInOffsets() {
+        return inOffsets;
+    }
+
+    public int[] getInTargets() {
+        return inTargets;
+    }
+}
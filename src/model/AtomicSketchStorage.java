@@ -0,0 +1,78 @@
+package model;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Stores the adjacency matrix of a sketch on the Java heap like HeapSketchStorage, but updates every cell, occupied bit
+ * and row and column sum with an atomic operation. Any number of threads can therefore add edges at the same time
+ * without locking, and reads always see all completed adds.
+ */
+public class AtomicSketchStorage extends ConcurrentSketchStorage {
+
+    // The weight of cell from->to is stored at index from*w+to
+    private final AtomicIntegerArray cells;
+    private final AtomicLongArray occupied;
+    private final AtomicIntegerArray weightsOut;
+    private final AtomicIntegerArray weightsIn;
+
+    public AtomicSketchStorage(int nrOfBins) {
+        super(nrOfBins);
+        if (!SparseSketchStorage.fitsOnHeap(nrOfBins)) {
+            throw new IllegalArgumentException(String.format("A sketch with %s bins does not fit on the heap", nrOfBins));
+        }
+        this.cells = new AtomicIntegerArray(nrOfBins * nrOfBins);
+        this.occupied = new AtomicLongArray((nrOfBins * nrOfBins + 63) >>> 6);
+        this.weightsOut = new AtomicIntegerArray(nrOfBins);
+        this.weightsIn = new AtomicIntegerArray(nrOfBins);
+    }
+
+    @Override
+    public int get(int from, int to) {
+        return cells.get(from * nrOfBins + to);
+    }
+
+    @Override
+    public boolean isOccupied(int from, int to) {
+        int cell = from * nrOfBins + to;
+        return (occupied.get(cell >>> 6) & (1L << cell)) != 0;
+    }
+
+    @Override
+    public void add(int from, int to, int weight) {
+        int cell = from * nrOfBins + to;
+        cells.addAndGet(cell, weight);
+        weightsOut.addAndGet(from, weight);
+        weightsIn.addAndGet(to, weight);
+
+        // Most adds hit a cell that is already occupied, which only takes a read
+        int word = cell >>> 6;
+        long bit = 1L << cell;
+        long bits = occupied.get(word);
+        while ((bits & bit) == 0 && !occupied.compareAndSet(word, bits, bits | bit)) {
+            bits = occupied.get(word);
+        }
+    }
+
+    @Override
+    public int getWeightOut(int from) {
+        return weightsOut.get(from);
+    }
+
+    @Override
+    public int getWeightIn(int to) {
+        return weightsIn.get(to);
+    }
+
+    @Override
+    public void forEachCell(CellConsumer consumer) {
+        for (int word = 0; word < occupied.length(); word++) {
+            long bits = occupied.get(word);
+            while (bits != 0) {
+                int cell = (word << 6) + Long.numberOfTrailingZeros(bits);
+                consumer.accept(cell / nrOfBins, cell % nrOfBins, cells.get(cell));
+                bits &= bits - 1;
+            }
+        }
+    }
+}
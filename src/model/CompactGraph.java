@@ -0,0 +1,329 @@
+package model;
+
+import ingest.EdgeConsumer;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Represents a graph using dense integer vertex ids and compressed sparse row (CSR) arrays for both the outgoing and
+ * the incoming edges of each vertex. The outgoing edges of vertex v are stored at positions
+ * outOffsets[v]..outOffsets[v+1]-1 of outTargets and outWeights, sorted on target vertex; the incoming edges are
+ * stored in the same way in the in-arrays, sorted on source vertex. Edges between the same pair of vertices are merged.
+ * Use a CompactGraphBuilder to create a CompactGraph from a graph stream.
+ */
+public class CompactGraph {
+
+    private static final byte[] MAGIC = {'T', 'C', 'M', 'G'};
+    private static final int VERSION = 1;
+    private static final int MAX_MAPPED_SIZE = 1 << 30;
+
+    private final LabelDictionary labels;
+    private final int[] outOffsets;
+    private final int[] outTargets;
+    private final long[] outWeights;
+    private final int[] inOffsets;
+    private final int[] inTargets;
+    private final long[] inWeights;
+
+    /**
+     * Creates a new CompactGraph from the out-adjacency in CSR form, the in-adjacency is derived from it.
+     * The rows of the out-adjacency should be sorted on target vertex and should not contain duplicates.
+     *
+     * @param labels
+     * @param outOffsets
+     * @param outTargets
+     * @param outWeights
+     */
+    CompactGraph(LabelDictionary labels, int[] outOffsets, int[] outTargets, long[] outWeights) {
+        this.labels = labels;
+        this.outOffsets = outOffsets;
+        this.outTargets = outTargets;
+        this.outWeights = outWeights;
+
+        int nrOfVertices = labels.size();
+        this.inOffsets = new int[nrOfVertices + 1];
+        this.inTargets = new int[outTargets.length];
+        this.inWeights = new long[outTargets.length];
+        for (int target : outTargets) {
+            inOffsets[target + 1]++;
+        }
+        for (int v = 0; v < nrOfVertices; v++) {
+            inOffsets[v + 1] += inOffsets[v];
+        }
+        // Scattering the edges in order of source vertex keeps each in-row sorted on source vertex
+        int[] next = Arrays.copyOf(inOffsets, nrOfVertices);
+        for (int v = 0; v < nrOfVertices; v++) {
+            for (int i = outOffsets[v]; i < outOffsets[v + 1]; i++) {
+                int position = next[outTargets[i]]++;
+                inTargets[position] = v;
+                inWeights[position] = outWeights[i];
+            }
+        }
+    }
+
+    private CompactGraph(LabelDictionary labels, int[] outOffsets, int[] outTargets, long[] outWeights,
+                         int[] inOffsets, int[] inTargets, long[] inWeights) {
+        this.labels = labels;
+        this.outOffsets = outOffsets;
+        this.outTargets = outTargets;
+        this.outWeights = outWeights;
+        this.inOffsets = inOffsets;
+        this.inTargets = inTargets;
+        this.inWeights = inWeights;
+    }
+
+    /**
+     * Creates a CompactGraph containing the same edges as the given graph
+     *
+     * @param graph
+     * @return
+     */
+    public static CompactGraph fromGraph(Graph graph) {
+        CompactGraphBuilder builder = new CompactGraphBuilder();
+        for (Edge edge : graph.getEdges()) {
+            builder.addEdge(edge.getFrom().getLabel(), edge.getTo().getLabel(), edge.getWeight());
+        }
+        return builder.build();
+    }
+
+    public int getNrOfVertices() {
+        return labels.size();
+    }
+
+    public int getNrOfEdges() {
+        return outTargets.length;
+    }
+
+    /**
+     * Returns the id of the vertex with the given label, or -1 if there is no such vertex
+     *
+     * @param label
+     * @return
+     */
+    public int getId(String label) {
+        return labels.getId(label);
+    }
+
+    public String getLabel(int id) {
+        return labels.getLabel(id);
+    }
+
+    public int[] getOutOffsets() {
+        return outOffsets;
+    }
+
+    public int[] getOutTargets() {
+        return outTargets;
+    }
+
+    public long[] getOutWeights() {
+        return outWeights;
+    }
+
+    public int[] getInOffsets() {
+        return inOffsets;
+    }
+
+    public int[] getInTargets() {
+        return inTargets;
+    }
+
+    public long[] getInWeights() {
+        return inWeights;
+    }
+
+    /**
+     * Returns the position of edge from->to in the out-arrays, or -1 if there is no such edge.
+     * Uses a binary search over the outgoing edges of from.
+     *
+     * @param from
+     * @param to
+     * @return
+     */
+    public int indexOfEdge(int from, int to) {
+        int index = Arrays.binarySearch(outTargets, outOffsets[from], outOffsets[from + 1], to);
+        return index < 0 ? -1 : index;
+    }
+
+    /**
+     * Returns the summed weight of all outgoing edges of the given vertex
+     *
+     * @param vertex
+     * @return
+     */
+    public long getWeightOut(int vertex) {
+        long weight = 0;
+        for (int i = outOffsets[vertex]; i < outOffsets[vertex + 1]; i++) {
+            weight += outWeights[i];
+        }
+        return weight;
+    }
+
+    /**
+     * Returns the summed weight of all incoming edges of the given vertex
+     *
+     * @param vertex
+     * @return
+     */
+    public long getWeightIn(int vertex) {
+        long weight = 0;
+        for (int i = inOffsets[vertex]; i < inOffsets[vertex + 1]; i++) {
+            weight += inWeights[i];
+        }
+        return weight;
+    }
+
+    /**
+     * Passes all edges of this graph to the given consumer
+     *
+     * @param consumer
+     */
+    public void forEachEdge(EdgeConsumer consumer) {
+        for (int v = 0; v < getNrOfVertices(); v++) {
+            String from = labels.getLabel(v);
+            for (int i = outOffsets[v]; i < outOffsets[v + 1]; i++) {
+                consumer.addEdge(from, labels.getLabel(outTargets[i]), (int) outWeights[i]);
+            }
+        }
+    }
+
+    /**
+     * Writes this graph to the file with the given name. The file contains a header, the labels and then all arrays
+     * as fixed width values, so it can be loaded by mapping it into memory.
+     *
+     * @param filename
+     * @throws IOException
+     */
+    public void save(String filename) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(filename, "rw");
+             FileChannel channel = file.getChannel()) {
+            channel.truncate(0);
+            ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+            buffer.put(MAGIC).putInt(VERSION).putInt(getNrOfVertices()).putInt(getNrOfEdges());
+            for (int v = 0; v < getNrOfVertices(); v++) {
+                byte[] label = labels.getLabel(v).getBytes(StandardCharsets.UTF_8);
+                if (buffer.remaining() < 4 + label.length) {
+                    flush(channel, buffer);
+                    if (buffer.capacity() < 4 + label.length) {
+                        buffer = ByteBuffer.allocate(4 + label.length);
+                    }
+                }
+                buffer.putInt(label.length).put(label);
+            }
+            flush(channel, buffer);
+
+            long position = channel.position();
+            position = writeArray(channel, position, outOffsets);
+            position = writeArray(channel, position, outTargets);
+            position = writeArray(channel, position, outWeights);
+            position = writeArray(channel, position, inOffsets);
+            position = writeArray(channel, position, inTargets);
+            writeArray(channel, position, inWeights);
+        }
+    }
+
+    /**
+     * Loads a graph written by save by mapping the file into memory
+     *
+     * @param filename
+     * @return
+     * @throws IOException
+     */
+    public static CompactGraph load(String filename) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(filename, "r");
+             FileChannel channel = file.getChannel()) {
+            ByteBuffer header = ByteBuffer.allocate(MAGIC.length + 12);
+            channel.read(header, 0);
+            header.flip();
+            byte[] magic = new byte[MAGIC.length];
+            header.get(magic);
+            if (header.remaining() < 12 || !Arrays.equals(magic, MAGIC) || header.getInt() != VERSION) {
+                throw new IOException(String.format("%s is not a compact graph file", filename));
+            }
+            int nrOfVertices = header.getInt();
+            int nrOfEdges = header.getInt();
+
+            // Labels have a variable length, so they are read as a stream, the arrays after them are mapped
+            LabelDictionary labels = new LabelDictionary();
+            long position = header.limit();
+            DataInputStream input = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel.position(position))));
+            for (int v = 0; v < nrOfVertices; v++) {
+                byte[] label = new byte[input.readInt()];
+                input.readFully(label);
+                labels.getIdOrCreate(new String(label, StandardCharsets.UTF_8));
+                position += 4 + label.length;
+            }
+
+            int[] outOffsets = new int[nrOfVertices + 1];
+            int[] outTargets = new int[nrOfEdges];
+            long[] outWeights = new long[nrOfEdges];
+            int[] inOffsets = new int[nrOfVertices + 1];
+            int[] inTargets = new int[nrOfEdges];
+            long[] inWeights = new long[nrOfEdges];
+            position = readArray(channel, position, outOffsets);
+            position = readArray(channel, position, outTargets);
+            position = readArray(channel, position, outWeights);
+            position = readArray(channel, position, inOffsets);
+            position = readArray(channel, position, inTargets);
+            readArray(channel, position, inWeights);
+
+            return new CompactGraph(labels, outOffsets, outTargets, outWeights, inOffsets, inTargets, inWeights);
+        }
+    }
+
+    private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private static long writeArray(FileChannel channel, long position, int[] array) throws IOException {
+        for (int offset = 0; offset < array.length; ) {
+            int length = Math.min(array.length - offset, MAX_MAPPED_SIZE / 4);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, position, 4L * length);
+            buffer.asIntBuffer().put(array, offset, length);
+            position += 4L * length;
+            offset += length;
+        }
+        return position;
+    }
+
+    private static long writeArray(FileChannel channel, long position, long[] array) throws IOException {
+        for (int offset = 0; offset < array.length; ) {
+            int length = Math.min(array.length - offset, MAX_MAPPED_SIZE / 8);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, position, 8L * length);
+            buffer.asLongBuffer().put(array, offset, length);
+            position += 8L * length;
+            offset += length;
+        }
+        return position;
+    }
+
+    private static long readArray(FileChannel channel, long position, int[] array) throws IOException {
+        for (int offset = 0; offset < array.length; ) {
+            int length = Math.min(array.length - offset, MAX_MAPPED_SIZE / 4);
+            channel.map(FileChannel.MapMode.READ_ONLY, position, 4L * length).asIntBuffer().get(array, offset, length);
+            position += 4L * length;
+            offset += length;
+        }
+        return position;
+    }
+
+    private static long readArray(FileChannel channel, long position, long[] array) throws IOException {
+        for (int offset = 0; offset < array.length; ) {
+            int length = Math.min(array.length - offset, MAX_MAPPED_SIZE / 8);
+            channel.map(FileChannel.MapMode.READ_ONLY, position, 8L * length).asLongBuffer().get(array, offset, length);
+            position += 8L * length;
+            offset += length;
+        }
+        return position;
+    }
+}
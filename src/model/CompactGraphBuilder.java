@@ -0,0 +1,101 @@
+package model;
+
+import ingest.EdgeConsumer;
+import util.LongLongHashMap;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Collects the edges of a graph stream and builds a CompactGraph from them. Vertex labels are interned to dense ids
+ * and the weights of duplicate edges are summed while the edges are added, the compressed sparse row arrays are built
+ * by build().
+ */
+public class CompactGraphBuilder implements EdgeConsumer {
+
+    private static final int INSERTION_SORT_THRESHOLD = 16;
+
+    private final LabelDictionary labels;
+    // Summed weight of each distinct edge, keyed on the packed (fromId, toId) pair
+    private final LongLongHashMap edges;
+
+    public CompactGraphBuilder() {
+        this.labels = new LabelDictionary();
+        this.edges = new LongLongHashMap();
+    }
+
+    @Override
+    public void addEdge(String fromLabel, String toLabel, int weight) {
+        int from = labels.getIdOrCreate(fromLabel);
+        int to = labels.getIdOrCreate(toLabel);
+        edges.addTo(LongLongHashMap.pack(from, to), weight);
+    }
+
+    /**
+     * Builds the CompactGraph of all edges added so far. Edges between the same pair of vertices have already been
+     * merged by summing their weights.
+     *
+     * @return
+     */
+    public CompactGraph build() {
+        int nrOfVertices = labels.size();
+        int nrOfEdges = edges.size();
+
+        // Counting sort on the source vertex gives the rows of the out-adjacency
+        int[] outOffsets = new int[nrOfVertices + 1];
+        edges.forEach((key, weight) -> outOffsets[LongLongHashMap.unpackA(key) + 1]++);
+        for (int v = 0; v < nrOfVertices; v++) {
+            outOffsets[v + 1] += outOffsets[v];
+        }
+        int[] outTargets = new int[nrOfEdges];
+        long[] outWeights = new long[nrOfEdges];
+        int[] next = Arrays.copyOf(outOffsets, nrOfVertices);
+        edges.forEach((key, weight) -> {
+            int position = next[LongLongHashMap.unpackA(key)]++;
+            outTargets[position] = LongLongHashMap.unpackB(key);
+            outWeights[position] = weight;
+        });
+
+        // Sort the rows on target vertex in parallel
+        IntStream.range(0, nrOfVertices).parallel()
+                .forEach(v -> sortRow(outTargets, outWeights, outOffsets[v], outOffsets[v + 1]));
+
+        return new CompactGraph(labels, outOffsets, outTargets, outWeights);
+    }
+
+    /**
+     * Sorts targets[start, end) ascending, applying the same permutation to weights
+     */
+    private static void sortRow(int[] targets, long[] weights, int start, int end) {
+        int length = end - start;
+        if (length <= INSERTION_SORT_THRESHOLD) {
+            for (int i = start + 1; i < end; i++) {
+                int target = targets[i];
+                long weight = weights[i];
+                int j = i - 1;
+                while (j >= start && targets[j] > target) {
+                    targets[j + 1] = targets[j];
+                    weights[j + 1] = weights[j];
+                    j--;
+                }
+                targets[j + 1] = target;
+                weights[j + 1] = weight;
+            }
+            return;
+        }
+
+        // Sort (target, position) pairs packed in longs, then apply the permutation
+        long[] keys = new long[length];
+        for (int i = 0; i < length; i++) {
+            keys[i] = ((long) targets[start + i] << 32) | i;
+        }
+        Arrays.sort(keys);
+        long[] sortedWeights = new long[length];
+        for (int i = 0; i < length; i++) {
+            int position = (int) keys[i];
+            targets[start + i] = (int) (keys[i] >>> 32);
+            sortedWeights[i] = weights[start + position];
+        }
+        System.arraycopy(sortedWeights, 0, weights, start, length);
+    }
+}
@@ -0,0 +1,98 @@
+package model;
+
+import util.LongLongHashMap;
+
+import java.util.List;
+
+/**
+ * Presents the sum of several storages for the same hash function as a single, read-only storage, e.g. the storage of
+ * the time buckets that make up a time range. Reading a cell or a row or column sum takes time linear in the number of
+ * storages, while visiting the occupied cells takes time linear in the occupied cells of all storages.
+ */
+public class CompositeSketchStorage extends SummingSketchStorage {
+
+    private final SummingSketchStorage[] parts;
+
+    /**
+     * Creates a new storage that sums the given storages, which should all have the given number of bins
+     * @param nrOfBins
+     * @param parts
+     */
+    public CompositeSketchStorage(int nrOfBins, List<? extends SummingSketchStorage> parts) {
+        super(nrOfBins);
+        this.parts = parts.toArray(new SummingSketchStorage[0]);
+        for (SummingSketchStorage part : this.parts) {
+            if (part.getNrOfBins() != nrOfBins) {
+                throw new IllegalArgumentException("All storages should have the same number of bins");
+            }
+        }
+    }
+
+    /**
+     * Returns the number of storages that are summed
+     * @return
+     */
+    public int getNrOfParts() {
+        return parts.length;
+    }
+
+    @Override
+    public int get(int from, int to) {
+        int weight = 0;
+        for (SummingSketchStorage part : parts) {
+            weight += part.get(from, to);
+        }
+        return weight;
+    }
+
+    @Override
+    public boolean isOccupied(int from, int to) {
+        for (SummingSketchStorage part : parts) {
+            if (part.isOccupied(from, to)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void add(int from, int to, int weight) {
+        throw new UnsupportedOperationException("Edges can not be added to a composite of storages");
+    }
+
+    /**
+     * Visits the union of the occupied cells of the storages, each with its summed weight. The weights are summed in
+     * a hash map of the occupied cells first, rather than summing every cell over all storages.
+     * @param consumer
+     */
+    @Override
+    public void forEachCell(CellConsumer consumer) {
+        if (parts.length == 1) {
+            parts[0].forEachCell(consumer);
+            return;
+        }
+        LongLongHashMap cells = new LongLongHashMap();
+        for (SummingSketchStorage part : parts) {
+            part.forEachCell((from, to, weight) -> cells.addTo(LongLongHashMap.pack(from, to), weight));
+        }
+        cells.forEach((key, weight) -> consumer.accept(LongLongHashMap.unpackA(key), LongLongHashMap.unpackB(key), (int) weight));
+    }
+
+    @Override
+    public int getWeightOut(int from) {
+        int weight = 0;
+        for (SummingSketchStorage part : parts) {
+            weight += part.getWeightOut(from);
+        }
+        return weight;
+    }
+
+    @Override
+    public int getWeightIn(int to) {
+        int weight = 0;
+        for (SummingSketchStorage part : parts) {
+            weight += part.getWeightIn(to);
+        }
+        return weight;
+    }
+}
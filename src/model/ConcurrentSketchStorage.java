@@ -0,0 +1,12 @@
+package model;
+
+/**
+ * Storage that can be updated by many threads at once. Since a GraphSketch can not keep its row and column sums up to
+ * date safely while several threads add edges, a concurrent storage keeps these sums itself.
+ */
+public abstract class ConcurrentSketchStorage extends SummingSketchStorage {
+
+    protected ConcurrentSketchStorage(int nrOfBins) {
+        super(nrOfBins);
+    }
+}
@@ -0,0 +1,202 @@
+package model;
+
+import ingest.NumericTimedEdgeConsumer;
+import ingest.TimedEdgeConsumer;
+import model.queries.Direction;
+import util.HashFamily;
+
+/**
+ * A graphsummary in which the weight of every edge decays exponentially with its age, so recent traffic counts more
+ * and old traffic fades out without a window. After one half-life, the weight of an edge counts for half. The current
+ * time is the latest time of an edge added so far, or a later time passed to advanceTo. Edges added without a time
+ * occur at the current time.
+ * <p>
+ * The weights are decayed using forward decay, see ForwardDecay: adding an edge multiplies its weight by a scale
+ * factor of its time once, and reads multiply by a global scale factor of the current time. The stored weights
+ * therefore never have to be updated as time passes, except for a renormalization of all sketches once in hundreds of
+ * half-lives. Edges may be added out of order.
+ * <p>
+ * The queries read the decayed weights rounded to ints. getDecayedEdgeWeight and getDecayedNodeWeight return the exact
+ * decayed estimates. The sketches of a decayed summary can not track labels or keep a ReachabilityIndex.
+ */
+public class DecayedGraphSummary extends GraphSummary implements TimedEdgeConsumer, NumericTimedEdgeConsumer {
+
+    private final ForwardDecay decay;
+
+    /**
+     * Creates a new, empty decayed summary containing a given nr of sketches which all have a given number of bins, in
+     * which weights halve every halfLife, in the unit of the times of the edges
+     *
+     * @param nrOfSketches
+     * @param nrOfBins
+     * @param halfLife
+     */
+    public DecayedGraphSummary(int nrOfSketches, int nrOfBins, double halfLife) {
+        this(nrOfSketches, nrOfBins, halfLife, HashFamily.murmur2());
+    }
+
+    /**
+     * Creates a new, empty decayed summary like DecayedGraphSummary(int, int, double), whose sketches map labels to
+     * bins using the given hash family
+     *
+     * @param nrOfSketches
+     * @param nrOfBins
+     * @param halfLife
+     * @param hashFamily
+     */
+    public DecayedGraphSummary(int nrOfSketches, int nrOfBins, double halfLife, HashFamily hashFamily) {
+        this(nrOfSketches, nrOfBins, new ForwardDecay(halfLife), hashFamily);
+    }
+
+    private DecayedGraphSummary(int nrOfSketches, int nrOfBins, ForwardDecay decay, HashFamily hashFamily) {
+        super(nrOfSketches, nrOfBins, hash -> new DecayedSketchStorage(hash.getNrOfBins(), decay), hashFamily);
+        this.decay = decay;
+    }
+
+    public double getHalfLife() {
+        return decay.getHalfLife();
+    }
+
+    public long getCurrentTime() {
+        return decay.getCurrentTime();
+    }
+
+    /**
+     * Returns how often the stored weights were renormalized
+     *
+     * @return
+     */
+    public long getNrOfRenormalizations() {
+        return decay.getNrOfRenormalizations();
+    }
+
+    /**
+     * Moves the current time forward to the given time, if it is later, so that queries see the weights decayed up to
+     * that time
+     *
+     * @param time
+     */
+    public void advanceTo(long time) {
+        decay.advanceTo(time);
+    }
+
+    /**
+     * Adds a single edge of the graph stream, which occurred at the given time, to all sketches of this summary
+     *
+     * @param from
+     * @param to
+     * @param weight
+     * @param timestamp
+     */
+    @Override
+    public void addEdge(String from, String to, int weight, long timestamp) {
+        decay.setEventTime(timestamp);
+        super.addEdge(from, to, weight);
+    }
+
+    /**
+     * Adds a single edge with numeric labels of the graph stream, which occurred at the given time, to all sketches of
+     * this summary
+     *
+     * @param from
+     * @param to
+     * @param weight
+     * @param timestamp
+     */
+    @Override
+    public void addEdge(long from, long to, int weight, long timestamp) {
+        decay.setEventTime(timestamp);
+        super.addEdge(from, to, weight);
+    }
+
+    @Override
+    public void addEdge(String from, String to, int weight) {
+        addEdge(from, to, weight, decay.getCurrentTime());
+    }
+
+    @Override
+    public void addEdge(long from, long to, int weight) {
+        addEdge(from, to, weight, decay.getCurrentTime());
+    }
+
+    /**
+     * Returns the estimated decayed weight of the edges from label a to label b at the current time, which is the
+     * minimum over all sketches of the decayed weight of their cell, or 0 if none of the cells has edges
+     *
+     * @param a
+     * @param b
+     * @return
+     */
+    public double getDecayedEdgeWeight(String a, String b) {
+        return decayedEdgeWeightOfHashes(baseHash(a), baseHash(b));
+    }
+
+    /**
+     * Returns the estimated decayed weight of the edges between two numeric labels, like getDecayedEdgeWeight(String,
+     * String)
+     *
+     * @param a
+     * @param b
+     * @return
+     */
+    public double getDecayedEdgeWeight(long a, long b) {
+        return decayedEdgeWeightOfHashes(baseHash(a), baseHash(b));
+    }
+
+    private double decayedEdgeWeightOfHashes(long baseHashA, long baseHashB) {
+        double mergedWeight = Double.POSITIVE_INFINITY;
+        for (GraphSketch sketch : getGraphSketches()) {
+            int binA = (int) sketch.getHash().hashToBin(baseHashA);
+            int binB = (int) sketch.getHash().hashToBin(baseHashB);
+            if (sketch.hasEdge(binA, binB)) {
+                mergedWeight = Math.min(mergedWeight, ((DecayedSketchStorage) sketch.getStorage()).getDecayedWeight(binA, binB));
+            }
+        }
+        return mergedWeight == Double.POSITIVE_INFINITY ? 0 : mergedWeight;
+    }
+
+    /**
+     * Returns the estimated decayed weight of the edges from, to or from and to the given label at the current time,
+     * depending on the given direction, which is the minimum over all sketches of the decayed weight of its bin
+     *
+     * @param label
+     * @param direction
+     * @return
+     */
+    public double getDecayedNodeWeight(String label, Direction direction) {
+        return decayedNodeWeightOfHash(baseHash(label), direction);
+    }
+
+    /**
+     * Returns the estimated decayed weight of the edges of a numeric label, like getDecayedNodeWeight(String, Direction)
+     *
+     * @param label
+     * @param direction
+     * @return
+     */
+    public double getDecayedNodeWeight(long label, Direction direction) {
+        return decayedNodeWeightOfHash(baseHash(label), direction);
+    }
+
+    private double decayedNodeWeightOfHash(long baseHash, Direction direction) {
+        double mergedWeight = Double.POSITIVE_INFINITY;
+        for (GraphSketch sketch : getGraphSketches()) {
+            int bin = (int) sketch.getHash().hashToBin(baseHash);
+            DecayedSketchStorage storage = (DecayedSketchStorage) sketch.getStorage();
+            double weight;
+            switch (direction.getDirection()) {
+                case OUT:
+                    weight = storage.getDecayedWeightOut(bin);
+                    break;
+                case IN:
+                    weight = storage.getDecayedWeightIn(bin);
+                    break;
+                default:
+                    weight = storage.getDecayedWeightOut(bin) + storage.getDecayedWeightIn(bin) - storage.getDecayedWeight(bin, bin);
+                    break;
+            }
+            mergedWeight = Math.min(mergedWeight, weight);
+        }
+        return mergedWeight == Double.POSITIVE_INFINITY ? 0 : mergedWeight;
+    }
+}
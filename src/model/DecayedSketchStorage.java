@@ -0,0 +1,120 @@
+package model;
+
+/**
+ * Stores the adjacency matrix of a sketch of a DecayedGraphSummary on the Java heap, as forward decayed weights in a
+ * row-major double[] of w*w cells, plus a bitset of occupied cells and the row and column sums. Adding an edge
+ * multiplies its weight by the scale of its time once, see ForwardDecay, and adds the result to its cell and sums.
+ * Reads multiply the stored weight by the scale of the current time. The int weights read by the queries are rounded,
+ * getDecayedWeight and the like return the exact weights.
+ */
+public class DecayedSketchStorage extends SummingSketchStorage {
+
+    private final ForwardDecay decay;
+    // The weight of cell from->to is stored at index from*w+to
+    private final double[] cells;
+    private final long[] occupied;
+    private final double[] weightsOut;
+    private final double[] weightsIn;
+
+    DecayedSketchStorage(int nrOfBins, ForwardDecay decay) {
+        super(nrOfBins);
+        if (!SparseSketchStorage.fitsOnHeap(nrOfBins)) {
+            throw new IllegalArgumentException(String.format("A sketch with %s bins does not fit on the heap", nrOfBins));
+        }
+        this.decay = decay;
+        this.cells = new double[nrOfBins * nrOfBins];
+        this.occupied = new long[(nrOfBins * nrOfBins + 63) >>> 6];
+        this.weightsOut = new double[nrOfBins];
+        this.weightsIn = new double[nrOfBins];
+        decay.register(this);
+    }
+
+    /**
+     * Returns the decayed weight of cell from->to at the current time
+     * @param from
+     * @param to
+     * @return
+     */
+    public double getDecayedWeight(int from, int to) {
+        return cells[from * nrOfBins + to] * decay.getCurrentScale();
+    }
+
+    /**
+     * Returns the decayed weight of row from at the current time
+     * @param from
+     * @return
+     */
+    public double getDecayedWeightOut(int from) {
+        return weightsOut[from] * decay.getCurrentScale();
+    }
+
+    /**
+     * Returns the decayed weight of column to at the current time
+     * @param to
+     * @return
+     */
+    public double getDecayedWeightIn(int to) {
+        return weightsIn[to] * decay.getCurrentScale();
+    }
+
+    @Override
+    public int get(int from, int to) {
+        return round(getDecayedWeight(from, to));
+    }
+
+    @Override
+    public boolean isOccupied(int from, int to) {
+        int cell = from * nrOfBins + to;
+        return (occupied[cell >>> 6] & (1L << cell)) != 0;
+    }
+
+    @Override
+    public void add(int from, int to, int weight) {
+        double scaled = weight * decay.getEventScale();
+        int cell = from * nrOfBins + to;
+        cells[cell] += scaled;
+        occupied[cell >>> 6] |= 1L << cell;
+        weightsOut[from] += scaled;
+        weightsIn[to] += scaled;
+    }
+
+    @Override
+    public int getWeightOut(int from) {
+        return round(getDecayedWeightOut(from));
+    }
+
+    @Override
+    public int getWeightIn(int to) {
+        return round(getDecayedWeightIn(to));
+    }
+
+    @Override
+    public void forEachCell(CellConsumer consumer) {
+        for (int word = 0; word < occupied.length; word++) {
+            long bits = occupied[word];
+            while (bits != 0) {
+                int cell = (word << 6) + Long.numberOfTrailingZeros(bits);
+                consumer.accept(cell / nrOfBins, cell % nrOfBins, round(cells[cell] * decay.getCurrentScale()));
+                bits &= bits - 1;
+            }
+        }
+    }
+
+    /**
+     * Multiplies all stored weights by the given factor, when the landmark of the decay is moved
+     * @param factor
+     */
+    void scale(double factor) {
+        for (int cell = 0; cell < cells.length; cell++) {
+            cells[cell] *= factor;
+        }
+        for (int bin = 0; bin < nrOfBins; bin++) {
+            weightsOut[bin] *= factor;
+            weightsIn[bin] *= factor;
+        }
+    }
+
+    private static int round(double weight) {
+        return (int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, Math.round(weight)));
+    }
+}
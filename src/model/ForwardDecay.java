@@ -0,0 +1,126 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The clock of a DecayedGraphSummary, which implements forward decay (Cormode e.a., 2009) with an exponential decay
+ * function. An edge of weight w at time t is stored as w*exp(lambda*(t-L)) for a landmark time L, so its weight never
+ * has to be updated as time passes. At the current time T, every stored weight is multiplied by the same scale factor
+ * exp(-lambda*(T-L)), which gives w*exp(-lambda*(T-t)).
+ * <p>
+ * The stored weights grow exponentially with the time of their edge, so once exp(lambda*(t-L)) gets too large, all
+ * storage is renormalized: the landmark is moved to t and all stored weights are divided by the growth since the old
+ * landmark. This sweep over all cells happens once every MAX_EXPONENT/lambda time units.
+ */
+class ForwardDecay {
+
+    // e^512 is about 1e222, which leaves room for summing many large weights in a double
+    private static final double MAX_EXPONENT = 512;
+
+    private final double halfLife;
+    private final double lambda;
+    private final List<DecayedSketchStorage> storages;
+    private long landmark;
+    private long currentTime;
+    private boolean started;
+    // The time and scale of the edge that is being added, and the scale of the current time
+    private long eventTime;
+    private double eventScale;
+    private double currentScale;
+    private long nrOfRenormalizations;
+
+    ForwardDecay(double halfLife) {
+        if (!(halfLife > 0)) {
+            throw new IllegalArgumentException(String.format("The half-life should be positive, found %s", halfLife));
+        }
+        this.halfLife = halfLife;
+        this.lambda = Math.log(2) / halfLife;
+        this.storages = new ArrayList<>();
+        this.eventScale = 1;
+        this.currentScale = 1;
+    }
+
+    void register(DecayedSketchStorage storage) {
+        storages.add(storage);
+    }
+
+    double getHalfLife() {
+        return halfLife;
+    }
+
+    long getCurrentTime() {
+        return currentTime;
+    }
+
+    long getNrOfRenormalizations() {
+        return nrOfRenormalizations;
+    }
+
+    /**
+     * Sets the time of the edge that is added next, which also moves the current time forward to it
+     * @param time
+     */
+    void setEventTime(long time) {
+        start(time);
+        advanceTo(time);
+        if (time != eventTime) {
+            if (lambda * (time - landmark) > MAX_EXPONENT) {
+                renormalize(time);
+            }
+            eventTime = time;
+            eventScale = Math.exp(lambda * (time - landmark));
+        }
+    }
+
+    /**
+     * Moves the current time forward to the given time, if it is later
+     * @param time
+     */
+    void advanceTo(long time) {
+        start(time);
+        if (time > currentTime) {
+            currentTime = time;
+            currentScale = Math.exp(-lambda * (currentTime - landmark));
+        }
+    }
+
+    /**
+     * Returns the factor that the weight of the edge that is being added is multiplied by when it is stored
+     * @return
+     */
+    double getEventScale() {
+        return eventScale;
+    }
+
+    /**
+     * Returns the factor that stored weights are multiplied by to get their weight at the current time
+     * @return
+     */
+    double getCurrentScale() {
+        return currentScale;
+    }
+
+    /**
+     * Sets the landmark to the first time that is seen
+     */
+    private void start(long time) {
+        if (!started) {
+            started = true;
+            landmark = time;
+            currentTime = time;
+            eventTime = time;
+        }
+    }
+
+    private void renormalize(long newLandmark) {
+        double factor = Math.exp(-lambda * (newLandmark - landmark));
+        for (DecayedSketchStorage storage : storages) {
+            storage.scale(factor);
+        }
+        landmark = newLandmark;
+        eventScale = Math.exp(lambda * (eventTime - landmark));
+        currentScale = Math.exp(-lambda * (currentTime - landmark));
+        nrOfRenormalizations++;
+    }
+}
@@ -1,14 +1,22 @@
 package model;
 
+import ingest.EdgeConsumer;
+import ingest.EdgeStreamReader;
+import util.LongLongHashMap;
+
 import java.util.*;
 
 /**
  * Represents a graph consisting of a set of edges and vertices. Also uses an adjacency list for each vertex.
  */
-public class Graph {
+public class Graph implements EdgeConsumer {
 
-    private Set<Edge> edges;
+    // The distinct edges in the order they were added, getEdges() returns a set view of this list
+    private List<Edge> edges;
     private Map<String, Node> vertices;
+    // Index in edges of the edge between each (fromId, toId) pair, used to merge duplicate edges in O(1)
+    private LongLongHashMap edgeIndex;
+    private Set<Edge> edgeSet;
 
     /**
      * Create a new graph based on a list of Strings, each representing a single edge.
@@ -54,71 +62,71 @@ public class Graph {
      * @param format
      */
     public Graph(Collection<String> edges, String delimiter, String format, int limit) {
-        this.edges = new HashSet<>();
-        this.vertices = new HashMap<>();
+        this();
 
+        EdgeStreamReader reader = new EdgeStreamReader(delimiter, format);
         int i = 0;
 
-        if (format.equals("CSV")) {
-            for (String s : edges) {
-                if (i >= limit) {
-                    break;
-                }
-                String[] split = s.split(delimiter);
-                if (split.length < 3) {
-                    throw new IllegalArgumentException(String.format("Input data should be in the form of 'from %s to $s weight' (without quotes)", delimiter, delimiter));
-                }
-
-                String fromLabel = split[0];
-                String toLabel = split[1];
-                int weight = Integer.parseInt(split[2]);
-
-                Node from = this.getVertexByIdOrCreate(fromLabel);
-                Node to = this.getVertexByIdOrCreate(toLabel);
-                from.setWeightOut(from.getWeightIn()+weight);
-                to.setWeightOut(to.getWeightIn()+weight);
-                Edge edge = new Edge(from, to, weight);
-                from.addOutgoingEdgeTo(edge);
+        for (String s : edges) {
+            if (i >= limit) {
+                break;
+            }
+            if (reader.parseLine(s, this)) {
+                i++;
+            }
+        }
+    }
+
+    /**
+     * Creates an empty graph. Edges can be added one at a time using addEdge, e.g. by an EdgeStreamReader.
+     */
+    public Graph() {
+        this.edges = new ArrayList<>();
+        this.vertices = new HashMap<>();
+        this.edgeIndex = new LongLongHashMap();
+        this.edgeSet = new EdgeSet();
+    }
+
+    /**
+     * Adds a directed edge from->to with the given weight to this graph, creating the vertices if they do not exist yet.
+     * If the graph already contains an edge from->to, the weight is added to that edge.
+     *
+     * @param fromLabel
+     * @param toLabel
+     * @param weight
+     */
+    @Override
+    public void addEdge(String fromLabel, String toLabel, int weight) {
+        Node from = this.getVertexByIdOrCreate(fromLabel);
+        Node to = this.getVertexByIdOrCreate(toLabel);
+        from.setWeightOut(from.getWeightIn()+weight);
+        to.setWeightOut(to.getWeightIn()+weight);
+
+        long key = LongLongHashMap.pack(from.getId(), to.getId());
+        long index = this.edgeIndex.get(key, -1);
+        if (index >= 0) {
+            this.edges.get((int) index).addWeight(weight);
+            return;
+        }
+
+        Edge edge = new Edge(from, to, weight);
+        from.addOutgoingEdgeTo(edge);
 
 //Added reverse for undirected graph
 //                Edge edge_rev = new Edge(to, from, weight);
 //                to.addOutgoingEdgeTo(edge_rev);
 
-                this.edges.add(edge);
-            }
-        } else if (format.equals("GT_GRAPH")) {
-            for (String s : edges) {
-                if (s.startsWith("a ")) {
-                    if (i >= limit) {
-                        break;
-                    }
-                    String[] split = s.split(delimiter);
-
-                    if (split.length < 4) {
-                        throw new IllegalArgumentException(String.format("Input data should be in the form of 'a from %s to $s weight' (without quotes)", delimiter, delimiter));
-                    }
-
-                    String fromLabel = split[1];
-                    String toLabel = split[2];
-                    int weight = Integer.parseInt(split[3]);
-
-                    Node from = this.getVertexByIdOrCreate(fromLabel);
-                    Node to = this.getVertexByIdOrCreate(toLabel);
-                    from.setWeightOut(from.getWeightIn()+weight);
-                    to.setWeightOut(to.getWeightIn()+weight);
-                    Edge edge = new Edge(from, to, weight);
-                    from.addOutgoingEdgeTo(edge);
-                    this.edges.add(edge);
-                }
-            }
-
-        } else
-            throw new IllegalArgumentException(String.format("Format %s is not supported, currently only CSV and GT_GRAPH are supported"));
-
+        this.edgeIndex.put(key, this.edges.size());
+        this.edges.add(edge);
     }
 
+    /**
+     * Returns the distinct edges of this graph, as a read-only set that reflects edges added later
+     *
+     * @return
+     */
     public Set<Edge> getEdges() {
-        return edges;
+        return edgeSet;
     }
 
     public Map<String, Node> getVertices() {
@@ -133,10 +141,11 @@ public class Graph {
      * @return
      */
     private Node getVertexByIdOrCreate(String label) {
-        if (this.vertices.containsKey(label)) {
-            return vertices.get(label);
+        Node existing = this.vertices.get(label);
+        if (existing != null) {
+            return existing;
         }
-        Node vertex = new Node(label);
+        Node vertex = new Node(label, this.vertices.size());
         this.vertices.put(vertex.getLabel(), vertex);
         return vertex;
     }
@@ -162,4 +171,30 @@ public class Graph {
         }
         return outerSB.toString();
     }
+
+    /**
+     * Read-only set view of the edges, whose membership test looks up the ids of the vertices of an edge in edgeIndex
+     */
+    private class EdgeSet extends AbstractSet<Edge> {
+
+        @Override
+        public Iterator<Edge> iterator() {
+            return Collections.unmodifiableList(edges).iterator();
+        }
+
+        @Override
+        public int size() {
+            return edges.size();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            if (!(o instanceof Edge)) {
+                return false;
+            }
+            Node from = vertices.get(((Edge) o).getFrom().getLabel());
+            Node to = vertices.get(((Edge) o).getTo().getLabel());
+            return from != null && to != null && edgeIndex.containsKey(LongLongHashMap.pack(from.getId(), to.getId()));
+        }
+    }
 }
@@ -4,6 +4,7 @@ import model.queries.Direction;
 import model.queries.GraphQuery;
 import model.queries.Pair;
 import util.Hash;
+import util.HashFamily;
 
 import javax.rmi.CORBA.Util;
 import java.util.*;
@@ -14,9 +15,19 @@ import java.util.stream.Collectors;
  */
 public class GraphSketch {
 
-    private Integer[][] adjMatrix;
+    private SketchStorage adjMatrix;
+    // The summed weight of each row (out) and column (in) of the adjacency matrix, updated on every insert. Concurrent
+    // and windowed storage keep these sums themselves.
+    private int[] weightsOut;
+    private int[] weightsIn;
+    private int nrOfBins;
     private HashMap<Long, Set<String>> bins;
     private Hash hash;
+    private ReachabilityIndex reachabilityIndex;
+    private AdjacencyBits adjacencyBits;
+    private AdjacencyLists adjacencyLists;
+    // Whether the storage keeps the sums, see SummingSketchStorage
+    private final boolean summing;
 
     /**
      * Creates a new GraphSketch based on a given graph with the given hash function
@@ -24,16 +35,174 @@ public class GraphSketch {
      * @param hash
      */
     public GraphSketch(Graph graph, Hash hash) {
-        this.adjMatrix = new Integer[hash.getNrOfBins()][hash.getNrOfBins()];
-        this.bins = new HashMap<>();
-        this.hash = hash;
+        this(hash, true);
         this.constructSketch(graph);
     }
 
-    public Integer[][] getAdjMatrix() {
+    /**
+     * Creates a new GraphSketch based on a given graph with the given hash function, that stores its adjacency matrix
+     * in the given storage
+     * @param graph
+     * @param hash
+     * @param storage
+     */
+    public GraphSketch(Graph graph, Hash hash, SketchStorage storage) {
+        this(hash, true, storage);
+        this.constructSketch(graph);
+    }
+
+    /**
+     * Creates a new, empty GraphSketch with the given hash function. Edges can be added one at a time using addEdge.
+     * If trackLabels is false, the labels hashed to each bin are not stored, so the memory used by the sketch only
+     * depends on its number of bins.
+     * @param hash
+     * @param trackLabels
+     */
+    public GraphSketch(Hash hash, boolean trackLabels) {
+        this(hash, trackLabels, new HeapSketchStorage(hash.getNrOfBins()));
+    }
+
+    /**
+     * Creates a new GraphSketch with the given hash function that stores its adjacency matrix in the given storage,
+     * which may already contain edges (e.g. a reopened memory mapped sketch). Sparse storage is replaced by heap
+     * storage once it gets too full. With concurrent storage, any number of threads can add edges at the same time.
+     * With concurrent or windowed storage, see SummingSketchStorage, the sketch can not track labels or keep a
+     * ReachabilityIndex.
+     * @param hash
+     * @param trackLabels
+     * @param storage
+     */
+    public GraphSketch(Hash hash, boolean trackLabels, SketchStorage storage) {
+        if (storage.getNrOfBins() != hash.getNrOfBins()) {
+            throw new IllegalArgumentException("The storage should have the same number of bins as the hash function");
+        }
+        this.summing = storage instanceof SummingSketchStorage;
+        if (this.summing && trackLabels) {
+            throw new IllegalArgumentException("A sketch with concurrent or windowed storage can not track labels");
+        }
+        this.nrOfBins = hash.getNrOfBins();
+        this.adjMatrix = storage;
+        this.weightsOut = new int[nrOfBins];
+        this.weightsIn = new int[nrOfBins];
+        this.bins = trackLabels ? new HashMap<>() : null;
+        this.hash = hash;
+        if (!this.summing) {
+            storage.forEachCell(this::addToSums);
+        }
+    }
+
+    /**
+     * Returns the summed weight of all edges hashed to cell from->to, or 0 if there are none
+     * @param from
+     * @param to
+     * @return
+     */
+    public int getWeight(int from, int to) {
+        return adjMatrix.get(from, to);
+    }
+
+    /**
+     * Returns whether at least one edge was hashed to cell from->to
+     * @param from
+     * @param to
+     * @return
+     */
+    public boolean hasEdge(int from, int to) {
+        return adjMatrix.isOccupied(from, to);
+    }
+
+    /**
+     * Returns the summed weight of all edges from the given bin
+     * @param bin
+     * @return
+     */
+    public int getWeightOut(int bin) {
+        return summing ? ((SummingSketchStorage) adjMatrix).getWeightOut(bin) : weightsOut[bin];
+    }
+
+    /**
+     * Returns the summed weight of all edges to the given bin
+     * @param bin
+     * @return
+     */
+    public int getWeightIn(int bin) {
+        return summing ? ((SummingSketchStorage) adjMatrix).getWeightIn(bin) : weightsIn[bin];
+    }
+
+    /**
+     * Sets whether this sketch keeps a ReachabilityIndex, which makes a reachability check a single bit lookup at the
+     * cost of w*w bits of memory. The index is built once, in O(w^3/64) time, when it is enabled. After that it is
+     * updated incrementally as edges are added, so queries never trigger a rebuild. This is not supported for sketches
+     * with concurrent or windowed storage.
+     * @param reachabilityIndexed
+     */
+    public void setReachabilityIndexed(boolean reachabilityIndexed) {
+        if (reachabilityIndexed && this.summing) {
+            throw new IllegalArgumentException("A sketch with concurrent or windowed storage can not be reachability indexed");
+        }
+        if (reachabilityIndexed && this.reachabilityIndex == null) {
+            this.reachabilityIndex = ReachabilityIndex.build(this);
+        }
+        else if (!reachabilityIndexed) {
+            this.reachabilityIndex = null;
+        }
+    }
+
+    public boolean isReachabilityIndexed() {
+        return reachabilityIndex != null;
+    }
+
+    /**
+     * Returns the transitive closure of this sketch, or null if this sketch is not reachability indexed
+     * @return
+     */
+    public ReachabilityIndex getReachabilityIndex() {
+        return reachabilityIndex;
+    }
+
+    /**
+     * Returns the occupied cells of this sketch as bit matrices, or null if this sketch does not keep them. Only a
+     * sketch with HeapSketchStorage keeps them: the out rows are the bitset of the storage, the in rows are collected on
+     * first use and after that updated as edges are added. Keeping w*w bits would defeat sparse and off-heap storage,
+     * and the cells of concurrent or windowed storage may change without this sketch adding an edge, so a query on
+     * such a sketch collects the occupied cells itself, see BatchPathQuery.
+     * @return
+     */
+    public AdjacencyBits getAdjacencyBits() {
+        if (!(adjMatrix instanceof HeapSketchStorage)) {
+            return null;
+        }
+        if (adjacencyBits == null) {
+            adjacencyBits = AdjacencyBits.build(this);
+        }
+        return adjacencyBits;
+    }
+
+    /**
+     * Returns the occupied cells of this sketch as adjacency lists. With SparseSketchStorage these are collected on
+     * first use and kept until an edge is added to a cell that was empty. With other storage they are collected on
+     * every call, since keeping them would add to the heap for off-heap storage, and the cells of concurrent or windowed
+     * storage may change without this sketch adding an edge.
+     * @return
+     */
+    public AdjacencyLists getAdjacencyLists() {
+        if (!(adjMatrix instanceof SparseSketchStorage)) {
+            return AdjacencyLists.build(adjMatrix);
+        }
+        if (adjacencyLists == null) {
+            adjacencyLists = AdjacencyLists.build(adjMatrix);
+        }
+        return adjacencyLists;
+    }
+
+    public SketchStorage getStorage() {
         return adjMatrix;
     }
 
+    /**
+     * Returns the labels hashed to each bin, or null if this sketch does not track labels
+     * @return
+     */
     public HashMap<Long, Set<String>> getBins() {
         return bins;
     }
@@ -48,14 +217,69 @@ public class GraphSketch {
      */
     private void constructSketch(Graph graph) {
         for (Edge edge : graph.getEdges()) {
-            String labelFrom = edge.getFrom().getLabel();
-            String labelTo = edge.getTo().getLabel();
-            long binFrom = this.hash.hashToBin(labelFrom);
-            long binTo = this.hash.hashToBin(labelTo);
+            this.addEdge(edge.getFrom().getLabel(), edge.getTo().getLabel(), edge.getWeight());
+        }
+    }
+
+    /**
+     * Adds a single edge to this sketch
+     * @param labelFrom
+     * @param labelTo
+     * @param weight
+     */
+    public void addEdge(String labelFrom, String labelTo, int weight) {
+        HashFamily family = this.hash.getFamily();
+        this.addEdge(labelFrom, labelTo, family.baseHash(labelFrom), family.baseHash(labelTo), weight);
+    }
+
+    /**
+     * Adds a single edge to this sketch, given the base hashes of its labels as computed by the hash family. This allows
+     * the labels to be hashed once for all sketches of a summary.
+     * @param labelFrom
+     * @param labelTo
+     * @param baseHashFrom
+     * @param baseHashTo
+     * @param weight
+     */
+    public void addEdge(String labelFrom, String labelTo, long baseHashFrom, long baseHashTo, int weight) {
+        long binFrom = this.hash.hashToBin(baseHashFrom);
+        long binTo = this.hash.hashToBin(baseHashTo);
+        if (this.bins != null) {
             this.addToBin(binFrom, labelFrom);
             this.addToBin(binTo, labelTo);
-            this.addToAdjMatrix((int)binFrom, (int)binTo, edge.getWeight());
         }
+        this.addToAdjMatrix((int)binFrom, (int)binTo, weight);
+    }
+
+    /**
+     * Adds a single edge with numeric labels to this sketch, given the base hashes of its labels as computed by the
+     * hash family. Unless this sketch keeps the labels of its bins, no Strings are created for the labels.
+     * @param labelFrom
+     * @param labelTo
+     * @param baseHashFrom
+     * @param baseHashTo
+     * @param weight
+     */
+    public void addEdge(long labelFrom, long labelTo, long baseHashFrom, long baseHashTo, int weight) {
+        if (this.bins != null) {
+            this.addEdge(Long.toString(labelFrom), Long.toString(labelTo), baseHashFrom, baseHashTo, weight);
+            return;
+        }
+        this.addToAdjMatrix((int) this.hash.hashToBin(baseHashFrom), (int) this.hash.hashToBin(baseHashTo), weight);
+    }
+
+    /**
+     * Adds the given weight to cell from->to, for an edge whose labels were already hashed to bins of this sketch
+     * using getHash(). This can only be used if this sketch does not track labels.
+     * @param from
+     * @param to
+     * @param weight
+     */
+    public void addToCell(int from, int to, int weight) {
+        if (this.bins != null) {
+            throw new IllegalArgumentException("Edges can only be added by bin to a sketch that does not track labels");
+        }
+        this.addToAdjMatrix(from, to, weight);
     }
 
     /**
@@ -80,48 +304,104 @@ public class GraphSketch {
      * @param weight
      */
     private void addToAdjMatrix(int from, int to, int weight) {
-        if (this.adjMatrix[from][to] == null) {
-            this.adjMatrix[from][to] = weight;
+        if (this.summing) {
+            this.adjMatrix.add(from, to, weight);
             return;
         }
-        this.adjMatrix[from][to] += weight;
+        if (this.reachabilityIndex != null) {
+            this.reachabilityIndex.addEdge(from, to);
+        }
+        if (this.adjacencyBits != null) {
+            this.adjacencyBits.addEdge(from, to);
+        }
+        if (this.adjacencyLists != null && !this.adjMatrix.isOccupied(from, to)) {
+            this.adjacencyLists = null;
+        }
+        this.adjMatrix.add(from, to, weight);
+        this.addToSums(from, to, weight);
+        this.convertIfOverfilled();
+    }
+
+    private void addToSums(int from, int to, int weight) {
+        this.weightsOut[from] += weight;
+        this.weightsIn[to] += weight;
+    }
+
+    /**
+     * Replaces sparse storage by heap storage, once so many cells are occupied that the heap storage uses less memory
+     */
+    private void convertIfOverfilled() {
+        if (this.adjMatrix instanceof SparseSketchStorage && ((SparseSketchStorage) this.adjMatrix).isOverfilled()) {
+            this.adjMatrix = ((SparseSketchStorage) this.adjMatrix).toDense();
+            this.adjacencyLists = null;
+        }
+    }
+
+    /**
+     * Adds all weights (and bin labels, if both sketches track them) of the given sketch to this sketch. Both sketches
+     * should use the same hash function, the result is then equal to the sketch of the combined edges of both sketches.
+     * @param other
+     */
+    public void merge(GraphSketch other) {
+        if (other.hash.getNrOfBins() != this.hash.getNrOfBins() || other.hash.getIndex() != this.hash.getIndex()) {
+            throw new IllegalArgumentException("Only sketches with the same hash function can be merged");
+        }
+        if (this.adjMatrix instanceof SparseSketchStorage && !(other.adjMatrix instanceof SparseSketchStorage)
+                && SparseSketchStorage.fitsOnHeap(nrOfBins)) {
+            // The other sketch was already too full for sparse storage, so the merged sketch will be as well
+            this.adjMatrix = ((SparseSketchStorage) this.adjMatrix).toDense();
+        }
+        this.adjMatrix.addAll(other.adjMatrix);
+        this.adjacencyLists = null;
+        if (this.reachabilityIndex != null) {
+            other.adjMatrix.forEachCell((from, to, weight) -> this.reachabilityIndex.addEdge(from, to));
+        }
+        if (this.adjacencyBits != null) {
+            other.adjMatrix.forEachCell((from, to, weight) -> this.adjacencyBits.addEdge(from, to));
+        }
+        if (!this.summing) {
+            for (int bin = 0; bin < nrOfBins; bin++) {
+                this.weightsOut[bin] += other.getWeightOut(bin);
+                this.weightsIn[bin] += other.getWeightIn(bin);
+            }
+        }
+        this.convertIfOverfilled();
+        if (this.bins != null && other.bins != null) {
+            for (Map.Entry<Long, Set<String>> bin : other.bins.entrySet()) {
+                for (String label : bin.getValue()) {
+                    this.addToBin(bin.getKey(), label);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the summed weight of the edges from, to or from and to the given bin, depending on the given direction.
+     * Edges from the bin to itself are counted once.
+     * @param bin
+     * @param direction
+     * @return
+     */
+    public int getNodeWeight(int bin, Direction direction) {
+        switch (direction.getDirection()) {
+            case OUT:
+                return getWeightOut(bin);
+            case IN:
+                return getWeightIn(bin);
+            default:
+                return getWeightOut(bin) + getWeightIn(bin) - adjMatrix.get(bin, bin);
+        }
     }
 
+    /**
+     * Returns the summed weight of the edges from, to or from and to each bin, depending on the given direction
+     * @param direction
+     * @return
+     */
     public List<Pair<Integer, Integer>> getSortedWeights(Direction direction) {
         List<Pair<Integer, Integer>> result = new ArrayList<>();
-        for (int i = 0; i < this.bins.size(); i++) {
-            int weight = 0;
-            switch (direction.getDirection()) {
-                case OUT:
-                    for (int j = 0; j < this.bins.size(); j++) {
-                        if (adjMatrix[i][j] == null) {
-                            continue;
-                        }
-                        weight += adjMatrix[i][j];
-                    }
-                    break;
-                case IN:
-                    for (int j = 0; j < this.bins.size(); j++) {
-                        if (adjMatrix[j][i] == null) {
-                            continue;
-                        }
-                        weight += adjMatrix[j][i];
-                    }
-                    break;
-                case UNDIRECTED:
-                    for (int j = 0; j < this.bins.size(); j++) {
-                        if (adjMatrix[j][i] == null) {
-                            continue;
-                        }
-                        weight += adjMatrix[j][i];
-                        if (adjMatrix[i][j] == null) {
-                            continue;
-                        }
-                        weight += adjMatrix[i][j];
-                    }
-                    break;
-            }
-            result.add(new Pair<>(i, weight));
+        for (int i = 0; i < nrOfBins; i++) {
+            result.add(new Pair<>(i, getNodeWeight(i, direction)));
         }
         return result;
     }
@@ -129,18 +409,20 @@ public class GraphSketch {
     @Override
     public String toString() {
         StringBuilder stringBuilder = new StringBuilder();
-        stringBuilder.append("Bins: ");
-        stringBuilder.append(System.lineSeparator());
-        for (long bin : this.bins.keySet()) {
-            stringBuilder.append(String.format("%s: {%s}", bin, String.join(",", this.bins.get(bin))));
+        if (this.bins != null) {
+            stringBuilder.append("Bins: ");
             stringBuilder.append(System.lineSeparator());
+            for (long bin : this.bins.keySet()) {
+                stringBuilder.append(String.format("%s: {%s}", bin, String.join(",", this.bins.get(bin))));
+                stringBuilder.append(System.lineSeparator());
+            }
         }
 
         stringBuilder.append(System.lineSeparator());
         stringBuilder.append("Adjacency Matrix: ");
         stringBuilder.append(System.lineSeparator());
 
-        for (long bin : this.bins.keySet()) {
+        for (int bin = 0; bin < this.hash.getNrOfBins(); bin++) {
             stringBuilder.append(",");
             stringBuilder.append(bin);
         }
@@ -150,8 +432,8 @@ public class GraphSketch {
             stringBuilder.append(from);
             stringBuilder.append(",");
             for (int to = 0; to < this.hash.getNrOfBins(); to++) {
-                if (this.adjMatrix[from][to] == null) stringBuilder.append("-");
-                else stringBuilder.append(this.adjMatrix[from][to]);
+                if (!this.hasEdge(from, to)) stringBuilder.append("-");
+                else stringBuilder.append(this.getWeight(from, to));
                 stringBuilder.append(",");
             }
             stringBuilder.append(System.lineSeparator());
@@ -1,39 +1,146 @@
 package model;
 
+import ingest.EdgeConsumer;
+import ingest.NumericEdgeConsumer;
 import model.queries.Direction;
 import model.queries.Pair;
 import util.Hash;
+import util.HashFamily;
 
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.math.BigInteger;
 import java.util.*;
 
 /**
  * Contains a number of graphsketches
  */
-public class GraphSummary {
+public class GraphSummary implements EdgeConsumer, NumericEdgeConsumer {
 
-    private Set<GraphSketch> graphSketches;
+    private List<GraphSketch> graphSketches;
     private Graph graph;
+    private CompactGraph compactGraph;
     private int nrOfBins;
+    private SketchStorage.Factory storageFactory;
+    private boolean reachabilityIndexed;
+    private HashFamily hashFamily;
 
     /**
      * Creates a new graphsummary of the given graph containing a given nr of sketches which all have a given number of bins
-     * Each sketch uses a randomly generated hash seed
+     * Each sketch uses a randomly generated hash seed. Sparse or heap storage is picked for the sketches depending on
+     * the expected fill ratio.
      *
      * @param graph
      * @param nrOfSketches
      * @param nrOfBins
      */
     public GraphSummary(Graph graph, int nrOfSketches, int nrOfBins) {
+        this(graph, nrOfSketches, nrOfBins, HashFamily.murmur2());
+    }
+
+    /**
+     * Creates a new graphsummary of the given graph like GraphSummary(Graph, int, int), whose sketches map labels to
+     * bins using the given hash family
+     *
+     * @param graph
+     * @param nrOfSketches
+     * @param nrOfBins
+     * @param hashFamily
+     */
+    public GraphSummary(Graph graph, int nrOfSketches, int nrOfBins, HashFamily hashFamily) {
         this(graph, nrOfBins);
+        this.hashFamily = hashFamily;
+        createSketches(nrOfSketches);
+    }
 
-        Random rnd = new Random();
-        for (int i = 0; i < nrOfSketches; i++) {
-            long seed = BigInteger.probablePrime(16, rnd).longValue();
-            System.out.print("Creating sketch: " + i + "\t");
-            createSketch(seed, i);
+    /**
+     * Creates a new, empty graphsummary containing a given nr of sketches which all have a given number of bins.
+     * The summary does not keep the original graph, edges are added one at a time using addEdge. This allows a
+     * graph stream to be summarized using memory that only depends on the number of sketches and bins. The sketches
+     * start out with sparse storage, which is converted to heap storage once it gets too full.
+     *
+     * @param nrOfSketches
+     * @param nrOfBins
+     */
+    public GraphSummary(int nrOfSketches, int nrOfBins) {
+        this(nrOfSketches, nrOfBins, SketchStorage.adaptive(0));
+    }
+
+    /**
+     * Creates a new, empty graphsummary like GraphSummary(int, int), which stores the adjacency matrices of its
+     * sketches in storage created by the given factory. E.g. SketchStorage.offHeap() keeps the matrices outside the
+     * Java heap and SketchStorage.mapped(directory) keeps them in memory mapped files that can be reopened using open.
+     * With SketchStorage.atomic() or SketchStorage.striped(), any number of threads can call addEdge at the same time.
+     *
+     * @param nrOfSketches
+     * @param nrOfBins
+     * @param storageFactory
+     */
+    public GraphSummary(int nrOfSketches, int nrOfBins, SketchStorage.Factory storageFactory) {
+        this(nrOfSketches, nrOfBins, storageFactory, HashFamily.murmur2());
+    }
+
+    /**
+     * Creates a new, empty graphsummary like GraphSummary(int, int, SketchStorage.Factory), whose sketches map labels
+     * to bins using the given hash family
+     *
+     * @param nrOfSketches
+     * @param nrOfBins
+     * @param storageFactory
+     * @param hashFamily
+     */
+    public GraphSummary(int nrOfSketches, int nrOfBins, SketchStorage.Factory storageFactory, HashFamily hashFamily) {
+        this(null, nrOfBins);
+        this.storageFactory = storageFactory;
+        this.hashFamily = hashFamily;
+        createSketches(nrOfSketches);
+    }
+
+    /**
+     * Reopens a graphsummary that was created with SketchStorage.mapped(directory), without rebuilding its sketches
+     *
+     * @param directory
+     * @return
+     * @throws IOException
+     */
+    public static GraphSummary open(String directory) throws IOException {
+        List<OffHeapSketchStorage> storages = new ArrayList<>();
+        for (int index = 0; ; index++) {
+            File file = new File(directory, OffHeapSketchStorage.filename(index));
+            if (!file.exists()) {
+                break;
+            }
+            storages.add(OffHeapSketchStorage.open(file));
+        }
+        if (storages.isEmpty()) {
+            throw new FileNotFoundException(String.format("No sketches found in %s", directory));
+        }
+
+        GraphSummary graphSummary = new GraphSummary(null, storages.get(0).getNrOfBins());
+        graphSummary.storageFactory = SketchStorage.mapped(directory);
+        graphSummary.hashFamily = storages.get(0).getHash().getFamily();
+        for (OffHeapSketchStorage storage : storages) {
+            graphSummary.graphSketches.add(new GraphSketch(storage.getHash(), false, storage));
+        }
+        return graphSummary;
+    }
+
+    /**
+     * Creates a graphsummary of the given sketches, which should all have the given number of bins and use the given
+     * hash family. This is used for summaries that are a view of part of another summary, see
+     * TimeIndexedGraphSummary.getRange.
+     *
+     * @param nrOfBins
+     * @param graphSketches
+     * @param hashFamily
+     */
+    public GraphSummary(int nrOfBins, List<GraphSketch> graphSketches, HashFamily hashFamily) {
+        this(null, nrOfBins);
+        this.hashFamily = hashFamily;
+        for (GraphSketch sketch : graphSketches) {
+            addSketch(sketch);
         }
-        System.out.println();
     }
 
 //    /**
@@ -62,37 +169,142 @@ public class GraphSummary {
     private GraphSummary(Graph graph, int nrOfBins) {
         this.graph = graph;
         this.nrOfBins = nrOfBins;
-        this.graphSketches = new HashSet<>();
+        this.graphSketches = new ArrayList<>();
+        this.storageFactory = SketchStorage.adaptive(graph == null ? 0 : graph.getEdges().size());
+        this.hashFamily = HashFamily.murmur2();
+    }
+
+    /**
+     * Creates a new graphsummary of the given compact graph containing a given nr of sketches which all have a given
+     * number of bins. Queries on the original graph are executed on the compact graph.
+     *
+     * @param compactGraph
+     * @param nrOfSketches
+     * @param nrOfBins
+     */
+    public GraphSummary(CompactGraph compactGraph, int nrOfSketches, int nrOfBins) {
+        this(nrOfSketches, nrOfBins, SketchStorage.adaptive(compactGraph.getNrOfEdges()));
+        this.compactGraph = compactGraph;
+        compactGraph.forEachEdge(this);
+    }
+
+    private void createSketches(int nrOfSketches) {
+        Random rnd = new Random();
+        for (int i = 0; i < nrOfSketches; i++) {
+            long seed = BigInteger.probablePrime(16, rnd).longValue();
+            System.out.print("Creating sketch: " + i + "\t");
+            Hash hash = new Hash(this.nrOfBins, seed, i, hashFamily);
+            this.addSketch(new GraphSketch(hash, graph != null, storageFactory.create(hash)));
+        }
+        System.out.println();
+
+        if (graph != null) {
+            addGraph();
+        }
+    }
+
+    /**
+     * Adds the edges of the original graph to all sketches, hashing the label of each vertex only once
+     */
+    private void addGraph() {
+        long[] baseHashes = new long[graph.getVertices().size()];
+        for (Node vertex : graph.getVertices().values()) {
+            baseHashes[vertex.getId()] = baseHash(vertex.getLabel());
+        }
+        for (Edge edge : graph.getEdges()) {
+            Node from = edge.getFrom();
+            Node to = edge.getTo();
+            for (GraphSketch sketch : graphSketches) {
+                sketch.addEdge(from.getLabel(), to.getLabel(), baseHashes[from.getId()], baseHashes[to.getId()], edge.getWeight());
+            }
+        }
     }
 
-    public Set<GraphSketch> getGraphSketches() {
+    /**
+     * Returns the sketches of this summary, in the order in which they were created
+     *
+     * @return
+     */
+    public List<GraphSketch> getGraphSketches() {
         return graphSketches;
     }
 
+    /**
+     * Returns the original graph, or null if this summary was created from a graph stream
+     *
+     * @return
+     */
     public Graph getGraph() {
         return graph;
     }
 
+    /**
+     * Returns the compact representation of the original graph, or null if it is not available. If available, queries
+     * on the original graph are executed on the compact graph instead of on the Graph.
+     *
+     * @return
+     */
+    public CompactGraph getCompactGraph() {
+        return compactGraph;
+    }
+
+    /**
+     * Returns the compact representation of the original graph. If it is not available yet, it is created from the
+     * Graph, which should not change afterwards. Returns null if this summary has neither.
+     *
+     * @return
+     */
+    public CompactGraph toCompactGraph() {
+        if (compactGraph == null && graph != null) {
+            compactGraph = CompactGraph.fromGraph(graph);
+        }
+        return compactGraph;
+    }
+
+    public void setCompactGraph(CompactGraph compactGraph) {
+        this.compactGraph = compactGraph;
+    }
+
+    /**
+     * Sets whether the sketches of this summary keep a ReachabilityIndex, which pays off when many path queries are
+     * executed
+     *
+     * @param reachabilityIndexed
+     */
+    public void setReachabilityIndexed(boolean reachabilityIndexed) {
+        this.reachabilityIndexed = reachabilityIndexed;
+        for (GraphSketch sketch : graphSketches) {
+            sketch.setReachabilityIndexed(reachabilityIndexed);
+        }
+    }
+
+    public boolean isReachabilityIndexed() {
+        return reachabilityIndexed;
+    }
+
     public int getNrOfBins() {
         return nrOfBins;
     }
 
+    /**
+     * Returns, for each bin, the minimum over all sketches of the summed weight of the edges from, to or from and to
+     * that bin, depending on the given direction. This takes O(d*w) time, as the sketches keep track of these sums.
+     *
+     * @param direction
+     * @return
+     */
     public List<Pair<Integer, Integer>> getMergedWeightList(Direction direction) {
         List<Pair<Integer, Integer>> result = new ArrayList<>();
-        Set<List<Pair<Integer, Integer>>> weightLists = new HashSet<>();
-
-        for (GraphSketch sketch : graphSketches) {
-            weightLists.add(sketch.getSortedWeights(direction));
-        }
 
         for (int i = 0; i < nrOfBins; i++) {
-            Pair<Integer, Integer> smallest = null;
-            for (List<Pair<Integer, Integer>> weights : weightLists) {
-                if (smallest == null || weights.get(i).getB() < smallest.getB()) {
-                    smallest = weights.get(i);
+            Integer smallest = null;
+            for (GraphSketch sketch : graphSketches) {
+                int weight = sketch.getNodeWeight(i, direction);
+                if (smallest == null || weight < smallest) {
+                    smallest = weight;
                 }
             }
-            result.add(smallest);
+            result.add(smallest == null ? null : new Pair<>(i, smallest));
         }
         return result;
     }
@@ -103,7 +315,81 @@ public class GraphSummary {
      * @param seed
      */
     public void createSketch(long seed, int index) {
-        GraphSketch sketch = new GraphSketch(graph, new Hash(this.nrOfBins, seed, index));
+        Hash hash = new Hash(this.nrOfBins, seed, index, hashFamily);
+        SketchStorage storage = storageFactory.create(hash);
+        addSketch(graph == null ? new GraphSketch(hash, false, storage) : new GraphSketch(graph, hash, storage));
+    }
+
+    private void addSketch(GraphSketch sketch) {
+        sketch.setReachabilityIndexed(this.reachabilityIndexed);
         this.graphSketches.add(sketch);
     }
+
+    /**
+     * Returns the base hash of the given label, from which each sketch derives the bin of the label using
+     * Hash.hashToBin(long). Queries and ingestion compute this once per label, instead of once per sketch.
+     *
+     * @param label
+     * @return
+     */
+    public long baseHash(String label) {
+        return hashFamily.baseHash(label);
+    }
+
+    /**
+     * Returns the base hash of the given numeric label, which is the same as the base hash of the label as a String.
+     * If the hash family has numeric labels, see HashFamily.numeric, this does not create a String.
+     *
+     * @param label
+     * @return
+     */
+    public long baseHash(long label) {
+        return hashFamily.hasNumericLabels() ? hashFamily.baseHash(label) : hashFamily.baseHash(Long.toString(label));
+    }
+
+    public HashFamily getHashFamily() {
+        return hashFamily;
+    }
+
+    /**
+     * Writes the sketches to their files, if they are stored in memory mapped files
+     */
+    public void flush() {
+        for (GraphSketch sketch : graphSketches) {
+            sketch.getStorage().flush();
+        }
+    }
+
+    /**
+     * Adds a single edge of the graph stream to all sketches of this summary
+     *
+     * @param from
+     * @param to
+     * @param weight
+     */
+    @Override
+    public void addEdge(String from, String to, int weight) {
+        long baseHashFrom = baseHash(from);
+        long baseHashTo = baseHash(to);
+        for (GraphSketch sketch : graphSketches) {
+            sketch.addEdge(from, to, baseHashFrom, baseHashTo, weight);
+        }
+    }
+
+    /**
+     * Adds a single edge with numeric labels of the graph stream to all sketches of this summary. If the hash family
+     * has numeric labels and the summary does not keep the labels of its bins, this does not allocate.
+     *
+     * @param from
+     * @param to
+     * @param weight
+     */
+    @Override
+    public void addEdge(long from, long to, int weight) {
+        long baseHashFrom = baseHash(from);
+        long baseHashTo = baseHash(to);
+        for (GraphSketch sketch : graphSketches) {
+            sketch.addEdge(from, to, baseHashFrom, baseHashTo, weight);
+        }
+    }
 }
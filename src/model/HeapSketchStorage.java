@@ -0,0 +1,87 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * Stores the adjacency matrix of a sketch on the Java heap as a single row-major int[] of w*w cells, plus a bitset
+ * of occupied cells. Each row of the bitset starts at a new long, so it doubles as the out rows of AdjacencyBits.
+ */
+public class HeapSketchStorage extends SketchStorage {
+
+    // The weight of cell from->to is stored at index from*w+to
+    private final int[] cells;
+    // Number of longs per row of the bitset
+    private final int words;
+    // Row from of the bitset occupies occupied[from*words .. (from+1)*words)
+    private final long[] occupied;
+
+    public HeapSketchStorage(int nrOfBins) {
+        super(nrOfBins);
+        if (!SparseSketchStorage.fitsOnHeap(nrOfBins)) {
+            throw new IllegalArgumentException(String.format("A sketch with %s bins does not fit on the heap, use off-heap storage instead", nrOfBins));
+        }
+        this.cells = new int[nrOfBins * nrOfBins];
+        this.words = (nrOfBins + 63) >>> 6;
+        this.occupied = new long[nrOfBins * words];
+    }
+
+    @Override
+    public int get(int from, int to) {
+        return cells[from * nrOfBins + to];
+    }
+
+    @Override
+    public boolean isOccupied(int from, int to) {
+        return (occupied[from * words + (to >>> 6)] & (1L << to)) != 0;
+    }
+
+    @Override
+    public void add(int from, int to, int weight) {
+        cells[from * nrOfBins + to] += weight;
+        occupied[from * words + (to >>> 6)] |= 1L << to;
+    }
+
+    @Override
+    public void forEachCell(CellConsumer consumer) {
+        for (int from = 0; from < nrOfBins; from++) {
+            for (int word = 0; word < words; word++) {
+                long bits = occupied[from * words + word];
+                while (bits != 0) {
+                    int to = (word << 6) + Long.numberOfTrailingZeros(bits);
+                    consumer.accept(from, to, cells[from * nrOfBins + to]);
+                    bits &= bits - 1;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the bitset of occupied cells, row from starts at index from*((w+63)/64) and has bit to set if cell
+     * from->to is occupied. The bitset is updated as edges are added.
+     * @return
+     */
+    long[] getOccupiedRows() {
+        return occupied;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(cells, 0);
+        Arrays.fill(occupied, 0);
+    }
+
+    @Override
+    public void addAll(SketchStorage other) {
+        if (!(other instanceof HeapSketchStorage)) {
+            super.addAll(other);
+            return;
+        }
+        HeapSketchStorage heapStorage = (HeapSketchStorage) other;
+        for (int cell = 0; cell < cells.length; cell++) {
+            cells[cell] += heapStorage.cells[cell];
+        }
+        for (int word = 0; word < occupied.length; word++) {
+            occupied[word] |= heapStorage.occupied[word];
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Maps vertex labels to dense integer ids 0..n-1, in order of first appearance
+ */
+public class LabelDictionary {
+
+    private final Map<String, Integer> ids;
+    private final List<String> labels;
+
+    public LabelDictionary() {
+        this.ids = new HashMap<>();
+        this.labels = new ArrayList<>();
+    }
+
+    /**
+     * Returns the id of the given label, assigning a new id if the label has not been seen before
+     *
+     * @param label
+     * @return
+     */
+    public int getIdOrCreate(String label) {
+        Integer id = ids.get(label);
+        if (id != null) {
+            return id;
+        }
+        id = labels.size();
+        ids.put(label, id);
+        labels.add(label);
+        return id;
+    }
+
+    /**
+     * Returns the id of the given label, or -1 if the label is not in this dictionary
+     *
+     * @param label
+     * @return
+     */
+    public int getId(String label) {
+        Integer id = ids.get(label);
+        return id == null ? -1 : id;
+    }
+
+    public String getLabel(int id) {
+        return labels.get(id);
+    }
+
+    public int size() {
+        return labels.size();
+    }
+}
@@ -10,6 +10,7 @@ import java.util.Set;
  */
 public class Node {
     private String label;
+    private int id;
     private Set<Edge> outgoingEdges;
     private int weightIn;
     private int weightOut;
@@ -20,7 +21,18 @@ public class Node {
      * @param label
      */
     public Node(String label) {
+        this(label, -1);
+    }
+
+    /**
+     * Creates a new vertex with the specified label and a dense integer id, assigned by the graph it belongs to
+     *
+     * @param label
+     * @param id
+     */
+    public Node(String label, int id) {
         this.label = label;
+        this.id = id;
         this.outgoingEdges = new HashSet<>();
         this.weightIn = 0;
         this.weightOut = 0;
@@ -30,6 +42,15 @@ public class Node {
         return label;
     }
 
+    /**
+     * Returns the dense integer id of this vertex within its graph, or -1 if it has none
+     *
+     * @return
+     */
+    public int getId() {
+        return id;
+    }
+
     public Set<Edge> getOutgoingEdges() {
         return outgoingEdges;
     }
@@ -0,0 +1,205 @@
+package model;
+
+import util.Hash;
+import util.HashFamily;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Stores the adjacency matrix of a sketch outside the Java heap, either in direct buffers or in a memory mapped file.
+ * Since a single buffer is limited to 2GB, the matrix is split into segments of 1GB, which allows sketches with
+ * w*w cells of several GB without adding to the heap or to garbage collection pauses.
+ * <p>
+ * The layout is the same in both cases: a header with the number of bins and the parameters of the hash function,
+ * followed by a bitset of occupied cells and then by the row-major int cells. A mapped file can therefore be reopened
+ * after a restart without rebuilding the sketch.
+ */
+public class OffHeapSketchStorage extends SketchStorage {
+
+    private static final int MAGIC = 0x54434D53; // "TCMS"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 64;
+    private static final int SEGMENT_SHIFT = 30;
+    private static final long SEGMENT_MASK = (1L << SEGMENT_SHIFT) - 1;
+
+    private final ByteBuffer[] segments;
+    private final long occupiedOffset;
+    private final long cellsOffset;
+
+    /**
+     * Creates a new, empty storage in direct buffers
+     * @param hash
+     */
+    public OffHeapSketchStorage(Hash hash) {
+        super(hash.getNrOfBins());
+        this.occupiedOffset = HEADER_SIZE;
+        this.cellsOffset = occupiedOffset + occupiedSize(nrOfBins);
+        long size = cellsOffset + 4L * nrOfBins * nrOfBins;
+        this.segments = new ByteBuffer[(int) ((size + SEGMENT_MASK) >>> SEGMENT_SHIFT)];
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = ByteBuffer.allocateDirect((int) Math.min(size - ((long) i << SEGMENT_SHIFT), 1L << SEGMENT_SHIFT));
+        }
+        writeHeader(hash);
+    }
+
+    private OffHeapSketchStorage(int nrOfBins, ByteBuffer[] segments) {
+        super(nrOfBins);
+        this.segments = segments;
+        this.occupiedOffset = HEADER_SIZE;
+        this.cellsOffset = occupiedOffset + occupiedSize(nrOfBins);
+    }
+
+    /**
+     * Creates a new, empty storage in a memory mapped file with the given name
+     * @param file
+     * @param hash
+     * @return
+     * @throws IOException
+     */
+    public static OffHeapSketchStorage create(File file, Hash hash) throws IOException {
+        int nrOfBins = hash.getNrOfBins();
+        long size = HEADER_SIZE + occupiedSize(nrOfBins) + 4L * nrOfBins * nrOfBins;
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+             FileChannel channel = randomAccessFile.getChannel()) {
+            // Truncate first, so the file is all zeroes when it is grown
+            channel.truncate(0);
+            OffHeapSketchStorage storage = new OffHeapSketchStorage(nrOfBins, map(channel, size));
+            storage.writeHeader(hash);
+            return storage;
+        }
+    }
+
+    /**
+     * Reopens a storage created by create(File, Hash)
+     * @param file
+     * @return
+     * @throws IOException
+     */
+    public static OffHeapSketchStorage open(File file) throws IOException {
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+             FileChannel channel = randomAccessFile.getChannel()) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            channel.read(header, 0);
+            if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+                throw new IOException(String.format("%s is not a sketch file", file));
+            }
+            int nrOfBins = header.getInt(8);
+            long size = HEADER_SIZE + occupiedSize(nrOfBins) + 4L * nrOfBins * nrOfBins;
+            if (channel.size() < size) {
+                throw new IOException(String.format("Sketch file %s is truncated", file));
+            }
+            return new OffHeapSketchStorage(nrOfBins, map(channel, size));
+        }
+    }
+
+    /**
+     * Returns the hash function of the sketch stored in this storage
+     * @return
+     */
+    public Hash getHash() {
+        HashFamily family = HashFamily.forId(segments[0].getInt(24), segments[0].getLong(32));
+        return new Hash(segments[0].getInt(8), segments[0].getLong(16), segments[0].getInt(12), family);
+    }
+
+    static String filename(int index) {
+        return String.format("sketch-%s.tcms", index);
+    }
+
+    private static long occupiedSize(int nrOfBins) {
+        return 8L * (((long) nrOfBins * nrOfBins + 63) >>> 6);
+    }
+
+    private static ByteBuffer[] map(FileChannel channel, long size) throws IOException {
+        ByteBuffer[] segments = new ByteBuffer[(int) ((size + SEGMENT_MASK) >>> SEGMENT_SHIFT)];
+        for (int i = 0; i < segments.length; i++) {
+            long start = (long) i << SEGMENT_SHIFT;
+            segments[i] = channel.map(FileChannel.MapMode.READ_WRITE, start, Math.min(size - start, 1L << SEGMENT_SHIFT));
+        }
+        return segments;
+    }
+
+    private void writeHeader(Hash hash) {
+        ByteBuffer header = segments[0];
+        header.putInt(0, MAGIC);
+        header.putInt(4, VERSION);
+        header.putInt(8, hash.getNrOfBins());
+        header.putInt(12, hash.getIndex());
+        header.putLong(16, hash.getInitHash());
+        // Files written before hash families were added have zeros here, which is the default family
+        header.putInt(24, hash.getFamily().getId());
+        header.putLong(32, hash.getFamily().getSeed());
+    }
+
+    @Override
+    public int get(int from, int to) {
+        long offset = cellsOffset + 4L * ((long) from * nrOfBins + to);
+        return segments[(int) (offset >>> SEGMENT_SHIFT)].getInt((int) (offset & SEGMENT_MASK));
+    }
+
+    @Override
+    public boolean isOccupied(int from, int to) {
+        long cell = (long) from * nrOfBins + to;
+        long offset = occupiedOffset + 8L * (cell >>> 6);
+        long word = segments[(int) (offset >>> SEGMENT_SHIFT)].getLong((int) (offset & SEGMENT_MASK));
+        return (word & (1L << cell)) != 0;
+    }
+
+    @Override
+    public void add(int from, int to, int weight) {
+        long cell = (long) from * nrOfBins + to;
+
+        long offset = cellsOffset + 4L * cell;
+        ByteBuffer segment = segments[(int) (offset >>> SEGMENT_SHIFT)];
+        int position = (int) (offset & SEGMENT_MASK);
+        segment.putInt(position, segment.getInt(position) + weight);
+
+        offset = occupiedOffset + 8L * (cell >>> 6);
+        segment = segments[(int) (offset >>> SEGMENT_SHIFT)];
+        position = (int) (offset & SEGMENT_MASK);
+        segment.putLong(position, segment.getLong(position) | (1L << cell));
+    }
+
+    @Override
+    public void forEachCell(CellConsumer consumer) {
+        long words = ((long) nrOfBins * nrOfBins + 63) >>> 6;
+        for (long word = 0; word < words; word++) {
+            long offset = occupiedOffset + 8L * word;
+            long bits = segments[(int) (offset >>> SEGMENT_SHIFT)].getLong((int) (offset & SEGMENT_MASK));
+            while (bits != 0) {
+                long cell = (word << 6) + Long.numberOfTrailingZeros(bits);
+                int from = (int) (cell / nrOfBins);
+                int to = (int) (cell % nrOfBins);
+                consumer.accept(from, to, get(from, to));
+                bits &= bits - 1;
+            }
+        }
+    }
+
+    @Override
+    public void clear() {
+        for (int i = 0; i < segments.length; i++) {
+            ByteBuffer segment = segments[i];
+            int position = (int) Math.max(0, occupiedOffset - ((long) i << SEGMENT_SHIFT));
+            for (; position + 8 <= segment.limit(); position += 8) {
+                segment.putLong(position, 0);
+            }
+            for (; position < segment.limit(); position++) {
+                segment.put(position, (byte) 0);
+            }
+        }
+    }
+
+    @Override
+    public void flush() {
+        for (ByteBuffer segment : segments) {
+            if (segment instanceof MappedByteBuffer) {
+                ((MappedByteBuffer) segment).force();
+            }
+        }
+    }
+}
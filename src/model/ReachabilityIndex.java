@@ -0,0 +1,100 @@
+package model;
+
+/**
+ * The transitive closure of the adjacency matrix of a sketch, as a w*w bit matrix. Bit from->to is set if bin to can be
+ * reached from bin from, every bin reaches itself. This makes a reachability check on the sketch a single bit lookup.
+ * After it is built, the closure is kept up to date while edges are added to the sketch using addEdge.
+ */
+public class ReachabilityIndex {
+
+    private final int nrOfBins;
+    // Number of longs per row
+    private final int words;
+    // Row from occupies rows[from*words .. (from+1)*words)
+    private final long[] rows;
+
+    private ReachabilityIndex(int nrOfBins) {
+        if ((long) nrOfBins * ((nrOfBins + 63) >>> 6) > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException(String.format("The reachability index of a sketch with %s bins does not fit on the heap", nrOfBins));
+        }
+        this.nrOfBins = nrOfBins;
+        this.words = (nrOfBins + 63) >>> 6;
+        this.rows = new long[nrOfBins * words];
+    }
+
+    /**
+     * Computes the transitive closure of the given sketch using a bit-parallel version of Warshall's algorithm, which
+     * takes O(w^3/64) time
+     * @param sketch
+     * @return
+     */
+    public static ReachabilityIndex build(GraphSketch sketch) {
+        ReachabilityIndex index = new ReachabilityIndex(sketch.getHash().getNrOfBins());
+        long[] rows = index.rows;
+        int words = index.words;
+        for (int bin = 0; bin < index.nrOfBins; bin++) {
+            index.set(bin, bin);
+        }
+        sketch.getStorage().forEachCell((from, to, weight) -> index.set(from, to));
+
+        // After round k, row i contains every bin reachable from i through intermediate bins 0..k
+        for (int k = 0; k < index.nrOfBins; k++) {
+            int rowK = k * words;
+            long mask = 1L << k;
+            int word = k >>> 6;
+            for (int i = 0; i < index.nrOfBins; i++) {
+                int rowI = i * words;
+                if (i != k && (rows[rowI + word] & mask) != 0) {
+                    for (int w = 0; w < words; w++) {
+                        rows[rowI + w] |= rows[rowK + w];
+                    }
+                }
+            }
+        }
+        return index;
+    }
+
+    public int getNrOfBins() {
+        return nrOfBins;
+    }
+
+    /**
+     * Returns whether bin to can be reached from bin from
+     * @param from
+     * @param to
+     * @return
+     */
+    public boolean reaches(int from, int to) {
+        return (rows[from * words + (to >>> 6)] & (1L << to)) != 0;
+    }
+
+    /**
+     * Updates the closure after an edge from->to was added to the sketch. If to could already be reached from from,
+     * nothing changes. Otherwise every bin x that reaches from now also reaches everything reachable from to, so the
+     * row of to is OR-ed into the row of each such x, which takes O(w^2/64) time in the worst case.
+     * @param from
+     * @param to
+     * @return Whether the closure changed
+     */
+    public boolean addEdge(int from, int to) {
+        if (reaches(from, to)) {
+            return false;
+        }
+        int rowTo = to * words;
+        long mask = 1L << from;
+        int word = from >>> 6;
+        for (int x = 0; x < nrOfBins; x++) {
+            int rowX = x * words;
+            if ((rows[rowX + word] & mask) != 0) {
+                for (int w = 0; w < words; w++) {
+                    rows[rowX + w] |= rows[rowTo + w];
+                }
+            }
+        }
+        return true;
+    }
+
+    private void set(int from, int to) {
+        rows[from * words + (to >>> 6)] |= 1L << to;
+    }
+}
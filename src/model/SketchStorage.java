@@ -0,0 +1,184 @@
+package model;
+
+import util.Hash;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Stores the w*w adjacency matrix of a GraphSketch. Besides the summed weight of each cell, a storage keeps track of
+ * which cells had at least one edge added to them, so an empty cell can be told apart from a cell whose weights sum to 0.
+ */
+public abstract class SketchStorage {
+
+    protected final int nrOfBins;
+
+    protected SketchStorage(int nrOfBins) {
+        this.nrOfBins = nrOfBins;
+    }
+
+    public int getNrOfBins() {
+        return nrOfBins;
+    }
+
+    /**
+     * Returns the summed weight of cell from->to, or 0 if the cell is empty
+     * @param from
+     * @param to
+     * @return
+     */
+    public abstract int get(int from, int to);
+
+    /**
+     * Returns whether at least one edge was added to cell from->to
+     * @param from
+     * @param to
+     * @return
+     */
+    public abstract boolean isOccupied(int from, int to);
+
+    /**
+     * Adds the given weight to cell from->to
+     * @param from
+     * @param to
+     * @param weight
+     */
+    public abstract void add(int from, int to, int weight);
+
+    /**
+     * Adds all cells of the given storage, which should have the same number of bins, to this storage
+     * @param other
+     */
+    public void addAll(SketchStorage other) {
+        other.forEachCell(this::add);
+    }
+
+    /**
+     * Passes every occupied cell to the given consumer, in no particular order
+     * @param consumer
+     */
+    public void forEachCell(CellConsumer consumer) {
+        for (int from = 0; from < nrOfBins; from++) {
+            for (int to = 0; to < nrOfBins; to++) {
+                if (isOccupied(from, to)) {
+                    consumer.accept(from, to, get(from, to));
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes all cells, so the storage can be reused as if it was newly created, e.g. for a pane of
+     * WindowSketchStorage. Storage that can not be cleared throws an UnsupportedOperationException.
+     */
+    public void clear() {
+        throw new UnsupportedOperationException(String.format("%s can not be cleared", getClass().getSimpleName()));
+    }
+
+    /**
+     * Writes any pending changes to the underlying file, if this storage is backed by one
+     */
+    public void flush() {
+    }
+
+    /**
+     * Receives the occupied cells of a storage
+     */
+    public interface CellConsumer {
+        void accept(int from, int to, int weight);
+    }
+
+    /**
+     * Creates the storage for a new sketch with the given hash function
+     */
+    public interface Factory {
+        SketchStorage create(Hash hash);
+    }
+
+    /**
+     * Returns a factory for storage on the Java heap
+     * @return
+     */
+    public static Factory heap() {
+        return hash -> new HeapSketchStorage(hash.getNrOfBins());
+    }
+
+    /**
+     * Returns a factory for storage that only keeps the occupied cells
+     * @return
+     */
+    public static Factory sparse() {
+        return hash -> new SparseSketchStorage(hash.getNrOfBins());
+    }
+
+    /**
+     * Returns a factory that picks sparse or heap storage for each sketch, based on the fill ratio expected after
+     * adding the given number of distinct edges. Pass 0 if the number of edges is not known in advance, sparse storage
+     * is then converted to heap storage by the sketch once it gets too full.
+     * @param expectedEdges
+     * @return
+     */
+    public static Factory adaptive(long expectedEdges) {
+        return hash -> {
+            int nrOfBins = hash.getNrOfBins();
+            if (SparseSketchStorage.expectedFillRatio(expectedEdges, nrOfBins) > SparseSketchStorage.MAX_FILL_RATIO
+                    && SparseSketchStorage.fitsOnHeap(nrOfBins)) {
+                return new HeapSketchStorage(nrOfBins);
+            }
+            int expectedCells = (int) Math.min(expectedEdges, Integer.MAX_VALUE / 2);
+            return new SparseSketchStorage(nrOfBins, expectedCells);
+        };
+    }
+
+    /**
+     * Returns a factory for heap storage that any number of threads can add edges to at the same time, using atomic
+     * updates of the cells
+     * @return
+     */
+    public static Factory atomic() {
+        return hash -> new AtomicSketchStorage(hash.getNrOfBins());
+    }
+
+    /**
+     * Returns a factory for heap storage that any number of threads can add edges to at the same time, using a stripe
+     * per available processor, each written by the threads mapped to it, which are summed on read
+     * @return
+     */
+    public static Factory striped() {
+        return hash -> new StripedSketchStorage(hash.getNrOfBins());
+    }
+
+    /**
+     * Returns a factory for striped storage with the given number of stripes, rounded up to a power of two
+     * @param nrOfStripes
+     * @return
+     */
+    public static Factory striped(int nrOfStripes) {
+        return hash -> new StripedSketchStorage(hash.getNrOfBins(), nrOfStripes);
+    }
+
+    /**
+     * Returns a factory for storage in direct buffers outside the Java heap
+     * @return
+     */
+    public static Factory offHeap() {
+        return hash -> new OffHeapSketchStorage(hash);
+    }
+
+    /**
+     * Returns a factory for storage in memory mapped files in the given directory, one file per sketch. A summary
+     * stored this way can be reopened using GraphSummary.open.
+     * @param directory
+     * @return
+     */
+    public static Factory mapped(String directory) {
+        return hash -> {
+            try {
+                return OffHeapSketchStorage.create(new File(directory, OffHeapSketchStorage.filename(hash.getIndex())), hash);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        };
+    }
+}
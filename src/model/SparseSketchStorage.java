@@ -0,0 +1,102 @@
+package model;
+
+import util.LongLongHashMap;
+
+/**
+ * Stores only the occupied cells of the adjacency matrix of a sketch, in a hash map keyed on the packed (from, to)
+ * pair. An entry uses about 27 bytes, against a little over 4 bytes per cell for HeapSketchStorage, so this storage
+ * uses less memory as long as at most MAX_FILL_RATIO of the cells are occupied. A GraphSketch converts its storage to
+ * HeapSketchStorage once that fill ratio is exceeded.
+ */
+public class SparseSketchStorage extends SketchStorage {
+
+    /**
+     * Fraction of occupied cells above which dense storage uses less memory
+     */
+    public static final double MAX_FILL_RATIO = 0.125;
+
+    private final LongLongHashMap cells;
+    private final long maxCells;
+
+    public SparseSketchStorage(int nrOfBins) {
+        this(nrOfBins, 16);
+    }
+
+    /**
+     * Creates a new storage that can hold the given number of occupied cells without being resized
+     * @param nrOfBins
+     * @param expectedCells
+     */
+    public SparseSketchStorage(int nrOfBins, int expectedCells) {
+        super(nrOfBins);
+        this.cells = new LongLongHashMap(expectedCells);
+        this.maxCells = fitsOnHeap(nrOfBins) ? (long) ((double) nrOfBins * nrOfBins * MAX_FILL_RATIO) : Long.MAX_VALUE;
+    }
+
+    @Override
+    public int get(int from, int to) {
+        return (int) cells.get(LongLongHashMap.pack(from, to), 0);
+    }
+
+    @Override
+    public boolean isOccupied(int from, int to) {
+        return cells.containsKey(LongLongHashMap.pack(from, to));
+    }
+
+    @Override
+    public void add(int from, int to, int weight) {
+        cells.addTo(LongLongHashMap.pack(from, to), weight);
+    }
+
+    @Override
+    public void clear() {
+        cells.clear();
+    }
+
+    @Override
+    public void forEachCell(CellConsumer consumer) {
+        cells.forEach((key, weight) -> consumer.accept(LongLongHashMap.unpackA(key), LongLongHashMap.unpackB(key), (int) weight));
+    }
+
+    /**
+     * Returns the number of occupied cells
+     * @return
+     */
+    public int size() {
+        return cells.size();
+    }
+
+    /**
+     * Returns whether so many cells are occupied that dense storage would use less memory. This is never the case if
+     * the dense matrix does not fit on the heap.
+     * @return
+     */
+    public boolean isOverfilled() {
+        return cells.size() > maxCells;
+    }
+
+    /**
+     * Returns a HeapSketchStorage containing the same cells as this storage
+     * @return
+     */
+    public HeapSketchStorage toDense() {
+        HeapSketchStorage dense = new HeapSketchStorage(nrOfBins);
+        dense.addAll(this);
+        return dense;
+    }
+
+    /**
+     * Returns the expected fraction of occupied cells after the given number of distinct edges are hashed to a sketch
+     * with the given number of bins
+     * @param nrOfEdges
+     * @param nrOfBins
+     * @return
+     */
+    public static double expectedFillRatio(long nrOfEdges, int nrOfBins) {
+        return 1 - Math.exp(-(double) nrOfEdges / ((double) nrOfBins * nrOfBins));
+    }
+
+    static boolean fitsOnHeap(int nrOfBins) {
+        return (long) nrOfBins * nrOfBins <= Integer.MAX_VALUE - 8;
+    }
+}
@@ -0,0 +1,147 @@
+package model;
+
+/**
+ * Stores the adjacency matrix of a sketch as a fixed number of stripes, each a full matrix with its own row and column
+ * sums. A thread always adds edges to the same stripe, picked from its id, and reads sum the cells of all stripes. The
+ * ids of the threads of a pool are consecutive, so up to as many threads as there are stripes each get a stripe of
+ * their own, and their adds only lock a stripe no other thread writes to. This makes adding an edge nearly as cheap
+ * as with HeapSketchStorage, at the cost of w*w ints of memory per stripe and reads that take time linear in the
+ * number of stripes. Unlike a stripe per thread, the memory does not grow with the number of threads that ever added
+ * edges.
+ * <p>
+ * Reads are exact once the threads that added edges are done, e.g. after they were joined or their tasks completed.
+ * Reads while edges are being added may miss the most recent adds.
+ */
+public class StripedSketchStorage extends ConcurrentSketchStorage {
+
+    private static final int MAX_STRIPES = 16;
+
+    private final Stripe[] stripes;
+    private final int mask;
+
+    /**
+     * Creates a storage with one stripe per available processor, rounded up to a power of two, and at most
+     * MAX_STRIPES stripes
+     * @param nrOfBins
+     */
+    public StripedSketchStorage(int nrOfBins) {
+        this(nrOfBins, Math.min(MAX_STRIPES, Runtime.getRuntime().availableProcessors()));
+    }
+
+    /**
+     * Creates a storage with the given number of stripes, rounded up to a power of two
+     * @param nrOfBins
+     * @param nrOfStripes
+     */
+    public StripedSketchStorage(int nrOfBins, int nrOfStripes) {
+        super(nrOfBins);
+        if (!SparseSketchStorage.fitsOnHeap(nrOfBins)) {
+            throw new IllegalArgumentException(String.format("A sketch with %s bins does not fit on the heap", nrOfBins));
+        }
+        if (nrOfStripes < 1 || nrOfStripes > 1 << 30) {
+            throw new IllegalArgumentException(String.format("Invalid number of stripes %s", nrOfStripes));
+        }
+        int size = Integer.highestOneBit(nrOfStripes - 1) << 1;
+        this.stripes = new Stripe[size == 0 ? 1 : size];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new Stripe(nrOfBins);
+        }
+        this.mask = stripes.length - 1;
+    }
+
+    /**
+     * Returns the number of stripes of this storage
+     * @return
+     */
+    public int getNrOfStripes() {
+        return stripes.length;
+    }
+
+    @Override
+    public int get(int from, int to) {
+        int cell = from * nrOfBins + to;
+        int weight = 0;
+        for (Stripe stripe : stripes) {
+            weight += stripe.cells[cell];
+        }
+        return weight;
+    }
+
+    @Override
+    public boolean isOccupied(int from, int to) {
+        int cell = from * nrOfBins + to;
+        for (Stripe stripe : stripes) {
+            if ((stripe.occupied[cell >>> 6] & (1L << cell)) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void add(int from, int to, int weight) {
+        Stripe stripe = stripes[(int) Thread.currentThread().getId() & mask];
+        int cell = from * nrOfBins + to;
+        synchronized (stripe) {
+            stripe.cells[cell] += weight;
+            stripe.occupied[cell >>> 6] |= 1L << cell;
+            stripe.weightsOut[from] += weight;
+            stripe.weightsIn[to] += weight;
+        }
+    }
+
+    @Override
+    public int getWeightOut(int from) {
+        int weight = 0;
+        for (Stripe stripe : stripes) {
+            weight += stripe.weightsOut[from];
+        }
+        return weight;
+    }
+
+    @Override
+    public int getWeightIn(int to) {
+        int weight = 0;
+        for (Stripe stripe : stripes) {
+            weight += stripe.weightsIn[to];
+        }
+        return weight;
+    }
+
+    @Override
+    public void forEachCell(CellConsumer consumer) {
+        int words = (nrOfBins * nrOfBins + 63) >>> 6;
+        for (int word = 0; word < words; word++) {
+            long bits = 0;
+            for (Stripe stripe : stripes) {
+                bits |= stripe.occupied[word];
+            }
+            while (bits != 0) {
+                int cell = (word << 6) + Long.numberOfTrailingZeros(bits);
+                int weight = 0;
+                for (Stripe stripe : stripes) {
+                    weight += stripe.cells[cell];
+                }
+                consumer.accept(cell / nrOfBins, cell % nrOfBins, weight);
+                bits &= bits - 1;
+            }
+        }
+    }
+
+    /**
+     * The cells and sums written by the threads whose id maps to it
+     */
+    private static class Stripe {
+        private final int[] cells;
+        private final long[] occupied;
+        private final int[] weightsOut;
+        private final int[] weightsIn;
+
+        Stripe(int nrOfBins) {
+            this.cells = new int[nrOfBins * nrOfBins];
+            this.occupied = new long[(nrOfBins * nrOfBins + 63) >>> 6];
+            this.weightsOut = new int[nrOfBins];
+            this.weightsIn = new int[nrOfBins];
+        }
+    }
+}
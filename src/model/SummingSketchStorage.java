@@ -0,0 +1,28 @@
+package model;
+
+/**
+ * Storage that keeps the row and column sums of its matrix itself. A GraphSketch reads the sums from such storage
+ * instead of keeping them up to date as it adds edges, since it can not do so safely while several threads add edges,
+ * see ConcurrentSketchStorage, and since the cells of the storage may change without the sketch adding an edge, see
+ * WindowSketchStorage. For the same reasons, a sketch with such storage does not cache anything derived from its cells.
+ */
+public abstract class SummingSketchStorage extends SketchStorage {
+
+    protected SummingSketchStorage(int nrOfBins) {
+        super(nrOfBins);
+    }
+
+    /**
+     * Returns the summed weight of all cells in row from
+     * @param from
+     * @return
+     */
+    public abstract int getWeightOut(int from);
+
+    /**
+     * Returns the summed weight of all cells in column to
+     * @param to
+     * @return
+     */
+    public abstract int getWeightIn(int to);
+}
@@ -0,0 +1,56 @@
+package model;
+
+import util.LongLongHashMap;
+
+/**
+ * Stores the edges of a single time bucket of a TimeIndexedGraphSummary. Most buckets only hold a few edges, so besides
+ * the cells, only the row and column sums of the bins that have edges are kept, in a hash map. Sparse storage of the
+ * cells is replaced by heap storage once it gets too full, as a GraphSketch does.
+ */
+class TimeBucketStorage extends SummingSketchStorage {
+
+    private SketchStorage cells;
+    // The sum of row b is stored under key b, the sum of column b under key w+b
+    private final LongLongHashMap sums;
+
+    TimeBucketStorage(SketchStorage cells) {
+        super(cells.getNrOfBins());
+        this.cells = cells;
+        this.sums = new LongLongHashMap();
+    }
+
+    @Override
+    public int get(int from, int to) {
+        return cells.get(from, to);
+    }
+
+    @Override
+    public boolean isOccupied(int from, int to) {
+        return cells.isOccupied(from, to);
+    }
+
+    @Override
+    public void add(int from, int to, int weight) {
+        cells.add(from, to, weight);
+        sums.addTo(from, weight);
+        sums.addTo(nrOfBins + to, weight);
+        if (cells instanceof SparseSketchStorage && ((SparseSketchStorage) cells).isOverfilled()) {
+            cells = ((SparseSketchStorage) cells).toDense();
+        }
+    }
+
+    @Override
+    public void forEachCell(CellConsumer consumer) {
+        cells.forEachCell(consumer);
+    }
+
+    @Override
+    public int getWeightOut(int from) {
+        return (int) sums.get(from, 0);
+    }
+
+    @Override
+    public int getWeightIn(int to) {
+        return (int) sums.get(nrOfBins + to, 0);
+    }
+}
@@ -0,0 +1,246 @@
+package model;
+
+import ingest.NumericTimedEdgeConsumer;
+import ingest.TimedEdgeConsumer;
+import util.Hash;
+import util.HashFamily;
+
+import java.math.BigInteger;
+import java.util.*;
+
+/**
+ * Summarizes a timestamped graph stream so that queries can be restricted to a time range. Time is divided into
+ * buckets at several levels of granularity, by default seconds, minutes and hours. Every level keeps, for each bucket
+ * that has edges, a sketch of those edges for each hash function of the summary, so each edge is added to one bucket
+ * per level.
+ * <p>
+ * getRange returns a GraphSummary of the edges in a time range, on which the usual queries can be executed. The range is
+ * covered by as many buckets of the coarsest level as possible, the remainders at both ends by buckets of the next
+ * level, and so on, and a cell of the range is the sum of the cells of these buckets. With granularities that are
+ * powers of 2 apart, the range is covered by at most 2 buckets per level, so queries take O(log T) time per sketch. With
+ * the default granularities it is at most 2*59 buckets per level below hours, plus one bucket per hour in the range.
+ * <p>
+ * The finest level usually holds most buckets and therefore determines the memory used, its granularity should not
+ * be finer than needed.
+ */
+public class TimeIndexedGraphSummary implements TimedEdgeConsumer, NumericTimedEdgeConsumer {
+
+    private static final long[] DEFAULT_GRANULARITIES = new long[]{1, 60, 3600};
+
+    private final int nrOfBins;
+    private final long[] granularities;
+    private final SketchStorage.Factory storageFactory;
+    private final HashFamily hashFamily;
+    private final Hash[] hashes;
+    // For each level, the storage of each bucket for every hash function, by the start of the bucket divided by the
+    // granularity of the level
+    private final List<Map<Long, TimeBucketStorage[]>> levels;
+    // The last bucket used at each level, as most edges are in the same bucket as the edge before them
+    private final long[] lastBucketIndices;
+    private final TimeBucketStorage[][] lastBuckets;
+    private final int[] binsFrom;
+    private final int[] binsTo;
+    private long firstTimestamp = Long.MAX_VALUE;
+    private long lastTimestamp = Long.MIN_VALUE;
+
+    /**
+     * Creates a new, empty time indexed summary containing a given nr of sketches which all have a given number of
+     * bins, with buckets of a second, a minute and an hour. Timestamps should be in seconds.
+     *
+     * @param nrOfSketches
+     * @param nrOfBins
+     */
+    public TimeIndexedGraphSummary(int nrOfSketches, int nrOfBins) {
+        this(nrOfSketches, nrOfBins, DEFAULT_GRANULARITIES, SketchStorage.sparse(), HashFamily.murmur2());
+    }
+
+    /**
+     * Creates a new, empty time indexed summary like TimeIndexedGraphSummary(int, int), with buckets of the given
+     * lengths, in the unit of the timestamps, from fine to coarse. Each length should be a multiple of the one before
+     * it. The buckets are stored in storage created by the given factory, and the sketches map labels to bins using the
+     * given hash family.
+     *
+     * @param nrOfSketches
+     * @param nrOfBins
+     * @param granularities
+     * @param storageFactory
+     * @param hashFamily
+     */
+    public TimeIndexedGraphSummary(int nrOfSketches, int nrOfBins, long[] granularities, SketchStorage.Factory storageFactory, HashFamily hashFamily) {
+        if (granularities.length == 0 || granularities[0] < 1) {
+            throw new IllegalArgumentException("There should be at least one granularity, which should be at least 1");
+        }
+        for (int level = 1; level < granularities.length; level++) {
+            if (granularities[level] <= granularities[level - 1] || granularities[level] % granularities[level - 1] != 0) {
+                throw new IllegalArgumentException(String.format("Granularity %s is not a larger multiple of granularity %s",
+                        granularities[level], granularities[level - 1]));
+            }
+        }
+        this.nrOfBins = nrOfBins;
+        this.granularities = granularities.clone();
+        this.storageFactory = storageFactory;
+        this.hashFamily = hashFamily;
+        this.hashes = new Hash[nrOfSketches];
+        Random rnd = new Random();
+        for (int i = 0; i < nrOfSketches; i++) {
+            hashes[i] = new Hash(nrOfBins, BigInteger.probablePrime(16, rnd).longValue(), i, hashFamily);
+        }
+        this.levels = new ArrayList<>();
+        for (int level = 0; level < granularities.length; level++) {
+            levels.add(new HashMap<>());
+        }
+        this.lastBucketIndices = new long[granularities.length];
+        this.lastBuckets = new TimeBucketStorage[granularities.length][];
+        this.binsFrom = new int[nrOfSketches];
+        this.binsTo = new int[nrOfSketches];
+    }
+
+    public int getNrOfBins() {
+        return nrOfBins;
+    }
+
+    public long[] getGranularities() {
+        return granularities.clone();
+    }
+
+    public HashFamily getHashFamily() {
+        return hashFamily;
+    }
+
+    /**
+     * Returns the number of buckets that have edges, summed over all levels
+     *
+     * @return
+     */
+    public long getNrOfBuckets() {
+        long nrOfBuckets = 0;
+        for (Map<Long, TimeBucketStorage[]> level : levels) {
+            nrOfBuckets += level.size();
+        }
+        return nrOfBuckets;
+    }
+
+    /**
+     * Adds a single edge of the graph stream, which occurred at the given time, to all levels
+     *
+     * @param from
+     * @param to
+     * @param weight
+     * @param timestamp
+     */
+    @Override
+    public void addEdge(String from, String to, int weight, long timestamp) {
+        addToLevels(hashFamily.baseHash(from), hashFamily.baseHash(to), weight, timestamp);
+    }
+
+    /**
+     * Adds a single edge with numeric labels of the graph stream, which occurred at the given time, to all levels. If
+     * the hash family has numeric labels, this does not create Strings for the labels.
+     *
+     * @param from
+     * @param to
+     * @param weight
+     * @param timestamp
+     */
+    @Override
+    public void addEdge(long from, long to, int weight, long timestamp) {
+        addToLevels(baseHash(from), baseHash(to), weight, timestamp);
+    }
+
+    private long baseHash(long label) {
+        return hashFamily.hasNumericLabels() ? hashFamily.baseHash(label) : hashFamily.baseHash(Long.toString(label));
+    }
+
+    private void addToLevels(long baseHashFrom, long baseHashTo, int weight, long timestamp) {
+        for (int k = 0; k < hashes.length; k++) {
+            binsFrom[k] = (int) hashes[k].hashToBin(baseHashFrom);
+            binsTo[k] = (int) hashes[k].hashToBin(baseHashTo);
+        }
+        for (int level = 0; level < granularities.length; level++) {
+            TimeBucketStorage[] bucket = getBucket(level, Math.floorDiv(timestamp, granularities[level]));
+            for (int k = 0; k < hashes.length; k++) {
+                bucket[k].add(binsFrom[k], binsTo[k], weight);
+            }
+        }
+        firstTimestamp = Math.min(firstTimestamp, timestamp);
+        lastTimestamp = Math.max(lastTimestamp, timestamp);
+    }
+
+    private TimeBucketStorage[] getBucket(int level, long index) {
+        if (lastBuckets[level] != null && lastBucketIndices[level] == index) {
+            return lastBuckets[level];
+        }
+        TimeBucketStorage[] bucket = levels.get(level).get(index);
+        if (bucket == null) {
+            bucket = new TimeBucketStorage[hashes.length];
+            for (int k = 0; k < hashes.length; k++) {
+                bucket[k] = new TimeBucketStorage(storageFactory.create(hashes[k]));
+            }
+            levels.get(level).put(index, bucket);
+        }
+        lastBucketIndices[level] = index;
+        lastBuckets[level] = bucket;
+        return bucket;
+    }
+
+    /**
+     * Returns a summary of the edges that occurred in the time range [start, end), on which edge, node, subgraph and
+     * path queries can be executed. The range is extended to whole buckets of the finest level. The summary is a view
+     * of the buckets that cover the range, so it includes edges that are added to these buckets later.
+     *
+     * @param start
+     * @param end
+     * @return
+     */
+    public GraphSummary getRange(long start, long end) {
+        List<List<TimeBucketStorage>> parts = new ArrayList<>();
+        for (int k = 0; k < hashes.length; k++) {
+            parts.add(new ArrayList<>());
+        }
+        // Only the part of the range that has edges is covered, so an unbounded range does not visit every bucket
+        start = Math.max(start, firstTimestamp);
+        end = Math.min(end, lastTimestamp + 1);
+        if (start < end) {
+            long finest = granularities[0];
+            cover(Math.floorDiv(start, finest) * finest, (Math.floorDiv(end - 1, finest) + 1) * finest, granularities.length - 1, parts);
+        }
+
+        List<GraphSketch> sketches = new ArrayList<>();
+        for (int k = 0; k < hashes.length; k++) {
+            sketches.add(new GraphSketch(hashes[k], false, new CompositeSketchStorage(nrOfBins, parts.get(k))));
+        }
+        return new GraphSummary(nrOfBins, sketches, hashFamily);
+    }
+
+    /**
+     * Adds the buckets that cover the range [start, end), whose bounds are multiples of the finest granularity, to
+     * the parts of each hash function, using buckets of the given level and finer
+     */
+    private void cover(long start, long end, int level, List<List<TimeBucketStorage>> parts) {
+        if (start >= end) {
+            return;
+        }
+        long granularity = granularities[level];
+        long first = -Math.floorDiv(-start, granularity);
+        long last = Math.floorDiv(end, granularity);
+        if (level > 0 && first >= last) {
+            cover(start, end, level - 1, parts);
+            return;
+        }
+        if (level > 0) {
+            cover(start, first * granularity, level - 1, parts);
+        }
+        Map<Long, TimeBucketStorage[]> buckets = levels.get(level);
+        for (long index = first; index < last; index++) {
+            TimeBucketStorage[] bucket = buckets.get(index);
+            if (bucket != null) {
+                for (int k = 0; k < hashes.length; k++) {
+                    parts.get(k).add(bucket[k]);
+                }
+            }
+        }
+        if (level > 0) {
+            cover(last * granularity, end, level - 1, parts);
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package model;
+
+import util.Hash;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Stores the adjacency matrix of a sketch over a sliding window of panes. Edges are added to the newest pane, advance
+ * starts a new pane and, once the window is full, expires the oldest one. The matrix seen by the sketch is the sum of
+ * the panes in the window.
+ * <p>
+ * To keep both expiry and reads O(1), the panes are kept in two stacks. The back stack holds the panes added since the
+ * last flip, together with their sum, which is updated as edges are added. The front stack holds older panes, each
+ * summed with all newer panes of the front stack, so its oldest entry is the sum of the whole front stack. A cell of
+ * the window is then the sum of two cells, and expiring the oldest pane drops the oldest entry of the front stack.
+ * When the front stack is empty, the back stack is flipped onto it, which sums each pane into the one before it. This
+ * is a single merge of two panes per pane, amortized.
+ * <p>
+ * The storage of the expired pane is cleared and reused for the new pane, and that of the back sum is reused after a
+ * flip, so a full window allocates no new panes. Pane storage that is sparse is converted to dense storage once it is
+ * overfilled, as GraphSketch does with its own storage.
+ */
+public class WindowSketchStorage extends SummingSketchStorage {
+
+    private final int nrOfPanes;
+    private final SketchStorage.Factory paneFactory;
+    private final Hash hash;
+    // Oldest first, each holds the sum of itself and all panes after it
+    private final ArrayDeque<Pane> front;
+    // Oldest first, the last one is the pane edges are added to
+    private final List<Pane> back;
+    private Pane backSum;
+
+    /**
+     * Creates a new window of the given number of panes for a sketch with the given hash function, whose panes are
+     * stored in storage created by the given factory. This storage should support clear, and should not be
+     * SketchStorage.mapped, which uses the same file for all storage of a sketch.
+     * @param hash
+     * @param nrOfPanes
+     * @param paneFactory
+     */
+    public WindowSketchStorage(Hash hash, int nrOfPanes, SketchStorage.Factory paneFactory) {
+        super(hash.getNrOfBins());
+        if (nrOfPanes < 1) {
+            throw new IllegalArgumentException(String.format("A window should have at least 1 pane, found %s", nrOfPanes));
+        }
+        this.nrOfPanes = nrOfPanes;
+        this.paneFactory = paneFactory;
+        this.hash = hash;
+        this.front = new ArrayDeque<>();
+        this.back = new ArrayList<>();
+        this.backSum = new Pane();
+        this.back.add(new Pane());
+    }
+
+    public int getNrOfPanes() {
+        return nrOfPanes;
+    }
+
+    /**
+     * Starts a new pane, which edges are added to from now on. If the window already holds its number of panes, the
+     * oldest pane is expired first.
+     */
+    public void advance() {
+        if (front.size() + back.size() < nrOfPanes) {
+            back.add(new Pane());
+            return;
+        }
+        if (front.isEmpty()) {
+            flip();
+        }
+        Pane pane = front.removeFirst();
+        pane.clear();
+        back.add(pane);
+    }
+
+    /**
+     * Moves all panes of the back stack to the front stack, summing each pane into the one before it
+     */
+    private void flip() {
+        Pane sum = back.get(back.size() - 1);
+        front.addFirst(sum);
+        for (int i = back.size() - 2; i >= 0; i--) {
+            Pane pane = back.get(i);
+            pane.addAll(sum);
+            front.addFirst(pane);
+            sum = pane;
+        }
+        back.clear();
+        backSum.clear();
+    }
+
+    @Override
+    public int get(int from, int to) {
+        Pane frontSum = front.peekFirst();
+        return frontSum == null ? backSum.cells.get(from, to) : frontSum.cells.get(from, to) + backSum.cells.get(from, to);
+    }
+
+    @Override
+    public boolean isOccupied(int from, int to) {
+        Pane frontSum = front.peekFirst();
+        return backSum.cells.isOccupied(from, to) || frontSum != null && frontSum.cells.isOccupied(from, to);
+    }
+
+    @Override
+    public void add(int from, int to, int weight) {
+        back.get(back.size() - 1).add(from, to, weight);
+        backSum.add(from, to, weight);
+    }
+
+    @Override
+    public void forEachCell(CellConsumer consumer) {
+        Pane frontSum = front.peekFirst();
+        if (frontSum == null) {
+            backSum.cells.forEachCell(consumer);
+            return;
+        }
+        frontSum.cells.forEachCell((from, to, weight) -> consumer.accept(from, to, weight + backSum.cells.get(from, to)));
+        backSum.cells.forEachCell((from, to, weight) -> {
+            if (!frontSum.cells.isOccupied(from, to)) {
+                consumer.accept(from, to, weight);
+            }
+        });
+    }
+
+    @Override
+    public int getWeightOut(int from) {
+        Pane frontSum = front.peekFirst();
+        return frontSum == null ? backSum.weightsOut[from] : frontSum.weightsOut[from] + backSum.weightsOut[from];
+    }
+
+    @Override
+    public int getWeightIn(int to) {
+        Pane frontSum = front.peekFirst();
+        return frontSum == null ? backSum.weightsIn[to] : frontSum.weightsIn[to] + backSum.weightsIn[to];
+    }
+
+    /**
+     * The cells of a pane, or of a sum of panes, with their row and column sums
+     */
+    private class Pane {
+        private SketchStorage cells;
+        private final int[] weightsOut;
+        private final int[] weightsIn;
+
+        Pane() {
+            this.cells = paneFactory.create(hash);
+            this.weightsOut = new int[nrOfBins];
+            this.weightsIn = new int[nrOfBins];
+        }
+
+        void add(int from, int to, int weight) {
+            cells.add(from, to, weight);
+            weightsOut[from] += weight;
+            weightsIn[to] += weight;
+            convertIfOverfilled();
+        }
+
+        void addAll(Pane other) {
+            cells.addAll(other.cells);
+            for (int bin = 0; bin < nrOfBins; bin++) {
+                weightsOut[bin] += other.weightsOut[bin];
+                weightsIn[bin] += other.weightsIn[bin];
+            }
+            convertIfOverfilled();
+        }
+
+        void clear() {
+            cells.clear();
+            Arrays.fill(weightsOut, 0);
+            Arrays.fill(weightsIn, 0);
+        }
+
+        private void convertIfOverfilled() {
+            if (cells instanceof SparseSketchStorage && ((SparseSketchStorage) cells).isOverfilled()) {
+                cells = ((SparseSketchStorage) cells).toDense();
+            }
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package model;
+
+import util.HashFamily;
+
+/**
+ * A graphsummary over a sliding window of the graph stream, e.g. the last 5 minutes. The window is made of a fixed
+ * number of panes, e.g. 5 panes of a minute each. Edges are added to the newest pane and advance, called at the end of
+ * each pane, expires the oldest pane once the window is full. All panes of a sketch share its hash function, and each
+ * sketch keeps the sums needed to read a cell of the window in O(1), see WindowSketchStorage. Edge, node and subgraph
+ * queries on this summary therefore take the same O(d) time as on a GraphSummary, and only see the edges in the window.
+ * <p>
+ * The sketches of a windowed summary can not track labels or keep a ReachabilityIndex.
+ */
+public class WindowedGraphSummary extends GraphSummary {
+
+    private final int nrOfPanes;
+
+    /**
+     * Creates a new, empty windowed summary of the given number of panes, containing a given nr of sketches which all
+     * have a given number of bins. The panes are stored on the Java heap.
+     *
+     * @param nrOfSketches
+     * @param nrOfBins
+     * @param nrOfPanes
+     */
+    public WindowedGraphSummary(int nrOfSketches, int nrOfBins, int nrOfPanes) {
+        this(nrOfSketches, nrOfBins, nrOfPanes, SketchStorage.heap(), HashFamily.murmur2());
+    }
+
+    /**
+     * Creates a new, empty windowed summary like WindowedGraphSummary(int, int, int), whose panes are stored in
+     * storage created by the given factory and whose sketches map labels to bins using the given hash family. Sparse
+     * storage uses less memory for panes with few edges.
+     *
+     * @param nrOfSketches
+     * @param nrOfBins
+     * @param nrOfPanes
+     * @param paneFactory
+     * @param hashFamily
+     */
+    public WindowedGraphSummary(int nrOfSketches, int nrOfBins, int nrOfPanes, SketchStorage.Factory paneFactory, HashFamily hashFamily) {
+        super(nrOfSketches, nrOfBins, hash -> new WindowSketchStorage(hash, nrOfPanes, paneFactory), hashFamily);
+        this.nrOfPanes = nrOfPanes;
+    }
+
+    public int getNrOfPanes() {
+        return nrOfPanes;
+    }
+
+    /**
+     * Ends the current pane and starts a new one, expiring the oldest pane if the window is full. Until the window is
+     * full, queries see all edges added so far.
+     */
+    public void advance() {
+        for (GraphSketch sketch : getGraphSketches()) {
+            ((WindowSketchStorage) sketch.getStorage()).advance();
+        }
+    }
+}
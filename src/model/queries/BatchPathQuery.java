@@ -0,0 +1,310 @@
+package model.queries;
+
+import model.*;
+
+import java.util.*;
+
+/**
+ * Used to perform many reachability queries on the same GraphSummary at once. The queries are grouped 64 at a time,
+ * each query gets one bit (lane) of a long. A single bidirectional breadth-first search then propagates these bits
+ * forward from the sources and backward from the targets, so each edge visited by the search is shared by all 64
+ * queries. A query is answered as soon as both directions reach a common vertex, or when either of them runs out.
+ */
+public class BatchPathQuery extends GraphQuery {
+
+    private static final int LANES = 64;
+
+    private final List<Pair<String, String>> pairs;
+
+    /**
+     * Creates a new BatchPathQuery instance which can be used to determine for each pair (a, b) whether a path exists
+     * from the node with label a to the node with label b for the specified GraphSummary.
+     * @param graphSummary
+     * @param pairs
+     */
+    public BatchPathQuery(GraphSummary graphSummary, List<Pair<String, String>> pairs) {
+        super(graphSummary);
+        this.pairs = pairs;
+    }
+
+    public List<Pair<String, String>> getPairs() {
+        return pairs;
+    }
+
+    /**
+     * Returns a boolean[] containing, for each pair, whether it is reachable in all sketches
+     * @return
+     */
+    @Override
+    public Object executeQueryOnSummary() {
+        boolean[] result = new boolean[pairs.size()];
+        Arrays.fill(result, true);
+        long[] baseHashesA = new long[pairs.size()];
+        long[] baseHashesB = new long[pairs.size()];
+        for (int i = 0; i < pairs.size(); i++) {
+            baseHashesA[i] = this.graphSummary.baseHash(pairs.get(i).getA());
+            baseHashesB[i] = this.graphSummary.baseHash(pairs.get(i).getB());
+        }
+
+        for (GraphSketch sketch : this.graphSummary.getGraphSketches()) {
+            int[] sources = new int[pairs.size()];
+            int[] targets = new int[pairs.size()];
+            for (int i = 0; i < pairs.size(); i++) {
+                sources[i] = (int)sketch.getHash().hashToBin(baseHashesA[i]);
+                targets[i] = (int)sketch.getHash().hashToBin(baseHashesB[i]);
+            }
+            reach(sketch, sources, targets, result);
+        }
+        return result;
+    }
+
+    /**
+     * Determines for each pair that is still reachable in result, whether targets[i] is reachable from sources[i] in
+     * the given sketch, and clears result[i] if it is not
+     * @param sketch
+     * @param sources
+     * @param targets
+     * @param result
+     */
+    static void reach(GraphSketch sketch, int[] sources, int[] targets, boolean[] result) {
+        ReachabilityIndex reachabilityIndex = sketch.getReachabilityIndex();
+        if (reachabilityIndex != null) {
+            for (int i = 0; i < sources.length; i++) {
+                result[i] &= reachabilityIndex.reaches(sources[i], targets[i]);
+            }
+            return;
+        }
+        AdjacencyBits adjacencyBits = sketch.getAdjacencyBits();
+        if (adjacencyBits != null) {
+            for (int i = 0; i < sources.length; i++) {
+                result[i] = result[i] && PathQuery.reach(sources[i], targets[i], adjacencyBits);
+            }
+            return;
+        }
+
+        // Traverse the occupied cells of the sketch in CSR form, like a CompactGraph.
+        // Only the pairs that are still reachable in all previous sketches are searched.
+        AdjacencyLists adjacencyLists = sketch.getAdjacencyLists();
+        int nrOfBins = adjacencyLists.getNrOfBins();
+
+        // If a bin has more occupied cells than its row of adjacency bits has words, OR-ing whole rows is cheaper
+        // than visiting the cells one by one, even when the visits are shared by 64 lanes. This does not hold for
+        // sparse storage, whose lists are kept by the sketch while the bits would be built for every query.
+        if (!(sketch.getStorage() instanceof SparseSketchStorage)
+                && adjacencyLists.getNrOfCells() > (long)nrOfBins * ((nrOfBins + 63) / 64)) {
+            adjacencyBits = AdjacencyBits.build(sketch);
+            for (int i = 0; i < sources.length; i++) {
+                result[i] = result[i] && PathQuery.reach(sources[i], targets[i], adjacencyBits);
+            }
+            return;
+        }
+
+        boolean[] reachable = reach(sources, targets, result, nrOfBins,
+                adjacencyLists.getOutOffsets(), adjacencyLists.getOutTargets(),
+                adjacencyLists.getInOffsets(), adjacencyLists.getInTargets());
+        for (int i = 0; i < sources.length; i++) {
+            result[i] &= reachable[i];
+        }
+    }
+
+    /**
+     * Returns a boolean[] containing, for each pair, whether it is reachable in the compact representation of the
+     * original graph, which is created from the Graph on first use
+     * @return
+     */
+    @Override
+    public Object executeQueryOnOriginal() {
+        CompactGraph compactGraph = this.graphSummary.toCompactGraph();
+        boolean[] result = new boolean[pairs.size()];
+        boolean[] pending = new boolean[pairs.size()];
+        int[] sources = new int[pairs.size()];
+        int[] targets = new int[pairs.size()];
+        for (int i = 0; i < pairs.size(); i++) {
+            sources[i] = compactGraph.getId(pairs.get(i).getA());
+            targets[i] = compactGraph.getId(pairs.get(i).getB());
+            if (pairs.get(i).getA().equals(pairs.get(i).getB())) {
+                result[i] = true;
+            }
+            else {
+                pending[i] = sources[i] >= 0 && targets[i] >= 0;
+            }
+        }
+
+        boolean[] reachable = reach(sources, targets, pending, compactGraph.getNrOfVertices(),
+                compactGraph.getOutOffsets(), compactGraph.getOutTargets(),
+                compactGraph.getInOffsets(), compactGraph.getInTargets());
+        for (int i = 0; i < pairs.size(); i++) {
+            result[i] |= reachable[i];
+        }
+        return result;
+    }
+
+    /**
+     * Determines for each pending pair whether targets[i] is reachable from sources[i] in the graph with the given out-
+     * and in-adjacency in CSR form. The pending pairs are searched 64 at a time. Each step expands the smaller of the
+     * forward and the backward frontier for all lanes that are still unanswered.
+     * @param sources
+     * @param targets
+     * @param pending
+     * @param nrOfVertices
+     * @param outOffsets
+     * @param outTargets
+     * @param inOffsets
+     * @param inTargets
+     * @return
+     */
+    private static boolean[] reach(int[] sources, int[] targets, boolean[] pending, int nrOfVertices,
+                                   int[] outOffsets, int[] outTargets, int[] inOffsets, int[] inTargets) {
+        boolean[] result = new boolean[sources.length];
+        Search forward = new Search(nrOfVertices, outOffsets, outTargets);
+        Search backward = new Search(nrOfVertices, inOffsets, inTargets);
+        int[] batch = new int[LANES];
+
+        int next = 0;
+        while (next < sources.length) {
+            int batchSize = 0;
+            for (; next < sources.length && batchSize < LANES; next++) {
+                if (pending[next]) {
+                    batch[batchSize++] = next;
+                }
+            }
+            if (batchSize == 0) {
+                break;
+            }
+
+            long found = 0;
+            for (int lane = 0; lane < batchSize; lane++) {
+                forward.start(sources[batch[lane]], 1L << lane);
+                backward.start(targets[batch[lane]], 1L << lane);
+            }
+            for (int lane = 0; lane < batchSize; lane++) {
+                found |= forward.seen[sources[batch[lane]]] & backward.seen[sources[batch[lane]]];
+            }
+
+            long active = batchSize == LANES ? -1L : (1L << batchSize) - 1;
+            while (true) {
+                // A lane whose forward or backward frontier is empty can not find a path anymore
+                active &= ~found;
+                active &= forward.live(active) & backward.live(active);
+                if (active == 0) {
+                    break;
+                }
+                if (forward.size <= backward.size) {
+                    found |= forward.expand(active, backward.seen);
+                }
+                else {
+                    found |= backward.expand(active, forward.seen);
+                }
+            }
+
+            for (int lane = 0; lane < batchSize; lane++) {
+                result[batch[lane]] = (found & (1L << lane)) != 0;
+            }
+            forward.clear();
+            backward.clear();
+        }
+        return result;
+    }
+
+    /**
+     * The state of the search in one direction, for up to 64 lanes. For each vertex, seen contains the lanes that
+     * reached it and frontier the lanes that reached it in the last step. The visited vertices are remembered, so the
+     * state can be cleared in time linear in the size of the search instead of the size of the graph.
+     */
+    private static class Search {
+        private final int[] offsets;
+        private final int[] neighbours;
+        private final long[] seen;
+        private long[] frontier;
+        private long[] next;
+        private int[] queue;
+        private int[] nextQueue;
+        private int size;
+        private final int[] visited;
+        private int nrOfVisited;
+
+        Search(int nrOfVertices, int[] offsets, int[] neighbours) {
+            this.offsets = offsets;
+            this.neighbours = neighbours;
+            this.seen = new long[nrOfVertices];
+            this.frontier = new long[nrOfVertices];
+            this.next = new long[nrOfVertices];
+            this.queue = new int[nrOfVertices];
+            this.nextQueue = new int[nrOfVertices];
+            this.visited = new int[nrOfVertices];
+        }
+
+        void start(int vertex, long lane) {
+            if (seen[vertex] == 0) {
+                visited[nrOfVisited++] = vertex;
+            }
+            if (frontier[vertex] == 0) {
+                queue[size++] = vertex;
+            }
+            seen[vertex] |= lane;
+            frontier[vertex] |= lane;
+        }
+
+        /**
+         * Returns the lanes among the given lanes that have a non-empty frontier
+         */
+        long live(long lanes) {
+            long live = 0;
+            for (int q = 0; q < size && live != lanes; q++) {
+                live |= frontier[queue[q]];
+            }
+            return live & lanes;
+        }
+
+        /**
+         * Expands the frontier of the given lanes by one step
+         * @return The lanes that reached a vertex already seen by the same lane of the other search
+         */
+        long expand(long lanes, long[] otherSeen) {
+            long found = 0;
+            int nextSize = 0;
+            for (int q = 0; q < size; q++) {
+                int vertex = queue[q];
+                long bits = frontier[vertex] & lanes;
+                frontier[vertex] = 0;
+                if (bits == 0) {
+                    continue;
+                }
+                for (int i = offsets[vertex]; i < offsets[vertex + 1]; i++) {
+                    int neighbour = neighbours[i];
+                    long newBits = bits & ~seen[neighbour];
+                    if (newBits != 0) {
+                        if (seen[neighbour] == 0) {
+                            visited[nrOfVisited++] = neighbour;
+                        }
+                        if (next[neighbour] == 0) {
+                            nextQueue[nextSize++] = neighbour;
+                        }
+                        next[neighbour] |= newBits;
+                        seen[neighbour] |= newBits;
+                        found |= newBits & otherSeen[neighbour];
+                    }
+                }
+            }
+            long[] swapBits = frontier;
+            frontier = next;
+            next = swapBits;
+            int[] swapQueue = queue;
+            queue = nextQueue;
+            nextQueue = swapQueue;
+            size = nextSize;
+            return found;
+        }
+
+        void clear() {
+            for (int v = 0; v < nrOfVisited; v++) {
+                seen[visited[v]] = 0;
+            }
+            for (int q = 0; q < size; q++) {
+                frontier[queue[q]] = 0;
+            }
+            nrOfVisited = 0;
+            size = 0;
+        }
+    }
+}
@@ -26,26 +26,51 @@ public class EdgeQuery extends GraphQuery {
         this.labelB = labelB;
     }
 
+    /**
+     * Creates a new EdgeQuery instance for two nodes with numeric labels, see HashFamily.numeric
+     *
+     * @param graphSummary
+     * @param labelA
+     * @param labelB
+     */
+    public EdgeQuery(GraphSummary graphSummary, long labelA, long labelB) {
+        this(graphSummary, Long.toString(labelA), Long.toString(labelB));
+    }
+
     @Override
     public Object executeQueryOnSummary() {
-        Integer mergedWeight = null;
+        boolean found = false;
+        int mergedWeight = 0;
+        long baseHashA = super.graphSummary.baseHash(this.labelA);
+        long baseHashB = super.graphSummary.baseHash(this.labelB);
 
         for (GraphSketch graphSketch : super.graphSummary.getGraphSketches()) {
-            int aHash = (int) graphSketch.getHash().hashToBin(this.labelA);
-            int bHash = (int) graphSketch.getHash().hashToBin(this.labelB);
+            int aHash = (int) graphSketch.getHash().hashToBin(baseHashA);
+            int bHash = (int) graphSketch.getHash().hashToBin(baseHashB);
 
-            Integer weight = graphSketch.getAdjMatrix()[aHash][bHash];
+            if (!graphSketch.hasEdge(aHash, bHash)) {
+                continue;
+            }
+            int weight = graphSketch.getWeight(aHash, bHash);
 
 //            System.out.println("\t\t\t\t\t\t\t\t\t\taHash: "+aHash+"  bHash: "+bHash);
 //            System.out.println("Weight for sketch: "+weight);
-            mergedWeight = mergeMinimum(mergedWeight, weight);
+            if (!found || weight < mergedWeight) {
+                mergedWeight = weight;
+                found = true;
+            }
         }
 
-        return mergedWeight;
+        return found ? mergedWeight : null;
     }
 
     @Override
     public Object executeQueryOnOriginal() {
+        CompactGraph compactGraph = super.graphSummary.getCompactGraph();
+        if (compactGraph != null) {
+            return executeQueryOnCompactGraph(compactGraph);
+        }
+
         Graph graph = super.graphSummary.getGraph();
         Node aVertex = graph.getVertices().get(this.labelA);
         Integer mergedWeight = null;
@@ -64,6 +89,21 @@ public class EdgeQuery extends GraphQuery {
         return mergedWeight;
     }
 
+    /**
+     * Looks up the edge using a binary search over the outgoing edges of vertex A
+     * @param compactGraph
+     * @return
+     */
+    private Integer executeQueryOnCompactGraph(CompactGraph compactGraph) {
+        int a = compactGraph.getId(this.labelA);
+        int b = compactGraph.getId(this.labelB);
+        if (a < 0 || b < 0) {
+            return null;
+        }
+        int index = compactGraph.indexOfEdge(a, b);
+        return index < 0 ? null : (int) compactGraph.getOutWeights()[index];
+    }
+
     /**
      * Returns the precision from performing a given number of random Edge Queries on the specified graph summary and the original graph on which it is
      * based. If a query returns an equal result on both the graph summary and the original graph, the query result
@@ -30,6 +30,16 @@ public class NodeQuery extends GraphQuery {
         this.direction = direction;
     }
 
+    /**
+     * Creates a new NodeQuery instance for a node with a numeric label, see HashFamily.numeric
+     * @param graphSummary
+     * @param nodeLabel
+     * @param direction
+     */
+    public NodeQuery(GraphSummary graphSummary, long nodeLabel, Direction direction) {
+        this(graphSummary, Long.toString(nodeLabel), direction);
+    }
+
     public String getNodeLabel() {
         return nodeLabel;
     }
@@ -38,42 +48,24 @@ public class NodeQuery extends GraphQuery {
         return direction;
     }
 
+    /**
+     * Returns the bin of the node and its estimated weight, which is the minimum over all sketches of the summed weight
+     * of the bin of the node. The sketches keep track of these sums, so this takes O(d) time.
+     * @return
+     */
     @Override
     public Object executeQueryOnSummary() {
 
         Integer mergedWeight = null;
-        Integer currentWeight = 0;
-
         Integer currentBucket = null;
+        long baseHash = this.graphSummary.baseHash(nodeLabel);
 
         for (GraphSketch sketch : this.graphSummary.getGraphSketches()) {
-            Integer summedWeightOut = 0;
-            Integer summedWeightIn = 0;
-            Integer bucket = (int)sketch.getHash().hashToBin(nodeLabel);
-
-            if (this.direction.getDirection() == Direction.DirectionEnum.OUT ||
-                    this.direction.getDirection() == Direction.DirectionEnum.UNDIRECTED) {
-                for (int i = 0; i < this.graphSummary.getNrOfBins(); i++) {
-                    Integer weight = sketch.getAdjMatrix()[bucket][i];
-                    if (weight != null) {
-                        summedWeightOut += weight;
-                    }
-                }
-                currentWeight += summedWeightOut;
-            }
-            if (this.direction.getDirection() == Direction.DirectionEnum.IN ||
-                    this.direction.getDirection() == Direction.DirectionEnum.UNDIRECTED) {
-                for (int i = 0; i < this.graphSummary.getNrOfBins(); i++) {
-                    Integer weight = sketch.getAdjMatrix()[i][bucket];
-                    if (weight != null) {
-                        summedWeightIn += weight;
-                    }
-                }
-                currentWeight += summedWeightIn;
-            }
+            int bucket = (int)sketch.getHash().hashToBin(baseHash);
+            int currentWeight = sketch.getNodeWeight(bucket, this.direction);
 
-            mergedWeight = this.mergeMinimum(mergedWeight, currentWeight);
-            if (mergedWeight != currentWeight) {
+            if (mergedWeight == null || currentWeight < mergedWeight) {
+                mergedWeight = currentWeight;
                 currentBucket = bucket;
             }
         }
@@ -87,6 +79,10 @@ public class NodeQuery extends GraphQuery {
 
     @Override
     public Object executeQueryOnOriginal() {
+        CompactGraph compactGraph = this.graphSummary.getCompactGraph();
+        if (compactGraph != null) {
+            return executeQueryOnCompactGraph(compactGraph);
+        }
 
         Integer mergedWeight = 0;
 
@@ -122,6 +118,33 @@ public class NodeQuery extends GraphQuery {
         return mergedWeight;
     }
 
+    /**
+     * Sums the weights of the outgoing and/or incoming edges of the node, which takes time linear in its degree
+     * @param compactGraph
+     * @return
+     */
+    private Integer executeQueryOnCompactGraph(CompactGraph compactGraph) {
+        int vertex = compactGraph.getId(this.nodeLabel);
+        if (vertex < 0) {
+            return 0;
+        }
+
+        switch (this.direction.getDirection()) {
+            case IN:
+                return (int) compactGraph.getWeightIn(vertex);
+            case OUT:
+                return (int) compactGraph.getWeightOut(vertex);
+            default:
+                // A self-loop is both an incoming and an outgoing edge, but should only be counted once
+                long weight = compactGraph.getWeightIn(vertex) + compactGraph.getWeightOut(vertex);
+                int selfLoop = compactGraph.indexOfEdge(vertex, vertex);
+                if (selfLoop >= 0) {
+                    weight -= compactGraph.getOutWeights()[selfLoop];
+                }
+                return (int) weight;
+        }
+    }
+
     /**
      * Returns the precision from performing a given number of random Node Queries on the specified graph summary and the original graph on which it is
      * based. If a query returns an equal result on both the graph summary and the original graph, the query result
@@ -28,81 +28,194 @@ public class PathQuery extends GraphQuery {
         this.labelB = labelB;
     }
 
+    /**
+     * Creates a new PathQuery instance for two nodes with numeric labels, see HashFamily.numeric
+     * @param graphSummary
+     * @param labelA
+     * @param labelB
+     */
+    public PathQuery(GraphSummary graphSummary, long labelA, long labelB) {
+        this(graphSummary, Long.toString(labelA), Long.toString(labelB));
+    }
+
     @Override
     public Object executeQueryOnSummary() {
-        boolean result = true;
+        long baseHashA = this.graphSummary.baseHash(labelA);
+        long baseHashB = this.graphSummary.baseHash(labelB);
 
+        boolean[] reachable = new boolean[]{true};
         for (GraphSketch sketch : this.graphSummary.getGraphSketches()) {
-            int binA = (int)sketch.getHash().hashToBin(labelA);
-            int binB = (int)sketch.getHash().hashToBin(labelB);
-            if (!reach(binA, binB, new HashSet<>(), sketch)) {
-                result = false;
+            int binA = (int)sketch.getHash().hashToBin(baseHashA);
+            int binB = (int)sketch.getHash().hashToBin(baseHashB);
+            BatchPathQuery.reach(sketch, new int[]{binA}, new int[]{binB}, reachable);
+            if (!reachable[0]) {
                 break;
             }
         }
-        return result;
+        return reachable[0];
     }
 
+    /**
+     * Determines reachability on the compact representation of the original graph, which is created from the Graph on
+     * first use
+     * @return
+     */
     @Override
     public Object executeQueryOnOriginal() {
-        return reach(labelA, labelB, new HashSet<String>(), this.graphSummary.getGraph());
+        return reach(labelA, labelB, this.graphSummary.toCompactGraph());
     }
 
     /**
-     * Uses a simple breadth-first search to determine whether node with labelB is reachable from labelB in the given
-     * GraphSketch
+     * Uses an iterative bidirectional breadth-first search to determine whether binB is reachable from binA in the
+     * sketch with the given adjacency bits. Each step expands the smaller of the forward frontier (over the out rows)
+     * and the backward frontier (over the in rows) by OR-ing the rows of all its bins, the search stops as soon as
+     * both searches have visited a common bin.
      * @param binA
      * @param binB
-     * @param visited
-     * @param sketch
+     * @param adjacency
      * @return
      */
-    private static boolean reach(int binA, int binB, Set<Integer> visited, GraphSketch sketch) {
-        if (!visited.contains(binA)) {
-            visited.add(binA);
-        }
-
+    static boolean reach(int binA, int binB, AdjacencyBits adjacency) {
         if (binA == binB) {
             return true;
         }
 
-        for (int i = 0; i < sketch.getAdjMatrix()[binA].length; i++) {
-            Integer weightToNeighbour =  sketch.getAdjMatrix()[binA][i];
-            if (weightToNeighbour == null || visited.contains(i)) {
-                continue;
+        int words = adjacency.getWords();
+        long[] forwardVisited = new long[words];
+        long[] forwardFrontier = new long[words];
+        long[] backwardVisited = new long[words];
+        long[] backwardFrontier = new long[words];
+        long[] next = new long[words];
+        forwardVisited[binA >>> 6] = forwardFrontier[binA >>> 6] = 1L << binA;
+        backwardVisited[binB >>> 6] = backwardFrontier[binB >>> 6] = 1L << binB;
+
+        int forwardSize = 1;
+        int backwardSize = 1;
+        while (forwardSize > 0 && backwardSize > 0) {
+            if (forwardSize <= backwardSize) {
+                forwardSize = expand(forwardFrontier, forwardVisited, adjacency.getOutRows(), words, next);
+                if (intersects(forwardFrontier, backwardVisited)) {
+                    return true;
+                }
+            }
+            else {
+                backwardSize = expand(backwardFrontier, backwardVisited, adjacency.getInRows(), words, next);
+                if (intersects(backwardFrontier, forwardVisited)) {
+                    return true;
+                }
             }
+        }
 
-            if (reach(i, binB, visited, sketch)) {
-                return true;
+        return false;
+    }
+
+    /**
+     * Replaces the frontier by the unvisited bins adjacent to it and marks them as visited
+     * @return The number of bins in the new frontier
+     */
+    private static int expand(long[] frontier, long[] visited, long[] rows, int words, long[] next) {
+        Arrays.fill(next, 0);
+        for (int word = 0; word < words; word++) {
+            long bits = frontier[word];
+            while (bits != 0) {
+                int row = ((word << 6) + Long.numberOfTrailingZeros(bits)) * words;
+                for (int i = 0; i < words; i++) {
+                    next[i] |= rows[row + i];
+                }
+                bits &= bits - 1;
             }
         }
 
+        int size = 0;
+        for (int word = 0; word < words; word++) {
+            long unvisited = next[word] & ~visited[word];
+            visited[word] |= unvisited;
+            frontier[word] = unvisited;
+            size += Long.bitCount(unvisited);
+        }
+        return size;
+    }
+
+    private static boolean intersects(long[] a, long[] b) {
+        for (int word = 0; word < a.length; word++) {
+            if ((a[word] & b[word]) != 0) {
+                return true;
+            }
+        }
         return false;
     }
 
     /**
-     * Uses a simple breadth-first search to determine whether node with labelB is reachable from labelB in the given
-     * Graph
+     * Uses an iterative bidirectional breadth-first search to determine whether node with labelB is reachable from
+     * labelA in the given CompactGraph. Each step expands a full level of the smaller of the forward search (over the
+     * outgoing edges) and the backward search (over the incoming edges), the search stops as soon as it reaches a
+     * vertex visited by the other search. Visited vertices are kept in bitsets.
      * @param labelA
      * @param labelB
-     * @param visited
-     * @param graph
+     * @param compactGraph
      * @return
      */
-    private static boolean reach(String labelA, String labelB, Set<String> visited, Graph graph) {
-        visited.add(labelA);
-
+    private static boolean reach(String labelA, String labelB, CompactGraph compactGraph) {
         if (labelA.equals(labelB)) {
             return true;
         }
+        int a = compactGraph.getId(labelA);
+        int b = compactGraph.getId(labelB);
+        if (a < 0 || b < 0) {
+            return false;
+        }
 
-        for (Edge edgeOut : graph.getVertices().get(labelA).getOutgoingEdges()) {
-            if (visited.contains(edgeOut.getTo().getLabel())) {
-                continue;
-            }
+        int nrOfVertices = compactGraph.getNrOfVertices();
+        long[] forwardVisited = new long[(nrOfVertices + 63) >>> 6];
+        long[] backwardVisited = new long[(nrOfVertices + 63) >>> 6];
+        // Both searches share one queue array, the forward search fills it from the front, the backward search from
+        // the back. A vertex is queued by at most one of them, as the search stops when they meet.
+        int[] queue = new int[nrOfVertices];
+        int forwardHead = 0;
+        int forwardTail = 0;
+        int backwardHead = nrOfVertices - 1;
+        int backwardTail = nrOfVertices - 1;
+        queue[forwardTail++] = a;
+        forwardVisited[a >>> 6] |= 1L << a;
+        queue[backwardTail--] = b;
+        backwardVisited[b >>> 6] |= 1L << b;
 
-            if (reach(edgeOut.getTo().getLabel(), labelB, visited, graph)) {
-                return true;
+        while (forwardHead < forwardTail && backwardHead > backwardTail) {
+            if (forwardTail - forwardHead <= backwardHead - backwardTail) {
+                int[] offsets = compactGraph.getOutOffsets();
+                int[] targets = compactGraph.getOutTargets();
+                int levelEnd = forwardTail;
+                while (forwardHead < levelEnd) {
+                    int vertex = queue[forwardHead++];
+                    for (int i = offsets[vertex]; i < offsets[vertex + 1]; i++) {
+                        int next = targets[i];
+                        if ((backwardVisited[next >>> 6] & (1L << next)) != 0) {
+                            return true;
+                        }
+                        if ((forwardVisited[next >>> 6] & (1L << next)) == 0) {
+                            forwardVisited[next >>> 6] |= 1L << next;
+                            queue[forwardTail++] = next;
+                        }
+                    }
+                }
+            }
+            else {
+                int[] offsets = compactGraph.getInOffsets();
+                int[] sources = compactGraph.getInTargets();
+                int levelEnd = backwardTail;
+                while (backwardHead > levelEnd) {
+                    int vertex = queue[backwardHead--];
+                    for (int i = offsets[vertex]; i < offsets[vertex + 1]; i++) {
+                        int previous = sources[i];
+                        if ((forwardVisited[previous >>> 6] & (1L << previous)) != 0) {
+                            return true;
+                        }
+                        if ((backwardVisited[previous >>> 6] & (1L << previous)) == 0) {
+                            backwardVisited[previous >>> 6] |= 1L << previous;
+                            queue[backwardTail--] = previous;
+                        }
+                    }
+                }
             }
         }
 
@@ -140,7 +253,8 @@ public class PathQuery extends GraphQuery {
     }
 
     /**
-     * Returns two floats, the first is the total inter accuracy, the second is the false negatives ratio
+     * Returns two floats, the first is the total inter accuracy, the second is the false negatives ratio. The queries
+     * are executed as a single BatchPathQuery.
      * @param graphSummary
      * @param nrOfQueries
      * @return
@@ -149,11 +263,7 @@ public class PathQuery extends GraphQuery {
         List<Node> nodes = new ArrayList<>(graphSummary.getGraph().getVertices().values());
         Collections.shuffle(nodes);
 
-        int positives = 0;
-        int negatives = 0;
-        int truePositives = 0;
-        int trueNegatives = 0;
-
+        List<Pair<String, String>> pairs = new ArrayList<>();
         for (int i = 0; i < 2*nrOfQueries; i+=2) {
             Node start = nodes.get(i);
             Node end;
@@ -168,17 +278,28 @@ public class PathQuery extends GraphQuery {
                 end = nodes.get(i+1);
             }
 
-            GraphQuery query = new PathQuery(graphSummary, start.getLabel(), end.getLabel());
+            pairs.add(new Pair<>(start.getLabel(), end.getLabel()));
+        }
+
+        GraphQuery query = new BatchPathQuery(graphSummary, pairs);
+        boolean[] originalResults = (boolean[])query.executeQueryOnOriginal();
+        boolean[] summaryResults = (boolean[])query.executeQueryOnSummary();
+
+        int positives = 0;
+        int negatives = 0;
+        int truePositives = 0;
+        int trueNegatives = 0;
 
-            if ((boolean)query.executeQueryOnOriginal()) {
+        for (int i = 0; i < pairs.size(); i++) {
+            if (originalResults[i]) {
                 positives++;
-                if ((boolean)query.executeQueryOnSummary()) {
+                if (summaryResults[i]) {
                     truePositives++;
                 }
             }
             else {
                 negatives++;
-                if (!(boolean)query.executeQueryOnSummary()) {
+                if (!summaryResults[i]) {
                     trueNegatives++;
                 }
             }
@@ -20,16 +20,22 @@ public class SubGraphQuery extends GraphQuery {
     @Override
     public Object executeQueryOnSummary() {
         Integer mergedWeight = null;
+        List<Pair<String, String>> edges = new ArrayList<>(this.subGraph.getEdges());
+        long[] baseHashesA = new long[edges.size()];
+        long[] baseHashesB = new long[edges.size()];
+        for (int i = 0; i < edges.size(); i++) {
+            baseHashesA[i] = this.graphSummary.baseHash(edges.get(i).getA());
+            baseHashesB[i] = this.graphSummary.baseHash(edges.get(i).getB());
+        }
 
         for (GraphSketch sketch : this.graphSummary.getGraphSketches()) {
             Integer currentWeight = null;
-            for (Pair<String, String> pair : this.subGraph.getEdges()) {
-                int hashedA = (int)sketch.getHash().hashToBin(pair.getA());
-                int hashedB = (int)sketch.getHash().hashToBin(pair.getB());
-
-                Integer weight = sketch.getAdjMatrix()[hashedA][hashedB];
+            for (int i = 0; i < edges.size(); i++) {
+                int hashedA = (int)sketch.getHash().hashToBin(baseHashesA[i]);
+                int hashedB = (int)sketch.getHash().hashToBin(baseHashesB[i]);
 
-                if (weight != null) {
+                if (sketch.hasEdge(hashedA, hashedB)) {
+                    int weight = sketch.getWeight(hashedA, hashedB);
                     if  (currentWeight == null) {
                         currentWeight = weight;
                     }
@@ -49,6 +55,11 @@ public class SubGraphQuery extends GraphQuery {
 
     @Override
     public Object executeQueryOnOriginal() {
+        CompactGraph compactGraph = this.graphSummary.getCompactGraph();
+        if (compactGraph != null) {
+            return executeQueryOnCompactGraph(compactGraph);
+        }
+
         Integer weight = 0;
 
         for (Pair<String, String> pair : this.subGraph.getEdges()) {
@@ -65,6 +76,30 @@ public class SubGraphQuery extends GraphQuery {
         return weight;
     }
 
+    /**
+     * Sums the weights of the edges of the subgraph, each edge is looked up using a binary search over the outgoing
+     * edges of its source vertex
+     * @param compactGraph
+     * @return
+     */
+    private Integer executeQueryOnCompactGraph(CompactGraph compactGraph) {
+        long weight = 0;
+
+        for (Pair<String, String> pair : this.subGraph.getEdges()) {
+            int a = compactGraph.getId(pair.getA());
+            int b = compactGraph.getId(pair.getB());
+            if (a < 0 || b < 0) {
+                continue;
+            }
+            int index = compactGraph.indexOfEdge(a, b);
+            if (index >= 0) {
+                weight += compactGraph.getOutWeights()[index];
+            }
+        }
+
+        return (int) weight;
+    }
+
     public static float getPrecision(GraphSummary graphSummary, int nrOfQueries, int subGraphUpperBound) {
         int NrOfCorrectQueries = 0;
 
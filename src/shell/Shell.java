@@ -1,17 +1,19 @@
 package shell;
 
 import beaver.Parser;
+import ingest.BinaryEdgeReader;
+import ingest.EdgeConsumer;
+import ingest.EdgeStreamReader;
 import model.Graph;
 import model.GraphSketch;
 import model.GraphSummary;
 import model.SubGraph;
+import model.TimeIndexedGraphSummary;
 import model.queries.*;
 import shell.parser.TCMQueryParser;
 import shell.parser.TCMQueryScanner;
 
 import java.io.*;
-import java.util.ArrayList;
-import java.util.List;
 
 /**
  * Used to run a commandline utility to test the system in real-time
@@ -19,32 +21,102 @@ import java.util.List;
 public class Shell {
 
     public static GraphSummary graphSummary;
+    // The summary created by TIMESTREAM, graphSummary is then a view of all of its buckets
+    public static TimeIndexedGraphSummary timeIndexedSummary;
 
     public static void CreateGraphSummary(String filename, int numberOfSketches, int nrOfBins, String graphtype, String delimiter) {
         output(String.format("Creating Graph summary from file %s with %s sketches and %s bins...", filename, numberOfSketches, nrOfBins));
-        List<String> lines = new ArrayList<String>();
-        try (BufferedReader bufferedReader = new BufferedReader(new FileReader(filename))) {
-            String line;
-            while ((line = bufferedReader.readLine()) != null) {
-                lines.add(line);
-            }
+        Graph graph = new Graph();
+        try {
+            readEdges(filename, graphtype, delimiter, graph);
         } catch (FileNotFoundException e) {
             e.printStackTrace();
         } catch (IOException e) {
             e.printStackTrace();
         }
-        Graph graph = new Graph(lines, delimiter, graphtype);
-        lines = null;
         System.gc();
         graphSummary = new GraphSummary(graph, numberOfSketches, nrOfBins);
+        timeIndexedSummary = null;
         System.gc();
         output("Done");
     }
 
+    public static void StreamGraphSummary(String filename, int numberOfSketches, int nrOfBins, String graphtype, String delimiter) {
+        output(String.format("Streaming Graph summary from file %s with %s sketches and %s bins...", filename, numberOfSketches, nrOfBins));
+        graphSummary = new GraphSummary(numberOfSketches, nrOfBins);
+        timeIndexedSummary = null;
+        try {
+            long nrOfEdges = readEdges(filename, graphtype, delimiter, graphSummary);
+            output(String.format("%s edges read", nrOfEdges));
+        } catch (FileNotFoundException e) {
+            e.printStackTrace();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        output("Done");
+    }
+
+    /**
+     * Streams a file whose edges have a timestamp, in seconds, in the column after the weight into a summary that can
+     * answer queries over a time range, see setTimeRange
+     */
+    public static void TimeStreamGraphSummary(String filename, int numberOfSketches, int nrOfBins, String graphtype, String delimiter) {
+        if (BinaryEdgeReader.FORMAT_BINARY.equals(graphtype)) {
+            error("Binary edge files do not have timestamps");
+            return;
+        }
+        output(String.format("Streaming time indexed Graph summary from file %s with %s sketches and %s bins...", filename, numberOfSketches, nrOfBins));
+        timeIndexedSummary = new TimeIndexedGraphSummary(numberOfSketches, nrOfBins);
+        try {
+            long nrOfEdges = new EdgeStreamReader(delimiter, graphtype).readFile(filename, timeIndexedSummary);
+            output(String.format("%s edges read", nrOfEdges));
+        } catch (FileNotFoundException e) {
+            e.printStackTrace();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        graphSummary = timeIndexedSummary.getRange(Long.MIN_VALUE, Long.MAX_VALUE);
+        output("Done");
+    }
+
+    /**
+     * Reads all edges of the given file, which is either a text file in the given format or a binary edge file if
+     * graphtype is BINARY
+     */
+    private static long readEdges(String filename, String graphtype, String delimiter, EdgeConsumer consumer) throws IOException {
+        if (BinaryEdgeReader.FORMAT_BINARY.equals(graphtype)) {
+            return new BinaryEdgeReader().readFile(filename, consumer);
+        }
+        return new EdgeStreamReader(delimiter, graphtype).readFile(filename, consumer);
+    }
+
     public static void executeQuery(GraphQuery query) {
         output("Executing query");
         Object result = query.executeQueryOnSummary();
-        output("Result: " + result.toString());
+        output("Result: " + result);
+    }
+
+    /**
+     * Restricts the query that follows to the edges with a timestamp in [start, end)
+     */
+    public static void setTimeRange(long start, long end) {
+        if (timeIndexedSummary == null) {
+            error("Time ranges can only be queried on a summary created with TIMESTREAM");
+            return;
+        }
+        output(String.format("Restricting query to time range [%s, %s)...", start, end));
+        graphSummary = timeIndexedSummary.getRange(start, end);
+    }
+
+    public static void executeRangeQuery(GraphQuery query) {
+        if (timeIndexedSummary == null) {
+            return;
+        }
+        try {
+            executeQuery(query);
+        } finally {
+            graphSummary = timeIndexedSummary.getRange(Long.MIN_VALUE, Long.MAX_VALUE);
+        }
     }
 
     public static GraphQuery createEdgeQuery(String a, String b) {
@@ -68,25 +140,43 @@ public class Shell {
     }
 
     public static void BenchmarkEdgeQuery(int n) {
+        if (!hasOriginalGraph()) {
+            return;
+        }
         output(String.format("Benchmarking EdgeQuery with number of queries=%s", n));
         output(String.format("Inter accuracy of EdgeQuery: %.4f", EdgeQuery.getInterAccuracy(graphSummary, n)));
         output(String.format("Average relative error of EdgeQuery: %.4f", EdgeQuery.getAverageRelativeError(graphSummary, n)));
     }
 
     public static void BenchmarkNodeQuery(int n) {
+        if (!hasOriginalGraph()) {
+            return;
+        }
         output(String.format("Benchmarking NodeQuery with number of queries=%s", n));
         output(String.format("Inter accuracy of NodeQuery: %.4f", NodeQuery.getInterAccuracy(graphSummary, n, new Direction(Direction.DirectionEnum.UNDIRECTED))));
         output(String.format("Average relative error of NodeQuery: %.4f", NodeQuery.getAverageRelativeError(graphSummary, n, new Direction(Direction.DirectionEnum.UNDIRECTED))));
     }
 
     public static void BenchmarkPathQuery(int n) {
+        if (!hasOriginalGraph()) {
+            return;
+        }
         output(String.format("Benchmarking PathQuery with number of queries=%s", n));
+        graphSummary.setReachabilityIndexed(true);
         float[] result = PathQuery.getInterAccuracy(graphSummary, n);
         output("Inter accuracy of PathQuery:");
         output(String.format("Inter accuracy: %.4f", result[0]));
         output(String.format("False negatives: %.4f", result[1]));
     }
 
+    private static boolean hasOriginalGraph() {
+        if (graphSummary.getGraph() == null) {
+            error("Benchmarks compare against the original graph, which is not kept by STREAM. Use CREATE instead");
+            return false;
+        }
+        return true;
+    }
+
     public static void showSummary() {
         int i = 0;
         for (GraphSketch sketch : graphSummary.getGraphSketches()) {
@@ -99,6 +189,9 @@ public class Shell {
     }
 
     public static void BenchmarkSubGraphQuery(int n) {
+        if (!hasOriginalGraph()) {
+            return;
+        }
         output(String.format("Benchmarking SubGraphQuery with number of queries=%s", n));
         output(String.format("Average relative error of SubGraphQuery: %.4f", SubGraphQuery.getAverageRelativeError(graphSummary, n)));
     }
@@ -21,39 +21,48 @@ public class TCMQueryParser extends Parser {
 	static public class Terminals {
 		static public final short EOF = 0;
 		static public final short SEMICOLON = 1;
-		static public final short PAR_CLOSE = 2;
-		static public final short PAR_OPEN = 3;
+		static public final short COMMA = 2;
+		static public final short PAR_CLOSE = 3;
 		static public final short STRING = 4;
-		static public final short COMMA = 5;
+		static public final short PAR_OPEN = 5;
 		static public final short NUMBER = 6;
 		static public final short CREATE = 7;
-		static public final short QUERY = 8;
-		static public final short BENCHMARK = 9;
-		static public final short SHOWSUMMARY = 10;
-		static public final short EDGE = 11;
-		static public final short PATH = 12;
-		static public final short NODE = 13;
-		static public final short SUBGRAPH = 14;
-		static public final short BRACE_OPEN = 15;
-		static public final short BRACE_CLOSE = 16;
-		static public final short DIR_IN = 17;
-		static public final short DIR_OUT = 18;
-		static public final short DIR_UNI = 19;
+		static public final short STREAM = 8;
+		static public final short TIMESTREAM = 9;
+		static public final short EDGE = 10;
+		static public final short PATH = 11;
+		static public final short NODE = 12;
+		static public final short SUBGRAPH = 13;
+		static public final short QUERY = 14;
+		static public final short BENCHMARK = 15;
+		static public final short SHOWSUMMARY = 16;
+		static public final short LONG = 17;
+		static public final short RANGE = 18;
+		static public final short BRACE_OPEN = 19;
+		static public final short BRACE_CLOSE = 20;
+		static public final short DIR_IN = 21;
+		static public final short DIR_OUT = 22;
+		static public final short DIR_UNI = 23;
 	}
 
 	static final ParsingTables PARSING_TABLES = new ParsingTables(
-		"U9ozr8Ll544Kn$7VNKiDAbXfWNglYaEnAjGeb2fLN8DhSFT0mZ#8knPt2Zo#UxTtlIOG0ZJ" +
-		"CvhCpztRUxSpixaYweXv5AKQnYjDmwrUa8kGTY6XOM7k4KhHGtVPDHIhM9FkgUBiQZ8RgL8" +
-		"tN14rKcgfLerhLgLxfcgnSpTGYjQXHoxH0ynMjkVRPFjb7#w0a5MYE4ZHFYHgfCHgbqHghP" +
-		"8spz$REtjeRUsslLA9IPTXBPTeBPIbRESgJJuNsJFdsr9vecgROSqtLTCsmFitIR4bbzbZb" +
-		"AbELtLU5AksUtRKxTbkBxPOQj8GUIzLiDzMg9hNR3NMeJLrstQwfat7uny2yKkddp2ay4jw" +
-		"ETjT8ZDuPkrZ5eb0qMAShGvd#aViOUJvpBlIlQZmp3zRZMN4FQ#TnZoXccSXJII8#Z3hAhR" +
-		"sX7iwHIru4TIG2LmFFqSklm3bmDP375JF$zK2lGCx07SDxEEseGRNJG#ez9Nz9WBCwJYpDZ" +
-		"PMwTJagK8ag$mgA9o$U4fuBgb63EjIY7WreH1FoqOmMjA8DxLY63dIY6ylHXHNEkB0IiLY5" +
-		"7gp6Mgp3Ucp06cp4Pcp25fHW6xPYEvptPoTskVFPWTtOYprEp8qNOnyEu20EuJ2EO3#EuIY" +
-		"EumHEuhIRVWPdSHxdS04NSGcNW$SmupimwtFR$S7uKA34$KDkvb$aJFzPFgNiDtanGpNdN$" +
-		"n$hqB5lkEB$aknXw7M0tlqXxd6oSUNvO6N7KhmiFTusP#yx52UGPBPPSOHJwSTBeFlDnDPo" +
-		"6Olo24MbCkNd#RVaoBykrCA#Jv#XyiZ9ny5A4GgiU8VtId0qm==");
+		"U9pLrMTm55K0mF7$NIwdg602Y59Y4Y3150X54R4G5CMAOWEbbm01iM2XYZXZBsFllPSPdR6" +
+		"tKSSoEgFZ5tll9VPUi3t$kxTtSydm0V6Bl9tVlhUlxEuhkmzuWUF9iY6Ts8YDsOJER1F#O5" +
+		"E6ioqZs8uC9QGxr2XjVnt#OZV6idluap8se0kzg0qlvcA6CeSLJ4dYNDbg3Wo$CJl96qPv#" +
+		"BNml9Rm2ripaZrePjz2F9MvpAEL#IpWC8xXI9PmCBF3p#4dUj2LRcp6vdGFFx85BVIaWZ7q" +
+		"fWy7KScML55DN$hHdvhm0qCOG1rRqS1u1b8VlgUHGJGnE7mNlWrVXY$2vw6D2KndHsQoFJk" +
+		"m4wF2P#pAQ7PXv$1f#8WzmuVX0$PcBs0VneLFs9$zmiVXVIPog7aJEOH9J6OQCpY0MU7jy5" +
+		"PuCxmHNhUCy9gdXHp1uSP7SJIBmgiSQ$eu5eTNMCPIbeUNmqlsfQVZ5VMZmbvKsWyS#xWVZ" +
+		"km0#z2nHiTh79SUZWpEOygvYMPjQ19tSPRB79TSdCjBKQziabVbpASApoitNLTO0$cugsCO" +
+		"ZvxZci#BralA8sESZeziV5KUhwK6#v2XUvmRbMTY9TOeiIHttPYqoIQbgQAZhxEPLdINzkr" +
+		"ogPBuAPaGYagJEkRbMqKjkiNboH4CqJc#GpOVMr9gEXlNpCPvKMrOkOeuDAbQdLIJvDKcyG" +
+		"YDr6YDrHHDZUSGUm6ZD4dJDKqpD5apDKjprAAvQjKypO$N3du7#1NWAe95yJh2bHIj8Vm#O" +
+		"B6MQAcMQRbMHE#j4nMzOhJcJb2pJj8OdQnJTAfEq#awGsVfJ9sjStI#pjK5kb2TTPukqSMw" +
+		"L9Vf8bskAtIbhjPrkaPNwLhTgEiLVJatwAPa$6xHpRfLjwzANjfmcuRh3atGdVcof7oSxjB" +
+		"TkaVtwZxThmVqa1xKmtf4Z#e9FQR7zPIUqTDwKi$gEJsVVuPBPRNQakUbYf#$lZ1K9Nrf#m" +
+		"$tQ5w7DkEBqcL5wTQrQBiWYHUkeQnsNVknbk#zaa88V#jt$jSXl5j8lHFUAyh$9dmTllgNz" +
+		"mgU1hhdf9Hsvq4fzvAqUqxQNIUrHhtS3tghZogiL#7$iyx$QBLbaQeE#bdMNpMgzJ$TO5vU" +
+		"esthunsgnBzdgVjRsZTAjJF8DaqQh26gD6$OFqeN94a=");
 
 	static final Action RETURN2 = new Action() {
 		public Symbol reduce(Symbol[] _symbols, int offset) {
@@ -81,10 +90,12 @@ public class TCMQueryParser extends Parser {
 			RETURN2,	// [4] StatementSequence = Statement opt$lst$Statement; returns 'opt$lst$Statement' although none is marked
 			RETURN2,	// [5] Statement = StatementBody SEMICOLON; returns 'SEMICOLON' although none is marked
 			Action.RETURN,	// [6] StatementBody = CreateCommand
-			Action.RETURN,	// [7] StatementBody = QueryCommand
-			Action.RETURN,	// [8] StatementBody = BenchMarkCommand
-			Action.RETURN,	// [9] StatementBody = ShowCommand
-			new Action() {	// [10] CreateCommand = CREATE PAR_OPEN STRING.f COMMA NUMBER.s COMMA NUMBER.b COMMA STRING.g COMMA STRING.d PAR_CLOSE
+			Action.RETURN,	// [7] StatementBody = StreamCommand
+			Action.RETURN,	// [8] StatementBody = TimeStreamCommand
+			Action.RETURN,	// [9] StatementBody = QueryCommand
+			Action.RETURN,	// [10] StatementBody = BenchMarkCommand
+			Action.RETURN,	// [11] StatementBody = ShowCommand
+			new Action() {	// [12] CreateCommand = CREATE PAR_OPEN STRING.f COMMA NUMBER.s COMMA NUMBER.b COMMA STRING.g COMMA STRING.d PAR_CLOSE
 				public Symbol reduce(Symbol[] _symbols, int offset) {
 					final Symbol _symbol_f = _symbols[offset + 3];
 					final String f = (String) _symbol_f.value;
@@ -99,18 +110,78 @@ public class TCMQueryParser extends Parser {
 					 Shell.CreateGraphSummary(f, s, b, g, d); return new Command("CreateCommand");
 				}
 			},
-			new Action() {	// [11] QueryCommand = QUERY GraphQuery.q
+			new Action() {	// [13] StreamCommand = STREAM PAR_OPEN STRING.f COMMA NUMBER.s COMMA NUMBER.b COMMA STRING.g COMMA STRING.d PAR_CLOSE
+				public Symbol reduce(Symbol[] _symbols, int offset) {
+					final Symbol _symbol_f = _symbols[offset + 3];
+					final String f = (String) _symbol_f.value;
+					final Symbol _symbol_s = _symbols[offset + 5];
+					final int s = (int) _symbol_s.value;
+					final Symbol _symbol_b = _symbols[offset + 7];
+					final int b = (int) _symbol_b.value;
+					final Symbol _symbol_g = _symbols[offset + 9];
+					final String g = (String) _symbol_g.value;
+					final Symbol _symbol_d = _symbols[offset + 11];
+					final String d = (String) _symbol_d.value;
+					 Shell.StreamGraphSummary(f, s, b, g, d); return new Command("StreamCommand");
+				}
+			},
+			new Action() {	// [14] TimeStreamCommand = TIMESTREAM PAR_OPEN STRING.f COMMA NUMBER.s COMMA NUMBER.b COMMA STRING.g COMMA STRING.d PAR_CLOSE
+				public Symbol reduce(Symbol[] _symbols, int offset) {
+					final Symbol _symbol_f = _symbols[offset + 3];
+					final String f = (String) _symbol_f.value;
+					final Symbol _symbol_s = _symbols[offset + 5];
+					final int s = (int) _symbol_s.value;
+					final Symbol _symbol_b = _symbols[offset + 7];
+					final int b = (int) _symbol_b.value;
+					final Symbol _symbol_g = _symbols[offset + 9];
+					final String g = (String) _symbol_g.value;
+					final Symbol _symbol_d = _symbols[offset + 11];
+					final String d = (String) _symbol_d.value;
+					 Shell.TimeStreamGraphSummary(f, s, b, g, d); return new Command("TimeStreamCommand");
+				}
+			},
+			new Action() {	// [15] QueryCommand = QUERY GraphQuery.q
 				public Symbol reduce(Symbol[] _symbols, int offset) {
 					final Symbol _symbol_q = _symbols[offset + 2];
 					final GraphQuery q = (GraphQuery) _symbol_q.value;
 					 Shell.executeQuery(q); return new Command("QueryCommand");
 				}
 			},
-			Action.RETURN,	// [12] GraphQuery = EdgeQuery
-			Action.RETURN,	// [13] GraphQuery = NodeQuery
-			Action.RETURN,	// [14] GraphQuery = PathQuery
-			Action.RETURN,	// [15] GraphQuery = SubGraphQuery
-			new Action() {	// [16] EdgeQuery = EDGE PAR_OPEN STRING.a COMMA STRING.b PAR_CLOSE
+			new Action() {	// [16] QueryCommand = QUERY TimeRange GraphQuery.q
+				public Symbol reduce(Symbol[] _symbols, int offset) {
+					final Symbol _symbol_q = _symbols[offset + 3];
+					final GraphQuery q = (GraphQuery) _symbol_q.value;
+					 Shell.executeRangeQuery(q); return new Command("QueryCommand");
+				}
+			},
+			new Action() {	// [17] TimeRange = RANGE PAR_OPEN Timestamp.s COMMA Timestamp.e PAR_CLOSE
+				public Symbol reduce(Symbol[] _symbols, int offset) {
+					final Symbol _symbol_s = _symbols[offset + 3];
+					final long s = (long) _symbol_s.value;
+					final Symbol _symbol_e = _symbols[offset + 5];
+					final long e = (long) _symbol_e.value;
+					 Shell.setTimeRange(s, e); return new Command("TimeRange");
+				}
+			},
+			new Action() {	// [18] Timestamp = NUMBER.n
+				public Symbol reduce(Symbol[] _symbols, int offset) {
+					final Symbol _symbol_n = _symbols[offset + 1];
+					final int n = (int) _symbol_n.value;
+					 return new Symbol((long) n);
+				}
+			},
+			new Action() {	// [19] Timestamp = LONG.n
+				public Symbol reduce(Symbol[] _symbols, int offset) {
+					final Symbol _symbol_n = _symbols[offset + 1];
+					final long n = (long) _symbol_n.value;
+					 return new Symbol(n);
+				}
+			},
+			Action.RETURN,	// [20] GraphQuery = EdgeQuery
+			Action.RETURN,	// [21] GraphQuery = NodeQuery
+			Action.RETURN,	// [22] GraphQuery = PathQuery
+			Action.RETURN,	// [23] GraphQuery = SubGraphQuery
+			new Action() {	// [24] EdgeQuery = EDGE PAR_OPEN STRING.a COMMA STRING.b PAR_CLOSE
 				public Symbol reduce(Symbol[] _symbols, int offset) {
 					final Symbol _symbol_a = _symbols[offset + 3];
 					final String a = (String) _symbol_a.value;
@@ -119,7 +190,7 @@ public class TCMQueryParser extends Parser {
 					 return Shell.createEdgeQuery(a, b);
 				}
 			},
-			new Action() {	// [17] NodeQuery = NODE PAR_OPEN STRING.l COMMA Direction.d PAR_CLOSE
+			new Action() {	// [25] NodeQuery = NODE PAR_OPEN STRING.l COMMA Direction.d PAR_CLOSE
 				public Symbol reduce(Symbol[] _symbols, int offset) {
 					final Symbol _symbol_l = _symbols[offset + 3];
 					final String l = (String) _symbol_l.value;
@@ -128,7 +199,7 @@ public class TCMQueryParser extends Parser {
 					 return Shell.createNodeQuery(l, d);
 				}
 			},
-			new Action() {	// [18] PathQuery = PATH PAR_OPEN STRING.a COMMA STRING.b PAR_CLOSE
+			new Action() {	// [26] PathQuery = PATH PAR_OPEN STRING.a COMMA STRING.b PAR_CLOSE
 				public Symbol reduce(Symbol[] _symbols, int offset) {
 					final Symbol _symbol_a = _symbols[offset + 3];
 					final String a = (String) _symbol_a.value;
@@ -137,43 +208,43 @@ public class TCMQueryParser extends Parser {
 					 return Shell.createPathQuery(a, b);
 				}
 			},
-			new Action() {	// [19] SubGraphQuery = SUBGRAPH PAR_OPEN SubGraph.g PAR_CLOSE
+			new Action() {	// [27] SubGraphQuery = SUBGRAPH PAR_OPEN SubGraph.g PAR_CLOSE
 				public Symbol reduce(Symbol[] _symbols, int offset) {
 					final Symbol _symbol_g = _symbols[offset + 3];
 					final SubGraph g = (SubGraph) _symbol_g.value;
 					 return Shell.createSubGraphQuery(g);
 				}
 			},
-			new Action() {	// [20] Direction = DIR_IN
+			new Action() {	// [28] Direction = DIR_IN
 				public Symbol reduce(Symbol[] _symbols, int offset) {
 					 return new Direction(Direction.DirectionEnum.IN);
 				}
 			},
-			new Action() {	// [21] Direction = DIR_OUT
+			new Action() {	// [29] Direction = DIR_OUT
 				public Symbol reduce(Symbol[] _symbols, int offset) {
 					 return new Direction(Direction.DirectionEnum.OUT);
 				}
 			},
-			new Action() {	// [22] Direction = DIR_UNI
+			new Action() {	// [30] Direction = DIR_UNI
 				public Symbol reduce(Symbol[] _symbols, int offset) {
 					 return new Direction(Direction.DirectionEnum.UNDIRECTED);
 				}
 			},
-			new Action() {	// [23] SubGraph = BRACE_OPEN SubGraphBody.b BRACE_CLOSE
+			new Action() {	// [31] SubGraph = BRACE_OPEN SubGraphBody.b BRACE_CLOSE
 				public Symbol reduce(Symbol[] _symbols, int offset) {
 					final Symbol _symbol_b = _symbols[offset + 2];
 					final SubGraph b = (SubGraph) _symbol_b.value;
 					 return b;
 				}
 			},
-			new Action() {	// [24] SubGraphBody = SubGraphEdge.e
+			new Action() {	// [32] SubGraphBody = SubGraphEdge.e
 				public Symbol reduce(Symbol[] _symbols, int offset) {
 					final Symbol _symbol_e = _symbols[offset + 1];
 					final Pair<String, String> e = (Pair<String, String>) _symbol_e.value;
 					 Set<Pair<String, String>> b = new HashSet<>(); b.add(e); return new SubGraph(b);
 				}
 			},
-			new Action() {	// [25] SubGraphBody = SubGraphBody.b COMMA SubGraphEdge.e
+			new Action() {	// [33] SubGraphBody = SubGraphBody.b COMMA SubGraphEdge.e
 				public Symbol reduce(Symbol[] _symbols, int offset) {
 					final Symbol _symbol_b = _symbols[offset + 1];
 					final SubGraph b = (SubGraph) _symbol_b.value;
@@ -182,7 +253,7 @@ public class TCMQueryParser extends Parser {
 					 b.getEdges().add(e); return b;
 				}
 			},
-			new Action() {	// [26] SubGraphEdge = PAR_OPEN STRING.a COMMA STRING.b PAR_CLOSE
+			new Action() {	// [34] SubGraphEdge = PAR_OPEN STRING.a COMMA STRING.b PAR_CLOSE
 				public Symbol reduce(Symbol[] _symbols, int offset) {
 					final Symbol _symbol_a = _symbols[offset + 2];
 					final String a = (String) _symbol_a.value;
@@ -191,40 +262,40 @@ public class TCMQueryParser extends Parser {
 					 return new Pair<String, String>(a, b);
 				}
 			},
-			RETURN2,	// [27] BenchMarkCommand = BENCHMARK BenchMarkBody; returns 'BenchMarkBody' although none is marked
-			Action.RETURN,	// [28] BenchMarkBody = EdgeBenchmark
-			Action.RETURN,	// [29] BenchMarkBody = NodeBenchmark
-			Action.RETURN,	// [30] BenchMarkBody = PathBenchmark
-			Action.RETURN,	// [31] BenchMarkBody = SubGraphBenchmark
-			new Action() {	// [32] EdgeBenchmark = EDGE PAR_OPEN NUMBER.n PAR_CLOSE
+			RETURN2,	// [35] BenchMarkCommand = BENCHMARK BenchMarkBody; returns 'BenchMarkBody' although none is marked
+			Action.RETURN,	// [36] BenchMarkBody = EdgeBenchmark
+			Action.RETURN,	// [37] BenchMarkBody = NodeBenchmark
+			Action.RETURN,	// [38] BenchMarkBody = PathBenchmark
+			Action.RETURN,	// [39] BenchMarkBody = SubGraphBenchmark
+			new Action() {	// [40] EdgeBenchmark = EDGE PAR_OPEN NUMBER.n PAR_CLOSE
 				public Symbol reduce(Symbol[] _symbols, int offset) {
 					final Symbol _symbol_n = _symbols[offset + 3];
 					final int n = (int) _symbol_n.value;
 					 Shell.BenchmarkEdgeQuery(n); return new Command("EdgeBenchMark");
 				}
 			},
-			new Action() {	// [33] NodeBenchmark = NODE PAR_OPEN NUMBER.n PAR_CLOSE
+			new Action() {	// [41] NodeBenchmark = NODE PAR_OPEN NUMBER.n PAR_CLOSE
 				public Symbol reduce(Symbol[] _symbols, int offset) {
 					final Symbol _symbol_n = _symbols[offset + 3];
 					final int n = (int) _symbol_n.value;
 					 Shell.BenchmarkNodeQuery(n); return new Command("NodeBenchmark");
 				}
 			},
-			new Action() {	// [34] PathBenchmark = PATH PAR_OPEN NUMBER.n PAR_CLOSE
+			new Action() {	// [42] PathBenchmark = PATH PAR_OPEN NUMBER.n PAR_CLOSE
 				public Symbol reduce(Symbol[] _symbols, int offset) {
 					final Symbol _symbol_n = _symbols[offset + 3];
 					final int n = (int) _symbol_n.value;
 					 Shell.BenchmarkPathQuery(n); return new Command("PathBenchmark");
 				}
 			},
-			new Action() {	// [35] SubGraphBenchmark = SUBGRAPH PAR_OPEN NUMBER.n PAR_CLOSE
+			new Action() {	// [43] SubGraphBenchmark = SUBGRAPH PAR_OPEN NUMBER.n PAR_CLOSE
 				public Symbol reduce(Symbol[] _symbols, int offset) {
 					final Symbol _symbol_n = _symbols[offset + 3];
 					final int n = (int) _symbol_n.value;
 					 Shell.BenchmarkSubGraphQuery(n); return new Command("SubGraphBenchmark");
 				}
 			},
-			new Action() {	// [36] ShowCommand = SHOWSUMMARY
+			new Action() {	// [44] ShowCommand = SHOWSUMMARY
 				public Symbol reduce(Symbol[] _symbols, int offset) {
 					 Shell.showSummary(); return new Command("ShowCommand");
 				}
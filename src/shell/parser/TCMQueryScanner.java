@@ -42,9 +42,9 @@ public class TCMQueryScanner extends Scanner {
   private static final String ZZ_CMAP_PACKED = 
     "\11\0\1\4\1\3\1\0\1\4\1\2\22\0\1\4\1\0\1\5"+
     "\5\0\1\33\1\34\2\0\1\35\3\0\12\1\1\0\1\36\5\0"+
-    "\1\11\1\16\1\6\1\26\1\10\1\0\1\27\1\20\1\31\1\0"+
-    "\1\22\1\0\1\21\1\17\1\24\1\30\1\13\1\7\1\23\1\12"+
-    "\1\14\1\0\1\25\1\0\1\15\5\0\1\32\33\0\1\37\1\0"+
+    "\1\11\1\23\1\6\1\30\1\10\1\0\1\22\1\24\1\15\1\0"+
+    "\1\25\1\0\1\14\1\21\1\26\1\31\1\16\1\7\1\13\1\12"+
+    "\1\17\1\0\1\27\1\0\1\20\5\0\1\32\33\0\1\37\1\0"+
     "\1\40\7\0\1\0\u1fa2\0\1\0\1\0\uffff\0\uffff\0\uffff\0\uffff\0\uffff\0\uffff\0\uffff\0\uffff\0\uffff\0\uffff\0\uffff\0\uffff\0\uffff\0\uffff\0\uffff\0\uffff\0\udfe6\0";
 
   /** 
@@ -58,14 +58,14 @@ public class TCMQueryScanner extends Scanner {
   private static final int [] ZZ_ACTION = zzUnpackAction();
 
   private static final String ZZ_ACTION_PACKED_0 =
-    "\3\0\1\1\1\2\2\3\1\4\10\1\1\5\1\6"+
-    "\1\7\1\10\1\11\1\12\1\13\1\14\23\0\1\15"+
-    "\2\0\1\16\3\0\1\17\1\0\1\20\6\0\1\21"+
-    "\5\0\1\22\3\0\1\23\1\24\1\0\1\25\1\0"+
-    "\1\26\2\0\1\27";
+    "\3\0\1\1\1\2\2\3\1\4\12\1\1\5\1\6"+
+    "\1\7\1\10\1\11\1\12\1\13\1\14\32\0\1\15"+
+    "\5\0\1\16\2\0\1\17\1\0\1\20\4\0\1\21"+
+    "\4\0\1\22\1\0\1\23\3\0\1\24\6\0\1\25"+
+    "\1\26\1\0\1\27\4\0\1\30\1\31\1\0\1\32";
 
   private static int [] zzUnpackAction() {
-    int [] result = new int[78];
+    int [] result = new int[98];
     int offset = 0;
     offset = zzUnpackAction(ZZ_ACTION_PACKED_0, offset, result);
     return result;
@@ -92,17 +92,20 @@ public class TCMQueryScanner extends Scanner {
   private static final String ZZ_ROWMAP_PACKED_0 =
     "\0\0\0\41\0\102\0\143\0\204\0\245\0\143\0\143"+
     "\0\306\0\347\0\u0108\0\u0129\0\u014a\0\u016b\0\u018c\0\u01ad"+
-    "\0\143\0\143\0\143\0\143\0\143\0\143\0\143\0\143"+
-    "\0\u01ce\0\u01ef\0\u0210\0\u0231\0\u0252\0\u0273\0\u0294\0\u02b5"+
+    "\0\u01ce\0\u01ef\0\143\0\143\0\143\0\143\0\143\0\143"+
+    "\0\143\0\143\0\u0210\0\u0231\0\u0252\0\u0273\0\u0294\0\u02b5"+
     "\0\u02d6\0\u02f7\0\u0318\0\u0339\0\u035a\0\u037b\0\u039c\0\u03bd"+
-    "\0\u03de\0\u03ff\0\u0420\0\143\0\u0441\0\u0462\0\143\0\u0483"+
-    "\0\u04a4\0\u04c5\0\143\0\u04e6\0\143\0\u0507\0\u0528\0\u0549"+
-    "\0\u056a\0\u058b\0\u05ac\0\143\0\u05cd\0\u05ee\0\u060f\0\u0630"+
-    "\0\u0651\0\143\0\u0672\0\u0693\0\u06b4\0\143\0\143\0\u06d5"+
-    "\0\143\0\u06f6\0\143\0\u0717\0\u0738\0\143";
+    "\0\u03de\0\u03ff\0\u0420\0\u0441\0\u0462\0\u0483\0\u04a4\0\u04c5"+
+    "\0\u04e6\0\u0507\0\u0528\0\u0549\0\143\0\u056a\0\u058b\0\u05ac"+
+    "\0\u05cd\0\u05ee\0\143\0\u060f\0\u0630\0\143\0\u0651\0\143"+
+    "\0\u0672\0\u0693\0\u06b4\0\u06d5\0\143\0\u06f6\0\u0717\0\u0738"+
+    "\0\u0759\0\143\0\u077a\0\143\0\u079b\0\u07bc\0\u07dd\0\143"+
+    "\0\u07fe\0\u081f\0\u0840\0\u0861\0\u0882\0\u08a3\0\143\0\143"+
+    "\0\u08c4\0\143\0\u08e5\0\u0906\0\u0927\0\u0948\0\143\0\143"+
+    "\0\u0969\0\143";
 
   private static int [] zzUnpackRowMap() {
-    int [] result = new int[78];
+    int [] result = new int[98];
     int offset = 0;
     offset = zzUnpackRowMap(ZZ_ROWMAP_PACKED_0, offset, result);
     return result;
@@ -125,27 +128,32 @@ public class TCMQueryScanner extends Scanner {
   private static final int [] ZZ_TRANS = zzUnpackTrans();
 
   private static final String ZZ_TRANS_PACKED_0 =
-    "\1\4\1\5\1\6\2\7\1\10\1\11\1\4\1\12"+
-    "\2\4\1\13\2\4\1\14\1\15\3\4\1\16\2\4"+
-    "\1\17\1\4\1\20\2\4\1\21\1\22\1\23\1\24"+
-    "\1\25\1\26\5\27\1\30\33\27\41\4\42\0\1\5"+
-    "\42\0\1\7\44\0\1\31\57\0\1\32\26\0\1\33"+
-    "\34\0\1\34\54\0\1\35\30\0\1\36\3\0\1\37"+
-    "\51\0\1\40\20\0\1\41\37\0\1\42\57\0\1\43"+
-    "\21\0\1\44\47\0\1\45\47\0\1\46\30\0\1\47"+
-    "\46\0\1\50\23\0\1\51\43\0\1\52\37\0\1\53"+
-    "\37\0\1\54\37\0\1\55\37\0\1\56\42\0\1\57"+
-    "\57\0\1\60\36\0\1\61\45\0\1\62\26\0\1\63"+
-    "\32\0\1\64\43\0\1\65\43\0\1\66\27\0\1\67"+
-    "\54\0\1\70\31\0\1\71\7\0\1\72\4\0\1\73"+
-    "\17\0\1\74\51\0\1\75\30\0\1\76\43\0\1\77"+
-    "\43\0\1\100\35\0\1\101\43\0\1\102\32\0\1\103"+
-    "\57\0\1\104\31\0\1\105\50\0\1\106\21\0\1\107"+
-    "\35\0\1\110\51\0\1\111\41\0\1\112\41\0\1\113"+
-    "\27\0\1\114\36\0\1\115\46\0\1\116\23\0";
+    "\1\4\1\5\1\6\2\7\1\10\1\11\1\12\1\13"+
+    "\1\4\1\14\1\15\2\4\1\16\2\4\1\17\1\4"+
+    "\1\20\4\4\1\21\1\22\1\4\1\23\1\24\1\25"+
+    "\1\26\1\27\1\30\5\31\1\32\33\31\41\4\42\0"+
+    "\1\5\42\0\1\7\44\0\1\33\42\0\1\34\57\0"+
+    "\1\35\25\0\1\36\35\0\1\37\4\0\1\40\4\0"+
+    "\1\41\33\0\1\42\47\0\1\43\22\0\1\44\45\0"+
+    "\1\45\34\0\1\46\37\0\1\47\51\0\1\50\41\0"+
+    "\1\51\32\0\1\52\33\0\1\53\54\0\1\54\43\0"+
+    "\1\55\22\0\1\56\60\0\1\57\31\0\1\60\26\0"+
+    "\1\61\43\0\1\62\37\0\1\63\51\0\1\64\26\0"+
+    "\1\65\40\0\1\66\40\0\1\67\52\0\1\70\45\0"+
+    "\1\71\20\0\1\72\41\0\1\73\36\0\1\74\64\0"+
+    "\1\75\32\0\1\76\26\0\1\77\36\0\1\100\43\0"+
+    "\1\101\36\0\1\102\36\0\1\103\44\0\1\104\45\0"+
+    "\1\105\44\0\1\106\31\0\1\107\1\0\1\110\6\0"+
+    "\1\111\22\0\1\112\42\0\1\113\42\0\1\114\35\0"+
+    "\1\115\46\0\1\116\35\0\1\117\45\0\1\120\40\0"+
+    "\1\121\36\0\1\122\30\0\1\123\62\0\1\124\23\0"+
+    "\1\125\35\0\1\126\44\0\1\127\35\0\1\130\36\0"+
+    "\1\131\54\0\1\132\30\0\1\133\33\0\1\134\42\0"+
+    "\1\135\40\0\1\136\54\0\1\137\27\0\1\140\33\0"+
+    "\1\141\51\0\1\142\20\0";
 
   private static int [] zzUnpackTrans() {
-    int [] result = new int[1881];
+    int [] result = new int[2442];
     int offset = 0;
     offset = zzUnpackTrans(ZZ_TRANS_PACKED_0, offset, result);
     return result;
@@ -183,13 +191,13 @@ public class TCMQueryScanner extends Scanner {
   private static final int [] ZZ_ATTRIBUTE = zzUnpackAttribute();
 
   private static final String ZZ_ATTRIBUTE_PACKED_0 =
-    "\3\0\1\11\2\1\2\11\10\1\10\11\23\0\1\11"+
-    "\2\0\1\11\3\0\1\11\1\0\1\11\6\0\1\11"+
-    "\5\0\1\11\3\0\2\11\1\0\1\11\1\0\1\11"+
-    "\2\0\1\11";
+    "\3\0\1\11\2\1\2\11\12\1\10\11\32\0\1\11"+
+    "\5\0\1\11\2\0\1\11\1\0\1\11\4\0\1\11"+
+    "\4\0\1\11\1\0\1\11\3\0\1\11\6\0\2\11"+
+    "\1\0\1\11\4\0\2\11\1\0\1\11";
 
   private static int [] zzUnpackAttribute() {
-    int [] result = new int[78];
+    int [] result = new int[98];
     int offset = 0;
     offset = zzUnpackAttribute(ZZ_ATTRIBUTE_PACKED_0, offset, result);
     return result;
@@ -642,96 +650,111 @@ public class TCMQueryScanner extends Scanner {
           case 1: 
             { /*Syntax error*/ throw new Error("Illegal character <"+yytext()+">");
             }
-          case 24: break;
+          case 27: break;
           case 2: 
-            { return new Symbol(Terminals.NUMBER, Integer.parseInt(yytext()));
+            { long value;
+                          try { value = Long.parseLong(yytext()); }
+                          catch (NumberFormatException e) { throw new Error("Number out of range <"+yytext()+">"); }
+                          return value <= Integer.MAX_VALUE ? new Symbol(Terminals.NUMBER, (int) value) : new Symbol(Terminals.LONG, value);
             }
-          case 25: break;
+          case 28: break;
           case 3: 
             { /* ignore */
             }
-          case 26: break;
+          case 29: break;
           case 4: 
             { string = ""; yybegin(STRING);
             }
-          case 27: break;
+          case 30: break;
           case 5: 
             { return new Symbol(Terminals.PAR_OPEN);
             }
-          case 28: break;
+          case 31: break;
           case 6: 
             { return new Symbol(Terminals.PAR_CLOSE);
             }
-          case 29: break;
+          case 32: break;
           case 7: 
             { return new Symbol(Terminals.COMMA);
             }
-          case 30: break;
+          case 33: break;
           case 8: 
             { return new Symbol(Terminals.SEMICOLON);
             }
-          case 31: break;
+          case 34: break;
           case 9: 
             { return new Symbol(Terminals.BRACE_OPEN);
             }
-          case 32: break;
+          case 35: break;
           case 10: 
             { return new Symbol(Terminals.BRACE_CLOSE);
             }
-          case 33: break;
+          case 36: break;
           case 11: 
             { string += yytext();
             }
-          case 34: break;
+          case 37: break;
           case 12: 
             { yybegin(YYINITIAL);
                         return new Symbol(Terminals.STRING, string);
             }
-          case 35: break;
+          case 38: break;
           case 13: 
             { return new Symbol(Terminals.EDGE);
             }
-          case 36: break;
+          case 39: break;
           case 14: 
             { return new Symbol(Terminals.NODE);
             }
-          case 37: break;
+          case 40: break;
           case 15: 
             { return new Symbol(Terminals.PATH);
             }
-          case 38: break;
+          case 41: break;
           case 16: 
-            { return new Symbol(Terminals.QUERY);
+            { return new Symbol(Terminals.RANGE);
             }
-          case 39: break;
+          case 42: break;
           case 17: 
-            { return new Symbol(Terminals.CREATE);
+            { return new Symbol(Terminals.QUERY);
             }
-          case 40: break;
+          case 43: break;
           case 18: 
-            { return new Symbol(Terminals.DIR_IN);
+            { return new Symbol(Terminals.CREATE);
             }
-          case 41: break;
+          case 44: break;
           case 19: 
-            { return new Symbol(Terminals.DIR_UNI);
+            { return new Symbol(Terminals.STREAM);
             }
-          case 42: break;
+          case 45: break;
           case 20: 
-            { return new Symbol(Terminals.DIR_OUT);
+            { return new Symbol(Terminals.DIR_IN);
             }
-          case 43: break;
+          case 46: break;
           case 21: 
-            { return new Symbol(Terminals.SUBGRAPH);
+            { return new Symbol(Terminals.DIR_UNI);
             }
-          case 44: break;
+          case 47: break;
           case 22: 
-            { return new Symbol(Terminals.BENCHMARK);
+            { return new Symbol(Terminals.DIR_OUT);
             }
-          case 45: break;
+          case 48: break;
           case 23: 
+            { return new Symbol(Terminals.SUBGRAPH);
+            }
+          case 49: break;
+          case 24: 
+            { return new Symbol(Terminals.BENCHMARK);
+            }
+          case 50: break;
+          case 25: 
+            { return new Symbol(Terminals.TIMESTREAM);
+            }
+          case 51: break;
+          case 26: 
             { return new Symbol(Terminals.SHOWSUMMARY);
             }
-          case 46: break;
+          case 52: break;
           default:
             zzScanError(ZZ_NO_MATCH);
         }
@@ -1,39 +1,31 @@
 package tests;
 
+import ingest.EdgeStreamReader;
 import model.Graph;
 import model.GraphSummary;
 import model.queries.EdgeQuery;
 
-import java.io.BufferedReader;
 import java.io.FileNotFoundException;
-import java.io.FileReader;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.List;
 
 public class Test {
 
     public static void main(String[] args) {
 
         System.out.println("Reading file");
-        List<String> lines = new ArrayList<String>();
-//        try (BufferedReader bufferedReader = new BufferedReader(new FileReader("test_dblp.csv"))) {
-        try (BufferedReader bufferedReader = new BufferedReader(new FileReader("dblp_co_authur.csv"))) {
-            String line;
-            while ((line = bufferedReader.readLine()) != null) {
-                lines.add(line);
-            }
+//        String filename = "test_dblp.csv";
+        String filename = "dblp_co_authur.csv";
 
+        System.out.println("Constructing graph");
+        Graph graph = new Graph();
+        try {
+            new EdgeStreamReader(",", "CSV").readFile(filename, graph);
         } catch (FileNotFoundException e) {
             e.printStackTrace();
         } catch (IOException e) {
             e.printStackTrace();
         }
 
-        System.out.println("Constructing graph");
-
-        Graph graph = new Graph(lines, ",", "CSV");
-        lines = null;
         System.gc();
         System.out.println("Printing original graph: ");
 //        System.out.println(graph.toString());
@@ -0,0 +1,93 @@
+package tests;
+
+import ingest.MappedEdgeParser;
+import model.GraphSketch;
+import model.GraphSummary;
+import model.SketchStorage;
+import util.HashFamily;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Measures the throughput of many threads adding the edges of a file to the same GraphSummary, for 1 up to N threads,
+ * with atomic and with striped concurrent storage, and with several threads sharing a single stripe. Each thread adds
+ * an equal part of the edges, which are parsed up front. The single threaded throughput with plain heap storage is
+ * given as the baseline.
+ */
+public class TestConcurrentIngest {
+
+    private static final int ROUNDS = 5;
+    private static final int NR_OF_SKETCHES = 5;
+    private static final int NR_OF_BINS = 1000;
+
+    public static void main(String[] args) throws Exception {
+        String filename = args != null && args.length > 0 ? args[0] : "test_dblp.csv";
+        int maxThreads = args != null && args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+
+        List<long[]> edges = new ArrayList<>();
+        new MappedEdgeParser(",", "CSV").parseFile(filename, (from, to, weight) -> edges.add(new long[]{from, to, weight}));
+        long totalWeight = 0;
+        for (long[] edge : edges) {
+            totalWeight += edge[2];
+        }
+        System.out.println(String.format("%s edges, %s available processors", edges.size(), Runtime.getRuntime().availableProcessors()));
+
+        System.out.println(String.format("heap,    1 thread:  %.0f edges/s", best(edges, SketchStorage.heap(), 1, totalWeight)));
+        for (int nrOfThreads = 1; nrOfThreads <= maxThreads; nrOfThreads *= 2) {
+            System.out.println(String.format("atomic,  %s threads: %.0f edges/s", nrOfThreads, best(edges, SketchStorage.atomic(), nrOfThreads, totalWeight)));
+            System.out.println(String.format("striped, %s threads: %.0f edges/s", nrOfThreads, best(edges, SketchStorage.striped(), nrOfThreads, totalWeight)));
+        }
+        // All threads share the single stripe, so no weight may be lost while they add to it at the same time
+        int nrOfThreads = Math.max(4, maxThreads);
+        System.out.println(String.format("striped, 1 stripe, %s threads: %.0f edges/s", nrOfThreads, best(edges, SketchStorage.striped(1), nrOfThreads, totalWeight)));
+    }
+
+    /**
+     * Returns the best throughput of several rounds, checking after each round that no weight was lost
+     */
+    private static double best(List<long[]> edges, SketchStorage.Factory storageFactory, int nrOfThreads, long totalWeight) throws Exception {
+        double best = 0;
+        ExecutorService executor = Executors.newFixedThreadPool(nrOfThreads);
+        try {
+            for (int round = 0; round < ROUNDS; round++) {
+                GraphSummary graphSummary = new GraphSummary(NR_OF_SKETCHES, NR_OF_BINS, storageFactory, HashFamily.numeric(HashFamily.murmur2()));
+                long start = System.nanoTime();
+                List<Future<?>> futures = new ArrayList<>();
+                for (int thread = 0; thread < nrOfThreads; thread++) {
+                    int first = (int) ((long) edges.size() * thread / nrOfThreads);
+                    int last = (int) ((long) edges.size() * (thread + 1) / nrOfThreads);
+                    futures.add(executor.submit(() -> {
+                        for (int i = first; i < last; i++) {
+                            long[] edge = edges.get(i);
+                            graphSummary.addEdge(edge[0], edge[1], (int) edge[2]);
+                        }
+                    }));
+                }
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+                long time = System.nanoTime() - start;
+                best = Math.max(best, edges.size() / (time / 1e9));
+
+                for (GraphSketch sketch : graphSummary.getGraphSketches()) {
+                    long weight = 0;
+                    for (int bin = 0; bin < NR_OF_BINS; bin++) {
+                        weight += sketch.getWeightOut(bin);
+                    }
+                    if (weight != totalWeight) {
+                        throw new IllegalStateException(String.format("Sketch %s has total weight %s instead of %s",
+                                sketch.getHash().getIndex(), weight, totalWeight));
+                    }
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+        return best;
+    }
+}
@@ -0,0 +1,121 @@
+package tests;
+
+import model.DecayedGraphSummary;
+import model.DecayedSketchStorage;
+import model.GraphSketch;
+import model.GraphSummary;
+import model.SketchStorage;
+import model.queries.Direction;
+import util.HashFamily;
+
+import java.util.Random;
+
+/**
+ * Streams timestamped random edges with numeric labels, partly out of order, into a DecayedGraphSummary whose half-life
+ * is short compared to the length of the stream, so its weights are renormalized several times. The decayed weight of
+ * every cell and bin is then checked against the weights decayed directly from the age of each edge. Finally, the time
+ * of adding an edge is compared to that of a GraphSummary.
+ */
+public class TestDecayedSummary {
+
+    private static final int NR_OF_SKETCHES = 5;
+    private static final int NR_OF_EDGES = 2_000_000;
+    private static final int NR_OF_VERTICES = 100_000;
+    private static final int ROUNDS = 5;
+    private static final double MAX_RELATIVE_ERROR = 1e-9;
+
+    public static void main(String[] args) {
+        double halfLife = args != null && args.length > 0 ? Double.parseDouble(args[0]) : 10;
+        HashFamily family = HashFamily.numeric(HashFamily.murmur2());
+
+        // Timestamps increase by 1 per 100 edges, every 10th edge is up to 50 time units late
+        Random random = new Random(42);
+        long[] from = new long[NR_OF_EDGES];
+        long[] to = new long[NR_OF_EDGES];
+        int[] weights = new int[NR_OF_EDGES];
+        long[] timestamps = new long[NR_OF_EDGES];
+        for (int i = 0; i < NR_OF_EDGES; i++) {
+            from[i] = random.nextInt(NR_OF_VERTICES);
+            to[i] = random.nextInt(NR_OF_VERTICES);
+            weights[i] = 1 + random.nextInt(1500);
+            timestamps[i] = i / 100 - (random.nextInt(10) == 0 ? random.nextInt(50) : 0);
+        }
+
+        int nrOfBins = 100;
+        DecayedGraphSummary summary = new DecayedGraphSummary(NR_OF_SKETCHES, nrOfBins, halfLife, family);
+        for (int i = 0; i < NR_OF_EDGES; i++) {
+            summary.addEdge(from[i], to[i], weights[i], timestamps[i]);
+        }
+        long now = summary.getCurrentTime() + 5;
+        summary.advanceTo(now);
+        check(summary, from, to, weights, timestamps, halfLife, now);
+        System.out.println(String.format("%s edges over %s half-lives, %s renormalizations: all cells and bins match",
+                NR_OF_EDGES, (long) (now / halfLife), summary.getNrOfRenormalizations()));
+
+        nrOfBins = 1000;
+        double decayedNanos = Double.MAX_VALUE;
+        double plainNanos = Double.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            summary = new DecayedGraphSummary(NR_OF_SKETCHES, nrOfBins, halfLife, family);
+            long start = System.nanoTime();
+            for (int i = 0; i < NR_OF_EDGES; i++) {
+                summary.addEdge(from[i], to[i], weights[i], timestamps[i]);
+            }
+            decayedNanos = Math.min(decayedNanos, (double) (System.nanoTime() - start) / NR_OF_EDGES);
+
+            GraphSummary plain = new GraphSummary(NR_OF_SKETCHES, nrOfBins, SketchStorage.heap(), family);
+            start = System.nanoTime();
+            for (int i = 0; i < NR_OF_EDGES; i++) {
+                plain.addEdge(from[i], to[i], weights[i]);
+            }
+            plainNanos = Math.min(plainNanos, (double) (System.nanoTime() - start) / NR_OF_EDGES);
+        }
+        System.out.println(String.format("%s bins: add %.1f ns/edge decayed, %.1f ns/edge GraphSummary, %s renormalizations",
+                nrOfBins, decayedNanos, plainNanos, summary.getNrOfRenormalizations()));
+    }
+
+    /**
+     * Decays the weight of every edge directly from its age at the given time into a matrix per sketch, and compares
+     * these to the decayed weights of the summary
+     */
+    private static void check(DecayedGraphSummary summary, long[] from, long[] to, int[] weights, long[] timestamps,
+                              double halfLife, long now) {
+        for (GraphSketch sketch : summary.getGraphSketches()) {
+            int nrOfBins = sketch.getHash().getNrOfBins();
+            double[][] expected = new double[nrOfBins][nrOfBins];
+            for (int i = 0; i < from.length; i++) {
+                int binFrom = (int) sketch.getHash().hashToBin(summary.baseHash(from[i]));
+                int binTo = (int) sketch.getHash().hashToBin(summary.baseHash(to[i]));
+                expected[binFrom][binTo] += weights[i] * Math.pow(0.5, (now - timestamps[i]) / halfLife);
+            }
+
+            DecayedSketchStorage storage = (DecayedSketchStorage) sketch.getStorage();
+            for (int a = 0; a < nrOfBins; a++) {
+                double expectedOut = 0;
+                double expectedIn = 0;
+                for (int b = 0; b < nrOfBins; b++) {
+                    expectedOut += expected[a][b];
+                    expectedIn += expected[b][a];
+                    compare(expected[a][b], storage.getDecayedWeight(a, b), "cell " + a + "->" + b);
+                }
+                compare(expectedOut, storage.getDecayedWeightOut(a), "row " + a);
+                compare(expectedIn, storage.getDecayedWeightIn(a), "column " + a);
+            }
+        }
+
+        // The estimates of the summary are the minimum over the sketches of these weights
+        for (int i = 0; i < 100; i++) {
+            double edgeWeight = summary.getDecayedEdgeWeight(from[i], to[i]);
+            double nodeWeight = summary.getDecayedNodeWeight(from[i], new Direction(Direction.DirectionEnum.OUT));
+            if (!(edgeWeight > 0 && nodeWeight >= edgeWeight)) {
+                throw new IllegalStateException(String.format("Edge %s has decayed weight %s and its source %s", i, edgeWeight, nodeWeight));
+            }
+        }
+    }
+
+    private static void compare(double expected, double actual, String what) {
+        if (Math.abs(expected - actual) > MAX_RELATIVE_ERROR * Math.max(1, Math.abs(expected))) {
+            throw new IllegalStateException(String.format("The decayed weight of %s is %s instead of %s", what, actual, expected));
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package tests;
+
+import ingest.EdgeCombiner;
+import model.GraphSketch;
+import model.GraphSummary;
+import model.SketchStorage;
+import util.HashFamily;
+
+import java.util.Random;
+
+/**
+ * Compares adding a flow-like stream of edges to a GraphSummary directly with adding it through an EdgeCombiner, for
+ * several combiner capacities. The stream repeats the edges of a slowly changing set of active flows, as an IP-flow
+ * trace does. For each run it reports the throughput and the number of edges that reached the sketches, and checks
+ * that the sketches are identical to those of the direct run.
+ */
+public class TestEdgeCombiner {
+
+    private static final int ROUNDS = 5;
+    private static final int NR_OF_SKETCHES = 5;
+    private static final int NR_OF_BINS = 1000;
+    private static final int NR_OF_RECORDS = 2_000_000;
+    private static final int NR_OF_VERTICES = 100_000;
+    private static final int[] CAPACITIES = new int[]{1 << 8, 1 << 12, 1 << 16};
+
+    public static void main(String[] args) {
+        int activeFlows = args != null && args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+
+        // Each record repeats one of the active flows, which are replaced by a new flow once in 20 records
+        Random random = new Random(42);
+        long[] flowFrom = new long[activeFlows];
+        long[] flowTo = new long[activeFlows];
+        for (int i = 0; i < activeFlows; i++) {
+            flowFrom[i] = random.nextInt(NR_OF_VERTICES);
+            flowTo[i] = random.nextInt(NR_OF_VERTICES);
+        }
+        long[] from = new long[NR_OF_RECORDS];
+        long[] to = new long[NR_OF_RECORDS];
+        int[] weights = new int[NR_OF_RECORDS];
+        for (int i = 0; i < NR_OF_RECORDS; i++) {
+            int flow = random.nextInt(activeFlows);
+            if (random.nextInt(20) == 0) {
+                flowFrom[flow] = random.nextInt(NR_OF_VERTICES);
+                flowTo[flow] = random.nextInt(NR_OF_VERTICES);
+            }
+            from[i] = flowFrom[flow];
+            to[i] = flowTo[flow];
+            weights[i] = 1 + random.nextInt(1500);
+        }
+        System.out.println(String.format("%s records, %s active flows", NR_OF_RECORDS, activeFlows));
+
+        GraphSummary reference = null;
+        double directRate = 0;
+        double[] combinerRates = new double[CAPACITIES.length];
+        long[] nrOfEdges = new long[CAPACITIES.length];
+        for (int round = 0; round < ROUNDS; round++) {
+            GraphSummary graphSummary = createSummary();
+            long start = System.nanoTime();
+            for (int i = 0; i < NR_OF_RECORDS; i++) {
+                graphSummary.addEdge(from[i], to[i], weights[i]);
+            }
+            directRate = Math.max(directRate, recordsPerSecond(System.nanoTime() - start));
+            reference = graphSummary;
+
+            for (int c = 0; c < CAPACITIES.length; c++) {
+                graphSummary = createSummary();
+                start = System.nanoTime();
+                EdgeCombiner combiner = new EdgeCombiner(graphSummary, CAPACITIES[c]);
+                for (int i = 0; i < NR_OF_RECORDS; i++) {
+                    combiner.addEdge(from[i], to[i], weights[i]);
+                }
+                combiner.flush();
+                combinerRates[c] = Math.max(combinerRates[c], recordsPerSecond(System.nanoTime() - start));
+                nrOfEdges[c] = combiner.getNrOfEdges();
+                check(reference, graphSummary);
+            }
+        }
+
+        System.out.println(String.format("direct:                  %.0f records/s, %s sketch updates", directRate, NR_OF_RECORDS));
+        for (int c = 0; c < CAPACITIES.length; c++) {
+            System.out.println(String.format("combiner, %6s slots:   %.0f records/s, %s sketch updates", CAPACITIES[c],
+                    combinerRates[c], nrOfEdges[c]));
+        }
+    }
+
+    private static GraphSummary createSummary() {
+        return new GraphSummary(NR_OF_SKETCHES, NR_OF_BINS, SketchStorage.heap(), HashFamily.numeric(HashFamily.murmur2()));
+    }
+
+    private static void check(GraphSummary expected, GraphSummary actual) {
+        for (int k = 0; k < NR_OF_SKETCHES; k++) {
+            GraphSketch expectedSketch = expected.getGraphSketches().get(k);
+            GraphSketch actualSketch = actual.getGraphSketches().get(k);
+            for (int i = 0; i < NR_OF_BINS; i++) {
+                for (int j = 0; j < NR_OF_BINS; j++) {
+                    if (expectedSketch.getWeight(i, j) != actualSketch.getWeight(i, j)) {
+                        throw new IllegalStateException(String.format("Sketch %s differs at (%s, %s)", k, i, j));
+                    }
+                }
+            }
+        }
+    }
+
+    private static double recordsPerSecond(long nanos) {
+        return NR_OF_RECORDS / (nanos / 1e9);
+    }
+}
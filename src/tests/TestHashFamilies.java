@@ -0,0 +1,89 @@
+package tests;
+
+import ingest.EdgeStreamReader;
+import model.Edge;
+import model.Graph;
+import model.GraphSummary;
+import model.queries.EdgeQuery;
+import util.HashFamily;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Compares the hash families that sketches can use on the labels of an edge file. For each family it reports the time
+ * per label of computing the base hash and the bins in d sketches, the quality of the distribution of the labels over
+ * the bins, as the chi-squared statistic divided by its degrees of freedom (about 1 for a uniform hash) and the largest
+ * bin relative to the mean, and the average relative error of edge queries for all edges of the file.
+ */
+public class TestHashFamilies {
+
+    private static final int ROUNDS = 20;
+    private static final int NR_OF_SKETCHES = 5;
+    private static final int NR_OF_BINS = 1000;
+    private static final long SEED = 0x5DEECE66DL;
+
+    public static void main(String[] args) throws IOException {
+        String filename = args != null && args.length > 0 ? args[0] : "test_dblp.csv";
+        int nrOfBins = args != null && args.length > 1 ? Integer.parseInt(args[1]) : NR_OF_BINS;
+
+        Graph graph = new Graph();
+        new EdgeStreamReader(",", "CSV").readFile(filename, graph);
+        List<String> labels = new ArrayList<>(graph.getVertices().keySet());
+        System.out.println(String.format("%s labels, %s edges, %s sketches of %s bins", labels.size(),
+                graph.getEdges().size(), NR_OF_SKETCHES, nrOfBins));
+
+        HashFamily[] families = new HashFamily[]{HashFamily.murmur2(), HashFamily.murmur3(), HashFamily.xxHash(),
+                HashFamily.multiplyShift(SEED), HashFamily.tabulation(SEED)};
+        // The families take turns in each round, so that a slow period of the machine does not favour one of them
+        long checksum = 0;
+        double[] nanosPerLabel = new double[families.length];
+        Arrays.fill(nanosPerLabel, Double.MAX_VALUE);
+        for (int round = 0; round < ROUNDS; round++) {
+            for (int f = 0; f < families.length; f++) {
+                HashFamily family = families[f];
+                long start = System.nanoTime();
+                for (String label : labels) {
+                    long baseHash = family.baseHash(label);
+                    for (int index = 0; index < NR_OF_SKETCHES; index++) {
+                        checksum += family.bin(baseHash, index, nrOfBins);
+                    }
+                }
+                nanosPerLabel[f] = Math.min(nanosPerLabel[f], (double) (System.nanoTime() - start) / labels.size());
+            }
+        }
+
+        for (int f = 0; f < families.length; f++) {
+            HashFamily family = families[f];
+            double chiSquared = 0;
+            double maxLoad = 0;
+            double mean = (double) labels.size() / nrOfBins;
+            for (int index = 0; index < NR_OF_SKETCHES; index++) {
+                int[] counts = new int[nrOfBins];
+                for (String label : labels) {
+                    counts[family.bin(family.baseHash(label), index, nrOfBins)]++;
+                }
+                for (int count : counts) {
+                    chiSquared += (count - mean) * (count - mean) / mean;
+                }
+                maxLoad += Arrays.stream(counts).max().getAsInt() / mean;
+            }
+            chiSquared /= NR_OF_SKETCHES * (nrOfBins - 1);
+            maxLoad /= NR_OF_SKETCHES;
+
+            GraphSummary graphSummary = new GraphSummary(graph, NR_OF_SKETCHES, nrOfBins, family);
+            double relativeError = 0;
+            for (Edge edge : graph.getEdges()) {
+                int estimate = (Integer) new EdgeQuery(graphSummary, edge.getFrom().getLabel(), edge.getTo().getLabel()).executeQueryOnSummary();
+                relativeError += (double) (estimate - edge.getWeight()) / edge.getWeight();
+            }
+            relativeError /= graph.getEdges().size();
+
+            System.out.println(String.format("%-15s %6.1f ns/label  chi2/df %.3f  max/mean %.2f  edge error %.4f",
+                    family, nanosPerLabel[f], chiSquared, maxLoad, relativeError));
+        }
+        System.out.println("Checksum: " + checksum);
+    }
+}
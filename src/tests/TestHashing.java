@@ -0,0 +1,135 @@
+package tests;
+
+import util.Hash;
+import util.MurmurHash;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Compares the time and the garbage per label of hashing the labels of an edge file to the bins of d sketches using
+ * Hash.getHashBuckets(String, ...), which encodes every label to a UTF-16 byte array for every sketch, with
+ * Hash.baseHash, which hashes the chars of each label once without allocating, and with MurmurHash.murmur3. Before
+ * timing, every label and a few labels with surrogates or no chars are checked to be hashed to the same bins by
+ * getHashBuckets(String) and baseHash, and the bins of both are compared again after every round.
+ */
+public class TestHashing {
+
+    private static final int ROUNDS = 10;
+    private static final int NR_OF_SKETCHES = 5;
+    private static final int NR_OF_BINS = 1000;
+
+    public static void main(String[] args) throws IOException {
+        String filename = args != null && args.length > 0 ? args[0] : "test_dblp.csv";
+
+        Set<String> labelSet = new LinkedHashSet<>();
+        try (BufferedReader bufferedReader = new BufferedReader(new FileReader(filename))) {
+            String line;
+            while ((line = bufferedReader.readLine()) != null) {
+                String[] fields = line.split(",");
+                if (fields.length >= 2) {
+                    labelSet.add(fields[0]);
+                    labelSet.add(fields[1]);
+                }
+            }
+        }
+        List<String> labels = new ArrayList<>(labelSet);
+        System.out.println(String.format("Hashing %s labels to %s sketches of %s bins", labels.size(), NR_OF_SKETCHES, NR_OF_BINS));
+
+        // Labels the edge file may not contain: the empty string, a supplementary character, which is a surrogate
+        // pair, unpaired surrogates and other non-ASCII chars
+        List<String> checked = new ArrayList<>(labels);
+        checked.add("");
+        checked.add("\uD83D\uDE00");
+        checked.add("a\uD83D\uDE00b");
+        checked.add("\uD800");
+        checked.add("\uDC00x");
+        checked.add("\u00E9\u4E2D\uFFFF");
+        for (String label : checked) {
+            long baseHash = Hash.baseHash(label);
+            for (int index = 0; index < NR_OF_SKETCHES; index++) {
+                int expected = Hash.getHashBuckets(label, index, NR_OF_BINS);
+                int actual = Hash.getHashBuckets(baseHash, index, NR_OF_BINS);
+                if (expected != actual) {
+                    throw new IllegalStateException(String.format("Label \"%s\" is hashed to bin %s of sketch %s by baseHash instead of %s",
+                            label, actual, index, expected));
+                }
+            }
+        }
+        System.out.println(String.format("All %s labels are hashed to the same bins by getHashBuckets(String) and baseHash", checked.size()));
+
+        // The bins of each way of hashing are stored, so the loops are not optimized away, and those of
+        // getHashBuckets(String) and baseHash are compared after every round
+        int[] bytesBins = new int[labels.size() * NR_OF_SKETCHES];
+        int[] charsBins = new int[bytesBins.length];
+        int[] murmur3Bins = new int[bytesBins.length];
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            long allocated = allocatedBytes();
+            int bin = 0;
+            for (String label : labels) {
+                for (int index = 0; index < NR_OF_SKETCHES; index++) {
+                    bytesBins[bin++] = Hash.getHashBuckets(label, index, NR_OF_BINS);
+                }
+            }
+            long bytesAllocated = allocatedBytes() - allocated;
+            long bytesTime = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            allocated = allocatedBytes();
+            bin = 0;
+            for (String label : labels) {
+                long baseHash = Hash.baseHash(label);
+                for (int index = 0; index < NR_OF_SKETCHES; index++) {
+                    charsBins[bin++] = Hash.getHashBuckets(baseHash, index, NR_OF_BINS);
+                }
+            }
+            long charsAllocated = allocatedBytes() - allocated;
+            long charsTime = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            allocated = allocatedBytes();
+            bin = 0;
+            for (String label : labels) {
+                int hash1 = MurmurHash.murmur3(label, 0);
+                int hash2 = MurmurHash.murmur3(label, hash1);
+                for (int index = 0; index < NR_OF_SKETCHES; index++) {
+                    murmur3Bins[bin++] = Math.abs((hash1 + index * hash2) % NR_OF_BINS);
+                }
+            }
+            long murmur3Allocated = allocatedBytes() - allocated;
+            long murmur3Time = System.nanoTime() - start;
+
+            if (!Arrays.equals(bytesBins, charsBins)) {
+                throw new IllegalStateException(String.format("Round %s: baseHash hashes labels to other bins than getHashBuckets(String)", round));
+            }
+            System.out.println(String.format("Round %s: getHashBuckets(String): %.1f ns/label, %.1f B/label; baseHash: %.1f ns/label, %.1f B/label; murmur3: %.1f ns/label, %.1f B/label",
+                    round, perLabel(bytesTime, labels), perLabel(bytesAllocated, labels), perLabel(charsTime, labels),
+                    perLabel(charsAllocated, labels), perLabel(murmur3Time, labels), perLabel(murmur3Allocated, labels)));
+        }
+        System.out.println("Murmur3 bins of the first label: " + Arrays.toString(Arrays.copyOf(murmur3Bins, NR_OF_SKETCHES)));
+    }
+
+    /**
+     * Returns the number of bytes allocated by the current thread so far, or 0 if the JVM does not report it
+     */
+    private static long allocatedBytes() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return 0;
+    }
+
+    private static double perLabel(long value, List<String> labels) {
+        return (double) value / labels.size();
+    }
+}
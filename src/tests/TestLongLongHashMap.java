@@ -0,0 +1,87 @@
+package tests;
+
+import util.LongLongHashMap;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Checks LongLongHashMap against a HashMap<Long, Long> for random puts, addTos and lookups. The map starts small, so it
+ * grows many times, and the keys include the key 0, which is stored outside the slots, negative keys and packed pairs
+ * that only differ in one half. Lookups of missing keys must return the default value. Finally, forEach and clear are
+ * checked.
+ */
+public class TestLongLongHashMap {
+
+    private static final int NR_OF_OPERATIONS = 2_000_000;
+    private static final int NR_OF_KEYS = 100_000;
+
+    public static void main(String[] args) {
+        Random random = new Random(42);
+        long[] keys = new long[NR_OF_KEYS];
+        keys[0] = 0;
+        keys[1] = -1;
+        keys[2] = Long.MIN_VALUE;
+        keys[3] = Long.MAX_VALUE;
+        for (int i = 4; i < NR_OF_KEYS; i++) {
+            switch (i % 3) {
+                case 0:
+                    keys[i] = random.nextLong();
+                    break;
+                case 1:
+                    keys[i] = LongLongHashMap.pack(i, 7);
+                    break;
+                default:
+                    keys[i] = LongLongHashMap.pack(7, i);
+                    break;
+            }
+        }
+
+        LongLongHashMap map = new LongLongHashMap(1);
+        Map<Long, Long> expected = new HashMap<>();
+        for (int i = 0; i < NR_OF_OPERATIONS; i++) {
+            // Half of the keys are only ever looked up, so lookups of missing keys are checked as well
+            long key = keys[random.nextInt(NR_OF_KEYS)];
+            boolean writable = (key & 1) == 0;
+            long value = random.nextInt(1000) - 500;
+            switch (random.nextInt(3)) {
+                case 0:
+                    if (writable) {
+                        map.put(key, value);
+                        expected.put(key, value);
+                    }
+                    break;
+                case 1:
+                    if (writable) {
+                        long sum = map.addTo(key, value);
+                        expected.merge(key, value, Long::sum);
+                        check(sum == expected.get(key), "addTo returned %s instead of %s for key %s", sum, expected.get(key), key);
+                    }
+                    break;
+                default:
+                    long actual = map.get(key, Long.MIN_VALUE);
+                    check(actual == expected.getOrDefault(key, Long.MIN_VALUE), "get returned %s instead of %s for key %s", actual, expected.get(key), key);
+                    check(map.containsKey(key) == expected.containsKey(key), "containsKey is wrong for key %s", key);
+                    break;
+            }
+            check(map.size() == expected.size(), "size is %s instead of %s", map.size(), expected.size());
+        }
+
+        Map<Long, Long> entries = new HashMap<>();
+        map.forEach((key, value) -> check(entries.put(key, value) == null, "forEach passed key %s twice", key));
+        check(entries.equals(expected), "forEach passed %s entries instead of %s", entries.size(), expected.size());
+
+        map.clear();
+        check(map.isEmpty() && !map.containsKey(0) && !map.containsKey(keys[4]), "the map is not empty after clear");
+        check(map.addTo(keys[4], 3) == 3, "addTo of a cleared key does not start at 0");
+        System.out.println(String.format("%s operations on %s keys, %s keys in the map: all results match HashMap",
+                NR_OF_OPERATIONS, NR_OF_KEYS, expected.size()));
+    }
+
+    private static void check(boolean condition, String message, Object... arguments) {
+        if (!condition) {
+            throw new IllegalStateException(String.format(message, arguments));
+        }
+    }
+}
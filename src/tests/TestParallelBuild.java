@@ -0,0 +1,103 @@
+package tests;
+
+import ingest.MappedEdgeParser;
+import ingest.ParallelSummaryBuilder;
+import model.GraphSketch;
+import model.GraphSummary;
+import model.SketchStorage;
+import util.HashFamily;
+
+import java.io.*;
+import java.util.Random;
+
+/**
+ * Compares building a GraphSummary from an edge file with the ParallelSummaryBuilder, for 1 up to N threads, to parsing
+ * the file on a single thread with MappedEdgeParser. After every parallel build, the sketches are checked cell by cell
+ * against those of the sequential build. Without a file name, a file of random edges with numeric labels is written
+ * first, large enough for the build time to show how it scales with the number of threads.
+ */
+public class TestParallelBuild {
+
+    private static final int ROUNDS = 5;
+    private static final int NR_OF_SKETCHES = 5;
+    private static final int NR_OF_BINS = 1000;
+    private static final int NR_OF_EDGES = 2_000_000;
+    private static final int NR_OF_VERTICES = 100_000;
+
+    public static void main(String[] args) throws IOException {
+        String filename = args != null && args.length > 0 ? args[0] : randomEdgeFile();
+        int maxThreads = args != null && args.length > 1 ? Integer.parseInt(args[1]) : Math.max(4, Runtime.getRuntime().availableProcessors());
+        System.out.println(String.format("%s available processors", Runtime.getRuntime().availableProcessors()));
+
+        MappedEdgeParser parser = new MappedEdgeParser(",", "CSV");
+        GraphSummary expected = null;
+        long count = 0;
+        double sequentialRate = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            expected = createSummary();
+            long start = System.nanoTime();
+            count = parser.parseFile(filename, expected);
+            sequentialRate = Math.max(sequentialRate, edgesPerSecond(count, System.nanoTime() - start));
+        }
+        System.out.println(String.format("%s edges, MappedEdgeParser, 1 thread: %.0f edges/s", count, sequentialRate));
+
+        for (int nrOfThreads = 1; nrOfThreads <= maxThreads; nrOfThreads *= 2) {
+            ParallelSummaryBuilder builder = new ParallelSummaryBuilder(",", "CSV", nrOfThreads);
+            double rate = 0;
+            for (int round = 0; round < ROUNDS; round++) {
+                GraphSummary graphSummary = createSummary();
+                long start = System.nanoTime();
+                long built = builder.build(filename, graphSummary);
+                rate = Math.max(rate, edgesPerSecond(built, System.nanoTime() - start));
+                if (built != count) {
+                    throw new IllegalStateException(String.format("The builder read %s edges instead of %s with %s threads", built, count, nrOfThreads));
+                }
+                check(expected, graphSummary, String.format("with %s threads", nrOfThreads));
+            }
+            System.out.println(String.format("ParallelSummaryBuilder, %s threads: %.0f edges/s, sketches match", nrOfThreads, rate));
+        }
+    }
+
+    private static String randomEdgeFile() throws IOException {
+        File file = File.createTempFile("edges", ".csv");
+        file.deleteOnExit();
+        Random random = new Random(42);
+        try (PrintWriter writer = new PrintWriter(new BufferedWriter(new FileWriter(file)))) {
+            for (int i = 0; i < NR_OF_EDGES; i++) {
+                writer.println(String.format("%s,%s,%s", random.nextInt(NR_OF_VERTICES), random.nextInt(NR_OF_VERTICES), 1 + random.nextInt(100)));
+            }
+        }
+        return file.getPath();
+    }
+
+    private static GraphSummary createSummary() {
+        return new GraphSummary(NR_OF_SKETCHES, NR_OF_BINS, SketchStorage.heap(), HashFamily.numeric(HashFamily.murmur2()));
+    }
+
+    private static double edgesPerSecond(long edges, long nanos) {
+        return (double) edges / ((double) nanos / 1e9);
+    }
+
+    /**
+     * Checks that every cell and every row and column sum of each sketch of the actual summary equals that of the
+     * expected summary, whose sketches have the same hash functions
+     */
+    private static void check(GraphSummary expected, GraphSummary actual, String when) {
+        for (int k = 0; k < NR_OF_SKETCHES; k++) {
+            GraphSketch expectedSketch = expected.getGraphSketches().get(k);
+            GraphSketch actualSketch = actual.getGraphSketches().get(k);
+            for (int i = 0; i < NR_OF_BINS; i++) {
+                if (expectedSketch.getWeightOut(i) != actualSketch.getWeightOut(i)
+                        || expectedSketch.getWeightIn(i) != actualSketch.getWeightIn(i)) {
+                    throw new IllegalStateException(String.format("Sketch %s has different sums for bin %s %s", k, i, when));
+                }
+                for (int j = 0; j < NR_OF_BINS; j++) {
+                    if (expectedSketch.hasEdge(i, j) != actualSketch.hasEdge(i, j)
+                            || expectedSketch.getWeight(i, j) != actualSketch.getWeight(i, j)) {
+                        throw new IllegalStateException(String.format("Sketch %s differs at (%s, %s) %s", k, i, j, when));
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package tests;
+
+import ingest.MappedEdgeParser;
+import ingest.NumericEdgeConsumer;
+import model.Graph;
+import model.GraphSummary;
+import model.SketchStorage;
+import util.HashFamily;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileReader;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares the ingestion throughput of the Graph(Collection<String>, ...) constructor with the memory mapped
+ * MappedEdgeParser, and the throughput and garbage per edge of streaming the parsed edges into a GraphSummary with
+ * String labels and with numeric labels. Before that, labels with leading zeros are checked to be rejected, unless the
+ * parser is for numeric labels.
+ */
+public class TestParser {
+
+    private static final int ROUNDS = 10;
+    private static final int NR_OF_SKETCHES = 5;
+    private static final int NR_OF_BINS = 1000;
+
+    public static void main(String[] args) throws IOException {
+        checkLeadingZeros();
+
+        String filename = args != null && args.length > 0 ? args[0] : "test_dblp.csv";
+
+        System.out.println("Reading file");
+        List<String> lines = new ArrayList<String>();
+        try (BufferedReader bufferedReader = new BufferedReader(new FileReader(filename))) {
+            String line;
+            while ((line = bufferedReader.readLine()) != null) {
+                lines.add(line);
+            }
+        } catch (FileNotFoundException e) {
+            e.printStackTrace();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+
+        MappedEdgeParser parser = new MappedEdgeParser(",", "CSV");
+        long[] checksum = new long[1];
+        NumericEdgeConsumer counter = (from, to, weight) -> checksum[0] += from ^ to ^ weight;
+
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            Graph graph = new Graph(lines, ",", "CSV");
+            long graphTime = System.nanoTime() - start;
+
+            long parsed = 0;
+            start = System.nanoTime();
+            try {
+                parsed = parser.parseFile(filename, counter);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            long parseTime = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            try {
+                parser.parseFile(filename, NumericEdgeConsumer.labelled(new Graph()));
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            long parseGraphTime = System.nanoTime() - start;
+
+            // The summaries are created up front with heap storage, so only hashing and adding the edges is measured
+            GraphSummary labelledSummary = new GraphSummary(NR_OF_SKETCHES, NR_OF_BINS, SketchStorage.heap());
+            long allocated = allocatedBytes();
+            start = System.nanoTime();
+            try {
+                parser.parseFile(filename, NumericEdgeConsumer.labelled(labelledSummary));
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            long labelledTime = System.nanoTime() - start;
+            long labelledAllocated = allocatedBytes() - allocated;
+
+            GraphSummary numericSummary = new GraphSummary(NR_OF_SKETCHES, NR_OF_BINS, SketchStorage.heap(), HashFamily.numeric(HashFamily.murmur2()));
+            allocated = allocatedBytes();
+            start = System.nanoTime();
+            try {
+                parser.parseFile(filename, numericSummary);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            long numericTime = System.nanoTime() - start;
+            long numericAllocated = allocatedBytes() - allocated;
+
+            System.out.println(String.format("Round %s: Graph constructor: %.0f edges/s (%s edges), MappedEdgeParser: %.0f edges/s (%s edges), MappedEdgeParser into Graph: %.0f edges/s",
+                    round, edgesPerSecond(lines.size(), graphTime), graph.getEdges().size(), edgesPerSecond(parsed, parseTime), parsed, edgesPerSecond(parsed, parseGraphTime)));
+            System.out.println(String.format("    into GraphSummary with String labels: %.0f edges/s, %.1f B/edge; with numeric labels: %.0f edges/s, %.1f B/edge",
+                    edgesPerSecond(parsed, labelledTime), (double) labelledAllocated / parsed, edgesPerSecond(parsed, numericTime), (double) numericAllocated / parsed));
+        }
+        System.out.println("Checksum: " + checksum[0]);
+    }
+
+    /**
+     * Checks that a label with leading zeros is rejected, since EdgeStreamReader would hash 007 and not 7, but is
+     * parsed as its value for numeric labels, and that the label 0 is accepted by both parsers
+     */
+    private static void checkLeadingZeros() throws IOException {
+        byte[] bytes = "0,1,1\n007,1,1\n".getBytes(StandardCharsets.US_ASCII);
+        long[] lastFrom = new long[1];
+        long parsed = new MappedEdgeParser(",", "CSV").withNumericLabels(true).parse(new ByteArrayInputStream(bytes), (from, to, weight) -> lastFrom[0] = from);
+        if (parsed != 2 || lastFrom[0] != 7) {
+            throw new IllegalStateException(String.format("Parsed %s edges with last label %s for numeric labels, instead of 2 edges with label 7", parsed, lastFrom[0]));
+        }
+        try {
+            new MappedEdgeParser(",", "CSV").parse(new ByteArrayInputStream(bytes), (from, to, weight) -> {});
+        } catch (IllegalArgumentException e) {
+            System.out.println(String.format("MappedEdgeParser, leading zeros: %s", e.getMessage()));
+            return;
+        }
+        throw new IllegalStateException("The parser did not throw on a label with leading zeros");
+    }
+
+    /**
+     * Returns the number of bytes allocated by the current thread so far, or 0 if the JVM does not report it
+     */
+    private static long allocatedBytes() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return 0;
+    }
+
+    private static double edgesPerSecond(long edges, long nanos) {
+        return (double) edges / ((double) nanos / 1e9);
+    }
+}
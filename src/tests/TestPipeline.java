@@ -0,0 +1,146 @@
+package tests;
+
+import ingest.EdgeStreamReader;
+import ingest.IngestPipeline;
+import ingest.MappedEdgeParser;
+import model.GraphSketch;
+import model.GraphSummary;
+import model.SketchStorage;
+import util.HashFamily;
+
+import java.io.ByteArrayInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Compares the throughput of streaming an edge file into a GraphSummary on a single thread, with EdgeStreamReader and
+ * with MappedEdgeParser reading the file as a stream, to the staged IngestPipeline with 1 up to N hasher threads. The
+ * file is read as a stream in all cases, as it would be from a pipe.
+ * <p>
+ * Before timing, the sketches built by the pipeline are checked cell by cell against those built by MappedEdgeParser,
+ * with a ring of 1 and of 16 slots, so that the stages keep waiting for each other, and with several hashers. A
+ * malformed line in the middle of the stream must make run() throw the exception of the parser.
+ */
+public class TestPipeline {
+
+    private static final int ROUNDS = 5;
+    private static final int NR_OF_SKETCHES = 5;
+    private static final int NR_OF_BINS = 1000;
+
+    public static void main(String[] args) throws IOException {
+        String filename = args != null && args.length > 0 ? args[0] : "test_dblp.csv";
+        int maxHashers = args != null && args.length > 1 ? Integer.parseInt(args[1]) : 2;
+        System.out.println(String.format("%s available processors", Runtime.getRuntime().availableProcessors()));
+        checkSummaries(filename, Math.max(3, maxHashers));
+        checkMalformedLine();
+
+        double readerRate = 0;
+        double parserRate = 0;
+        double[] pipelineRates = new double[maxHashers + 1];
+        for (int round = 0; round < ROUNDS; round++) {
+            GraphSummary graphSummary = new GraphSummary(NR_OF_SKETCHES, NR_OF_BINS, SketchStorage.heap());
+            long start = System.nanoTime();
+            long count = new EdgeStreamReader(",", "CSV").readFile(filename, graphSummary);
+            readerRate = Math.max(readerRate, edgesPerSecond(count, System.nanoTime() - start));
+
+            graphSummary = createSummary();
+            start = System.nanoTime();
+            try (InputStream inputStream = new FileInputStream(filename)) {
+                count = new MappedEdgeParser(",", "CSV").parse(inputStream, graphSummary);
+            }
+            parserRate = Math.max(parserRate, edgesPerSecond(count, System.nanoTime() - start));
+
+            for (int nrOfHashers = 1; nrOfHashers <= maxHashers; nrOfHashers++) {
+                graphSummary = createSummary();
+                start = System.nanoTime();
+                count = new IngestPipeline(",", "CSV", nrOfHashers, 1 << 16).run(filename, graphSummary);
+                pipelineRates[nrOfHashers] = Math.max(pipelineRates[nrOfHashers], edgesPerSecond(count, System.nanoTime() - start));
+            }
+        }
+
+        System.out.println(String.format("EdgeStreamReader, String labels: %.0f edges/s", readerRate));
+        System.out.println(String.format("MappedEdgeParser stream, numeric labels: %.0f edges/s", parserRate));
+        for (int nrOfHashers = 1; nrOfHashers <= maxHashers; nrOfHashers++) {
+            System.out.println(String.format("IngestPipeline, %s hashers, numeric labels: %.0f edges/s", nrOfHashers, pipelineRates[nrOfHashers]));
+        }
+    }
+
+    /**
+     * Checks that the pipeline builds the same sketches as MappedEdgeParser, for small rings and 1 up to maxHashers
+     * hashers
+     */
+    private static void checkSummaries(String filename, int maxHashers) throws IOException {
+        GraphSummary expected = createSummary();
+        long expectedCount;
+        try (InputStream inputStream = new FileInputStream(filename)) {
+            expectedCount = new MappedEdgeParser(",", "CSV").parse(inputStream, expected);
+        }
+        for (int capacity : new int[]{1, 16}) {
+            for (int nrOfHashers = 1; nrOfHashers <= maxHashers; nrOfHashers++) {
+                GraphSummary graphSummary = createSummary();
+                long count = new IngestPipeline(",", "CSV", nrOfHashers, capacity).run(filename, graphSummary);
+                String when = String.format("with %s hashers and %s slots", nrOfHashers, capacity);
+                if (count != expectedCount) {
+                    throw new IllegalStateException(String.format("The pipeline read %s edges instead of %s %s", count, expectedCount, when));
+                }
+                check(expected, graphSummary, when);
+            }
+        }
+        System.out.println(String.format("IngestPipeline, 1 and 16 slots, 1 to %s hashers: sketches match MappedEdgeParser", maxHashers));
+    }
+
+    /**
+     * Checks that a malformed line after many valid ones, when all stages are busy, is thrown from run()
+     */
+    private static void checkMalformedLine() throws IOException {
+        StringBuilder lines = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            lines.append(i).append(',').append(i + 1).append(",1\n");
+        }
+        lines.append("1000,x,1\n");
+        for (int i = 0; i < 1000; i++) {
+            lines.append(i).append(',').append(i + 2).append(",1\n");
+        }
+        byte[] bytes = lines.toString().getBytes(StandardCharsets.US_ASCII);
+        try {
+            new IngestPipeline(",", "CSV", 2, 16).run(new ByteArrayInputStream(bytes), createSummary());
+        } catch (IllegalArgumentException e) {
+            System.out.println(String.format("IngestPipeline, malformed line: %s", e.getMessage()));
+            return;
+        }
+        throw new IllegalStateException("The pipeline did not throw on a malformed line");
+    }
+
+    private static GraphSummary createSummary() {
+        return new GraphSummary(NR_OF_SKETCHES, NR_OF_BINS, SketchStorage.heap(), HashFamily.numeric(HashFamily.murmur2()));
+    }
+
+    private static double edgesPerSecond(long edges, long nanos) {
+        return (double) edges / ((double) nanos / 1e9);
+    }
+
+    /**
+     * Checks that every cell and every row and column sum of each sketch of the actual summary equals that of the
+     * expected summary, whose sketches have the same hash functions
+     */
+    private static void check(GraphSummary expected, GraphSummary actual, String when) {
+        for (int k = 0; k < NR_OF_SKETCHES; k++) {
+            GraphSketch expectedSketch = expected.getGraphSketches().get(k);
+            GraphSketch actualSketch = actual.getGraphSketches().get(k);
+            for (int i = 0; i < NR_OF_BINS; i++) {
+                if (expectedSketch.getWeightOut(i) != actualSketch.getWeightOut(i)
+                        || expectedSketch.getWeightIn(i) != actualSketch.getWeightIn(i)) {
+                    throw new IllegalStateException(String.format("Sketch %s has different sums for bin %s %s", k, i, when));
+                }
+                for (int j = 0; j < NR_OF_BINS; j++) {
+                    if (expectedSketch.hasEdge(i, j) != actualSketch.hasEdge(i, j)
+                            || expectedSketch.getWeight(i, j) != actualSketch.getWeight(i, j)) {
+                        throw new IllegalStateException(String.format("Sketch %s differs at (%s, %s) %s", k, i, j, when));
+                    }
+                }
+            }
+        }
+    }
+}
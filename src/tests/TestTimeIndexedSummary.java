@@ -0,0 +1,141 @@
+package tests;
+
+import ingest.MappedEdgeParser;
+import model.CompositeSketchStorage;
+import model.GraphSketch;
+import model.GraphSummary;
+import model.SketchStorage;
+import model.SubGraph;
+import model.TimeIndexedGraphSummary;
+import model.queries.*;
+import util.HashFamily;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Writes a timestamped edge file of random edges with numeric labels and streams it into a TimeIndexedGraphSummary,
+ * once with buckets of seconds, minutes and hours and once with buckets that are powers of 4 seconds long. For random
+ * time ranges, edge, node, subgraph and path queries on the range are checked against a GraphSummary with the same
+ * hash functions of only the edges in the range, which is built by rescanning the file. The paths of a range are
+ * found with one BatchPathQuery, which visits the occupied cells of the summed buckets, and are checked with a
+ * PathQuery each. The average time of the edge, node and subgraph queries on the range, including getRange, is compared
+ * to the time of the rescan. The time of the BatchPathQuery, which walks the cells of all summed buckets, is reported
+ * separately, as is the average number of buckets summed per sketch.
+ */
+public class TestTimeIndexedSummary {
+
+    private static final int NR_OF_SKETCHES = 5;
+    private static final int NR_OF_BINS = 1000;
+    private static final int NR_OF_EDGES = 300_000;
+    private static final int NR_OF_VERTICES = 20_000;
+    private static final long DURATION = 6 * 3600;
+    private static final int NR_OF_RANGES = 100;
+    private static final int QUERIES_PER_RANGE = 100;
+    private static final int EDGES_PER_SUBGRAPH = 4;
+
+    public static void main(String[] args) throws IOException {
+        File file = File.createTempFile("timestamped", ".csv");
+        file.deleteOnExit();
+        Random random = new Random(42);
+        try (PrintWriter writer = new PrintWriter(new BufferedWriter(new FileWriter(file)))) {
+            for (int i = 0; i < NR_OF_EDGES; i++) {
+                writer.println(String.format("%s,%s,%s,%s", random.nextInt(NR_OF_VERTICES), random.nextInt(NR_OF_VERTICES),
+                        1 + random.nextInt(100), (long) i * DURATION / NR_OF_EDGES));
+            }
+        }
+
+        // Every level keeps about a cell and two sums per edge in each sketch until its buckets are dense, so powers
+        // of 2 would not fit in a default heap
+        long[] powersOf4 = new long[7];
+        for (int level = 0; level < powersOf4.length; level++) {
+            powersOf4[level] = 1L << (2 * level);
+        }
+        run(file.getPath(), new long[]{1, 60, 3600}, random);
+        run(file.getPath(), powersOf4, random);
+    }
+
+    private static void run(String filename, long[] granularities, Random random) throws IOException {
+        HashFamily family = HashFamily.numeric(HashFamily.murmur2());
+        MappedEdgeParser parser = new MappedEdgeParser(",", "CSV");
+        TimeIndexedGraphSummary summary = new TimeIndexedGraphSummary(NR_OF_SKETCHES, NR_OF_BINS, granularities, SketchStorage.sparse(), family);
+        long start = System.nanoTime();
+        parser.parseFile(filename, summary);
+        double ingestSeconds = (System.nanoTime() - start) / 1e9;
+
+        long queryNanos = 0;
+        long pathNanos = 0;
+        long rescanNanos = 0;
+        long nrOfParts = 0;
+        for (int r = 0; r < NR_OF_RANGES; r++) {
+            long t1 = (long) (random.nextDouble() * DURATION);
+            long t2 = t1 + 1 + (long) (random.nextDouble() * (DURATION - t1));
+            long[] labels = new long[QUERIES_PER_RANGE * 2];
+            for (int i = 0; i < labels.length; i++) {
+                labels[i] = random.nextInt(NR_OF_VERTICES);
+            }
+            List<Pair<String, String>> pairs = new ArrayList<>();
+            for (int i = 0; i < QUERIES_PER_RANGE; i++) {
+                pairs.add(new Pair<>(Long.toString(labels[2 * i]), Long.toString(labels[2 * i + 1])));
+            }
+            // Subgraph i consists of the edges of queries i up to i + EDGES_PER_SUBGRAPH, wrapping around
+            List<SubGraph> subGraphs = new ArrayList<>();
+            for (int i = 0; i < QUERIES_PER_RANGE; i++) {
+                Set<Pair<String, String>> edges = new HashSet<>();
+                for (int e = 0; e < EDGES_PER_SUBGRAPH; e++) {
+                    edges.add(pairs.get((i + e) % QUERIES_PER_RANGE));
+                }
+                subGraphs.add(new SubGraph(edges));
+            }
+
+            start = System.nanoTime();
+            GraphSummary range = summary.getRange(t1, t2);
+            int[] edgeWeights = new int[QUERIES_PER_RANGE];
+            int[] nodeWeights = new int[QUERIES_PER_RANGE];
+            int[] subGraphWeights = new int[QUERIES_PER_RANGE];
+            for (int i = 0; i < QUERIES_PER_RANGE; i++) {
+                Integer weight = (Integer) new EdgeQuery(range, labels[2 * i], labels[2 * i + 1]).executeQueryOnSummary();
+                edgeWeights[i] = weight == null ? 0 : weight;
+                nodeWeights[i] = (Integer) ((Pair<?, ?>) new NodeQuery(range, labels[2 * i], new Direction(Direction.DirectionEnum.UNDIRECTED)).executeQueryOnSummary()).getB();
+                subGraphWeights[i] = (Integer) new SubGraphQuery(range, subGraphs.get(i)).executeQueryOnSummary();
+            }
+            queryNanos += System.nanoTime() - start;
+            start = System.nanoTime();
+            boolean[] reachable = (boolean[]) new BatchPathQuery(range, pairs).executeQueryOnSummary();
+            pathNanos += System.nanoTime() - start;
+            nrOfParts += ((CompositeSketchStorage) range.getGraphSketches().get(0).getStorage()).getNrOfParts();
+
+            start = System.nanoTime();
+            GraphSummary expected = new GraphSummary(0, NR_OF_BINS, SketchStorage.heap(), family);
+            for (GraphSketch sketch : range.getGraphSketches()) {
+                expected.createSketch(sketch.getHash().getInitHash(), sketch.getHash().getIndex());
+            }
+            parser.parseFile(filename, (from, to, weight, timestamp) -> {
+                if (timestamp >= t1 && timestamp < t2) {
+                    expected.addEdge(from, to, weight);
+                }
+            });
+            for (int i = 0; i < QUERIES_PER_RANGE; i++) {
+                Integer weight = (Integer) new EdgeQuery(expected, labels[2 * i], labels[2 * i + 1]).executeQueryOnSummary();
+                int nodeWeight = (Integer) ((Pair<?, ?>) new NodeQuery(expected, labels[2 * i], new Direction(Direction.DirectionEnum.UNDIRECTED)).executeQueryOnSummary()).getB();
+                int subGraphWeight = (Integer) new SubGraphQuery(expected, subGraphs.get(i)).executeQueryOnSummary();
+                boolean path = (Boolean) new PathQuery(expected, labels[2 * i], labels[2 * i + 1]).executeQueryOnSummary();
+                if ((weight == null ? 0 : weight) != edgeWeights[i] || nodeWeight != nodeWeights[i]
+                        || subGraphWeight != subGraphWeights[i] || path != reachable[i]) {
+                    throw new IllegalStateException(String.format("Query %s on range [%s, %s) differs from the rescan", i, t1, t2));
+                }
+            }
+            rescanNanos += System.nanoTime() - start;
+        }
+
+        System.out.println(String.format("%s levels, %s buckets, ingest %.0f edges/s: range with %.1f buckets per sketch, "
+                        + "%.3f ms per range of %s edge, node and subgraph queries, against %.1f ms to rescan, %.1f ms per BatchPathQuery of %s pairs", granularities.length,
+                summary.getNrOfBuckets(), NR_OF_EDGES / ingestSeconds, (double) nrOfParts / NR_OF_RANGES,
+                queryNanos / 1e6 / NR_OF_RANGES, QUERIES_PER_RANGE, rescanNanos / 1e6 / NR_OF_RANGES,
+                pathNanos / 1e6 / NR_OF_RANGES, QUERIES_PER_RANGE));
+    }
+}
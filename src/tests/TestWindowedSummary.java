@@ -0,0 +1,160 @@
+package tests;
+
+import model.GraphSketch;
+import model.GraphSummary;
+import model.SketchStorage;
+import model.WindowedGraphSummary;
+import model.queries.Direction;
+import model.queries.EdgeQuery;
+import model.queries.NodeQuery;
+import model.queries.Pair;
+import util.HashFamily;
+
+import java.util.Random;
+
+/**
+ * Streams random edges with numeric labels into a WindowedGraphSummary, advancing it after every pane of edges. After
+ * each pane, the sketches are checked against a GraphSummary with the same hash functions that only contains the edges
+ * of the panes in the window, for sparse, heap and off-heap pane storage. Then the time of adding an edge, advancing the window and executing edge and node
+ * queries on it are reported for a larger summary, with the time of adding an edge to a GraphSummary as the baseline.
+ */
+public class TestWindowedSummary {
+
+    private static final int NR_OF_SKETCHES = 5;
+    private static final int NR_OF_VERTICES = 10_000;
+    private static final int NR_OF_QUERIES = 1_000_000;
+
+    public static void main(String[] args) {
+        int nrOfPanes = args != null && args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        int edgesPerPane = args != null && args.length > 1 ? Integer.parseInt(args[1]) : 20_000;
+        HashFamily family = HashFamily.numeric(HashFamily.murmur2());
+        Random random = new Random(42);
+
+        // Check the window after each of 4 full windows of panes, with few bins so that checking all cells is cheap.
+        // With sparse storage, full panes are converted to dense storage, while panes of 1% of the edges stay sparse.
+        int totalPanes = 4 * nrOfPanes;
+        long[][] from = new long[totalPanes][edgesPerPane];
+        long[][] to = new long[totalPanes][edgesPerPane];
+        int[][] weights = new int[totalPanes][edgesPerPane];
+        for (int pane = 0; pane < totalPanes; pane++) {
+            for (int i = 0; i < edgesPerPane; i++) {
+                from[pane][i] = random.nextInt(NR_OF_VERTICES);
+                to[pane][i] = random.nextInt(NR_OF_VERTICES);
+                weights[pane][i] = 1 + random.nextInt(100);
+            }
+        }
+        checkWindow("sparse", SketchStorage.sparse(), nrOfPanes, from, to, weights, edgesPerPane, family);
+        checkWindow("sparse", SketchStorage.sparse(), nrOfPanes, from, to, weights, edgesPerPane / 100, family);
+        checkWindow("heap", SketchStorage.heap(), nrOfPanes, from, to, weights, edgesPerPane, family);
+        checkWindow("off-heap", SketchStorage.offHeap(), nrOfPanes, from, to, weights, edgesPerPane, family);
+
+        // Time ingestion, expiry and queries on a summary of the usual size
+        int nrOfBins = 1000;
+        WindowedGraphSummary window = new WindowedGraphSummary(NR_OF_SKETCHES, nrOfBins, nrOfPanes, SketchStorage.heap(), family);
+        long addNanos = 0;
+        long advanceNanos = 0;
+        for (int pane = 0; pane < totalPanes; pane++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < edgesPerPane; i++) {
+                window.addEdge(from[pane][i], to[pane][i], weights[pane][i]);
+            }
+            addNanos += System.nanoTime() - start;
+            start = System.nanoTime();
+            window.advance();
+            advanceNanos += System.nanoTime() - start;
+        }
+
+        GraphSummary plain = new GraphSummary(NR_OF_SKETCHES, nrOfBins, SketchStorage.heap(), family);
+        long start = System.nanoTime();
+        for (int pane = 0; pane < totalPanes; pane++) {
+            for (int i = 0; i < edgesPerPane; i++) {
+                plain.addEdge(from[pane][i], to[pane][i], weights[pane][i]);
+            }
+        }
+        long plainNanos = System.nanoTime() - start;
+
+        long checksum = 0;
+        start = System.nanoTime();
+        for (int i = 0; i < NR_OF_QUERIES; i++) {
+            Integer weight = (Integer) new EdgeQuery(window, random.nextInt(NR_OF_VERTICES), random.nextInt(NR_OF_VERTICES)).executeQueryOnSummary();
+            checksum += weight == null ? 0 : weight;
+        }
+        long edgeQueryNanos = System.nanoTime() - start;
+        start = System.nanoTime();
+        for (int i = 0; i < NR_OF_QUERIES; i++) {
+            checksum += (Integer) ((Pair<?, ?>) new NodeQuery(window, random.nextInt(NR_OF_VERTICES), Direction.random()).executeQueryOnSummary()).getB();
+        }
+        long nodeQueryNanos = System.nanoTime() - start;
+
+        System.out.println(String.format("%s bins: add %.1f ns/edge (GraphSummary %.1f), advance %.2f ms/pane, edge query %.0f ns, node query %.0f ns",
+                nrOfBins, (double) addNanos / (totalPanes * edgesPerPane), (double) plainNanos / (totalPanes * edgesPerPane), advanceNanos / 1e6 / totalPanes,
+                (double) edgeQueryNanos / NR_OF_QUERIES, (double) nodeQueryNanos / NR_OF_QUERIES));
+        System.out.println("Checksum: " + checksum);
+    }
+
+    /**
+     * Adds the first edgesPerPane edges of each pane to a window of 100 bins with the given pane storage, advancing it
+     * after every pane, and checks its sketches after each pane against a GraphSummary of the panes in the window
+     */
+    private static void checkWindow(String name, SketchStorage.Factory paneFactory, int nrOfPanes, long[][] from,
+                                    long[][] to, int[][] weights, int edgesPerPane, HashFamily family) {
+        WindowedGraphSummary window = new WindowedGraphSummary(NR_OF_SKETCHES, 100, nrOfPanes, paneFactory, family);
+        for (int pane = 0; pane < from.length; pane++) {
+            for (int i = 0; i < edgesPerPane; i++) {
+                window.addEdge(from[pane][i], to[pane][i], weights[pane][i]);
+            }
+
+            GraphSummary expected = new GraphSummary(0, window.getNrOfBins(), SketchStorage.heap(), family);
+            for (GraphSketch sketch : window.getGraphSketches()) {
+                expected.createSketch(sketch.getHash().getInitHash(), sketch.getHash().getIndex());
+            }
+            for (int p = Math.max(0, pane - nrOfPanes + 1); p <= pane; p++) {
+                for (int i = 0; i < edgesPerPane; i++) {
+                    expected.addEdge(from[p][i], to[p][i], weights[p][i]);
+                }
+            }
+            check(expected, window, String.format("after pane %s with %s panes", pane, name));
+            window.advance();
+        }
+        System.out.println(String.format("%s panes of %s edges, window of %s %s panes: all sketches match", from.length,
+                edgesPerPane, nrOfPanes, name));
+    }
+
+    /**
+     * Checks every cell and row and column sum of each sketch of the window against the expected summary, and that the
+     * storage of each window sketch passes exactly the occupied cells to forEachCell
+     */
+    private static void check(GraphSummary expected, GraphSummary actual, String when) {
+        for (int k = 0; k < NR_OF_SKETCHES; k++) {
+            GraphSketch expectedSketch = expected.getGraphSketches().get(k);
+            GraphSketch actualSketch = actual.getGraphSketches().get(k);
+            int nrOfBins = expectedSketch.getHash().getNrOfBins();
+            int expectedCells = 0;
+            for (int i = 0; i < nrOfBins; i++) {
+                if (expectedSketch.getWeightOut(i) != actualSketch.getWeightOut(i)
+                        || expectedSketch.getWeightIn(i) != actualSketch.getWeightIn(i)) {
+                    throw new IllegalStateException(String.format("Sketch %s has different sums for bin %s %s", k, i, when));
+                }
+                for (int j = 0; j < nrOfBins; j++) {
+                    if (expectedSketch.hasEdge(i, j) != actualSketch.hasEdge(i, j)
+                            || expectedSketch.getWeight(i, j) != actualSketch.getWeight(i, j)) {
+                        throw new IllegalStateException(String.format("Sketch %s differs at (%s, %s) %s", k, i, j, when));
+                    }
+                    expectedCells += expectedSketch.hasEdge(i, j) ? 1 : 0;
+                }
+            }
+
+            int index = k;
+            int[] nrOfCells = new int[1];
+            actualSketch.getStorage().forEachCell((from, to, weight) -> {
+                if (!expectedSketch.hasEdge(from, to) || expectedSketch.getWeight(from, to) != weight) {
+                    throw new IllegalStateException(String.format("Sketch %s passes (%s, %s) with weight %s to forEachCell %s", index, from, to, weight, when));
+                }
+                nrOfCells[0]++;
+            });
+            if (nrOfCells[0] != expectedCells) {
+                throw new IllegalStateException(String.format("Sketch %s passes %s cells to forEachCell instead of %s %s", k, nrOfCells[0], expectedCells, when));
+            }
+        }
+    }
+}
@@ -1,48 +1,38 @@
 package tests;
 
+import ingest.EdgeStreamReader;
 import model.Graph;
 import model.GraphSummary;
 import model.queries.EdgeQuery;
 
-import java.io.BufferedReader;
 import java.io.FileNotFoundException;
-import java.io.FileReader;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.List;
 
 public class Test_M {
 
     public static void main(String[] args) {
 
         System.out.println("Reading file");
-        List<String> lines = new ArrayList<String>();
-//        try (BufferedReader bufferedReader = new BufferedReader(new FileReader("test_dblp.csv"))) {
-//        try (BufferedReader bufferedReader = new BufferedReader(new FileReader("test.csv"))) {
-        int count = 0;
-        try (BufferedReader bufferedReader = new BufferedReader(new FileReader("/Ming/Data/ipflow/equinix-chicago.dirA.20151217-125911.UTC.anon.txt"))) {
-//        try (BufferedReader bufferedReader = new BufferedReader(new FileReader("/Ming/Data/ipflow/equinix-chicago.dirA.20151217-125911.UTC.anon.sample.txt"))) {
-//        try (BufferedReader bufferedReader = new BufferedReader(new FileReader("dblp_co_authur.csv"))) {
-            String line;
-            while ((line = bufferedReader.readLine()) != null) {
-                count += 1;
-                lines.add(line);
-            }
-            System.out.println(count + " edges read");
+//        String filename = "test_dblp.csv";
+//        String filename = "test.csv";
+        String filename = "/Ming/Data/ipflow/equinix-chicago.dirA.20151217-125911.UTC.anon.txt";
+//        String filename = "/Ming/Data/ipflow/equinix-chicago.dirA.20151217-125911.UTC.anon.sample.txt";
+//        String filename = "dblp_co_authur.csv";
 
+        System.out.println("Constructing graph");
+        Graph graph = new Graph();
+        try {
+            long count = new EdgeStreamReader(",", "CSV").readFile(filename, graph);
+            System.out.println(count + " edges read");
         } catch (FileNotFoundException e) {
             e.printStackTrace();
         } catch (IOException e) {
             e.printStackTrace();
         }
 
-        System.out.println("Constructing graph");
-
-        Graph graph = new Graph(lines, ",", "CSV");
 
         System.out.println("Graph built, num of edges: " + graph.getEdges().size() + ", num of nodes: " + graph.getVertices().size());
 
-        lines = null;
         System.gc();
         System.out.println("Printing original graph: ");
 //        System.out.println(graph.toString());
@@ -1,27 +1,15 @@
 package util;
 
-import net.jpountz.xxhash.StreamingXXHash32;
-import net.jpountz.xxhash.XXHashFactory;
-
-import java.io.ByteArrayInputStream;
-import java.io.IOException;
 import java.io.UnsupportedEncodingException;
-import java.util.Random;
 
 /**
  * Class to construct a hash finunction to use with the graph sketch
  */
 public class Hash {
-    public static final long PRIME_MODULUS = (1L << 31) - 1;
-    private static final int DEFAULT_SEED = 5381; //Default value used as initial hash value
     private long seed; //Initial hash value
     private int nrOfBins; //Nr of possible bins to map to
     private int index;
-    private int[] hashRand;
-    private long LONG_PRIME = 32993;
-    private int RAND_MAX = 32767;
-    StreamingXXHash32 hash32;
-    XXHashFactory factory;
+    private HashFamily family;
 
     public int getIndex() {
         return index;
@@ -32,32 +20,31 @@ public class Hash {
     }
 
     /**
-     * Creates a hash function using a given base value and a given nr of output bins.
+     * Creates a hash function using a given base value and a given nr of output bins, which uses the default family.
      *
      * @param seed
      * @param nrOfBins
      */
     public Hash(int nrOfBins, long seed, int index) {
+        this(nrOfBins, seed, index, HashFamily.murmur2());
+    }
+
+    /**
+     * Creates a hash function using a given base value and a given nr of output bins, which maps labels to bins using
+     * the hash with the given index of the given family.
+     *
+     * @param nrOfBins
+     * @param seed
+     * @param index
+     * @param family
+     */
+    public Hash(int nrOfBins, long seed, int index, HashFamily family) {
         this.seed = seed;
         this.nrOfBins = nrOfBins;
         this.index = index;
-        this.hashRand = new int[2];
-        this.hashRand[0] = (int) ((float) (new Random().nextInt(RAND_MAX)) * (float) (LONG_PRIME) / (float) (RAND_MAX) + 1);
-        this.hashRand[1] = (int) ((float) (new Random().nextInt(RAND_MAX)) * (float) (LONG_PRIME) / (float) (RAND_MAX) + 1);
-        factory = XXHashFactory.fastestInstance();
-//        hash32 = factory.newStreamingHash32(hashRand[1]);
-        System.out.println("Hash seed for sketch " + index + ": " + hashRand[0] + ", " + hashRand[1]);
+        this.family = family;
     }
 
-//    /**
-//     * Creates a hash function with a given nr of output bins using the default base value.
-//     *
-//     * @param nrOfBins
-//     */
-//    public Hash(int nrOfBins) {
-//        this(DEFAULT_SEED, nrOfBins, 0);
-//    }
-
     public int getNrOfBins() {
         return nrOfBins;
     }
@@ -66,50 +53,29 @@ public class Hash {
         return seed;
     }
 
+    public HashFamily getFamily() {
+        return family;
+    }
+
     /**
-     * Maps the given value to a bin
+     * Maps the given label to a bin
      *
-     * @param value
+     * @param str
      * @return
      */
-    public long hashToBin_old(String value) {
-        long hash = (long) seed;
-        for (int i = 0; i < value.length(); i++) {
-            hash = ((hash << 5) + hash) + value.charAt(i);
-        }
-        return hash % nrOfBins;
-    }
-
-    public long hashstr(String str) {
-        long hash = (long) 5381;
-        for (int i = 0; i < str.length(); i++) {
-            hash = ((hash << 5) + hash) + str.charAt(i);
-        }
-        return hash;
-    }
-
-    //Using hash in c++ countmin
-//    public long hashToBin(String str) {
-//        long hashval = hashstr(str);
-//        long hashBin = (hashRand[0] * hashval + hashRand[1]) % nrOfBins;
-//        return hashBin;
-//    }
-
-    int hash(long item, int i) {
-        long hash = hashRand[0] * item;
-        // A super fast way of computing x mod 2^p-1
-        // See http://www.cs.princeton.edu/courses/archive/fall09/cos521/Handouts/universalclasses.pdf
-        // page 149, right after Proposition 7.
-        hash += hash >> 32;
-        hash &= PRIME_MODULUS;
-        // Doing "%" after (int) conversion is ~2x faster than %'ing longs.
-        return ((int) hash) % nrOfBins;
+    public long hashToBin(String str) {
+        return family.bin(family.baseHash(str), index, nrOfBins);
     }
 
-
-    //Using Murmur hashing
-    public long hashToBin(String str) {
-        return getHashBuckets(str, index, nrOfBins);
+    /**
+     * Maps a label to a bin, given the base hash of the label as computed by the baseHash of the family. This gives
+     * the same bin as hashToBin(String), without hashing the label again.
+     *
+     * @param baseHash
+     * @return
+     */
+    public long hashToBin(long baseHash) {
+        return family.bin(baseHash, index, nrOfBins);
     }
 
     // Murmur is faster than an SHA-based approach and provides as-good collision
@@ -128,40 +94,51 @@ public class Hash {
     }
 
     static int getHashBuckets(byte[] b, int index, int max) {
-        int hash1 = MurmurHash.hash(b, b.length, 0);
-        int hash2 = MurmurHash.hash(b, b.length, hash1);
-        return Math.abs((hash1 + index * hash2) % max);
+        return getHashBuckets(baseHash(b), index, max);
     }
 
-
-    public int getHashXX(String string) {
-        hash32 = factory.newStreamingHash32(hashRand[1]);
-        byte[] data = new byte[0];
+    /**
+     * Returns the two Murmur hashes of the given key that the bins of all indices are derived from, packed into a
+     * long with the first hash in the high half. Computing these once per label saves two Murmur passes for every
+     * additional sketch. Unless the key contains surrogate chars, it is hashed without allocating.
+     *
+     * @param key
+     * @return
+     */
+    public static long baseHash(String key) {
+        if (!MurmurHash.hasSurrogates(key)) {
+            // Hashes the chars as if they were encoded, which gives the same result without allocating
+            int hash1 = MurmurHash.hashUtf16(key, 0);
+            int hash2 = MurmurHash.hashUtf16(key, hash1);
+            return ((long) hash1 << 32) | (hash2 & 0xFFFFFFFFL);
+        }
+        byte[] b;
         try {
-            data = string.getBytes("UTF-8");
+            b = key.getBytes("UTF-16");
         } catch (UnsupportedEncodingException e) {
-            e.printStackTrace();
-        }
-        ByteArrayInputStream in = new ByteArrayInputStream(data);
-        byte[] buf = new byte[8192]; // for real-world usage, use a larger buffer, like 8192 bytes
-        for (; ; ) {
-            int read = 0;
-            try {
-                read = in.read(buf);
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
-            if (read == -1) {
-                break;
-            }
-            hash32.update(buf, 0, read);
+            throw new RuntimeException(e);
         }
-        int hash = hash32.getValue();
-        return hash;
+        return baseHash(b);
+    }
+
+    static long baseHash(byte[] b) {
+        int hash1 = MurmurHash.hash(b, b.length, 0);
+        int hash2 = MurmurHash.hash(b, b.length, hash1);
+        return ((long) hash1 << 32) | (hash2 & 0xFFFFFFFFL);
     }
 
-//    public long hashToBin(String str) {
-//        return Math.abs(getHashXX(str) % nrOfBins);
-//    }
+    /**
+     * Derives the bin for the given index from a base hash, using the combinatorial approach of Kirsch and Mitzenmacher
+     *
+     * @param baseHash
+     * @param index
+     * @param max
+     * @return
+     */
+    public static int getHashBuckets(long baseHash, int index, int max) {
+        int hash1 = (int) (baseHash >>> 32);
+        int hash2 = (int) baseHash;
+        return Math.abs((hash1 + index * hash2) % max);
+    }
 
 }
@@ -0,0 +1,134 @@
+package util;
+
+/**
+ * A family of hash functions that map labels to the bins of the sketches of a summary. Every label is first hashed to
+ * a base hash, which is the same for all sketches, and the bin of the label in the sketch with a given index is then
+ * derived from that base hash. This way a label only has to be hashed once for all sketches.
+ * <p>
+ * A family is fully determined by its id and its seed, which allows it to be recreated for a stored sketch.
+ */
+public interface HashFamily {
+
+    int MURMUR2 = 0;
+    int MURMUR3 = 1;
+    int XXHASH = 2;
+    int MULTIPLY_SHIFT = 3;
+    int TABULATION = 4;
+    // Set in the id of a family that treats labels as numbers, see numeric
+    int NUMERIC_LABELS = 0x100;
+
+    /**
+     * Hashes the given label to a value from which its bin in every sketch is derived
+     * @param label
+     * @return
+     */
+    long baseHash(String label);
+
+    /**
+     * Hashes the given numeric label to a value from which its bin in every sketch is derived, without creating a
+     * String for it. Unless the family has numeric labels, this is not the base hash of the label as a String.
+     * @param label
+     * @return
+     */
+    long baseHash(long label);
+
+    /**
+     * Returns whether baseHash(String) parses the label as a number and hashes it using baseHash(long)
+     * @return
+     */
+    default boolean hasNumericLabels() {
+        return false;
+    }
+
+    /**
+     * Returns the bin of a label with the given base hash, in the sketch with the given index and number of bins
+     * @param baseHash
+     * @param index
+     * @param nrOfBins
+     * @return
+     */
+    int bin(long baseHash, int index, int nrOfBins);
+
+    int getId();
+
+    long getSeed();
+
+    /**
+     * Returns the family for the given id and seed, as returned by getId and getSeed
+     * @param id
+     * @param seed
+     * @return
+     */
+    static HashFamily forId(int id, long seed) {
+        if ((id & NUMERIC_LABELS) != 0) {
+            return numeric(forId(id & ~NUMERIC_LABELS, seed));
+        }
+        switch (id) {
+            case MURMUR2:
+                return murmur2();
+            case MURMUR3:
+                return murmur3();
+            case XXHASH:
+                return xxHash();
+            case MULTIPLY_SHIFT:
+                return multiplyShift(seed);
+            case TABULATION:
+                return tabulation(seed);
+            default:
+                throw new IllegalArgumentException(String.format("Unknown hash family %s", id));
+        }
+    }
+
+    /**
+     * Returns the family used by default: two Murmur2 hashes of the UTF-16 encoding of the label, combined as described
+     * by Kirsch and Mitzenmacher
+     * @return
+     */
+    static HashFamily murmur2() {
+        return MurmurHashFamily.INSTANCE;
+    }
+
+    /**
+     * Returns a family that combines two MurmurHash3 hashes of the chars of the label
+     * @return
+     */
+    static HashFamily murmur3() {
+        return Murmur3HashFamily.INSTANCE;
+    }
+
+    /**
+     * Returns a family that combines the halves of the 64 bit xxHash of the chars of the label
+     * @return
+     */
+    static HashFamily xxHash() {
+        return new XXHashFamily();
+    }
+
+    /**
+     * Returns a family of multiply-shift hash functions, applied to a polynomial hash of the chars of the label
+     * @param seed
+     * @return
+     */
+    static HashFamily multiplyShift(long seed) {
+        return new MultiplyShiftHashFamily(seed);
+    }
+
+    /**
+     * Returns a family of simple tabulation hash functions, applied to a polynomial hash of the chars of the label
+     * @param seed
+     * @return
+     */
+    static HashFamily tabulation(long seed) {
+        return new TabulationHashFamily(seed);
+    }
+
+    /**
+     * Returns a family that hashes labels as numbers using the baseHash(long) of the given family, so numeric labels
+     * can be hashed without creating Strings, while queries with String labels give the same bins
+     * @param family
+     * @return
+     */
+    static HashFamily numeric(HashFamily family) {
+        return family.hasNumericLabels() ? family : new NumericLabelHashFamily(family);
+    }
+}
@@ -0,0 +1,219 @@
+package util;
+
+import java.util.Arrays;
+
+/**
+ * Open addressing hash map from primitive long keys to primitive long values, using linear probing. Unlike a
+ * HashMap<Long, Long> it does not create any objects per entry, which makes it suitable for aggregating the weights of
+ * large numbers of edges, e.g. keyed on a packed (fromId, toId) pair.
+ */
+public class LongLongHashMap {
+
+    /**
+     * Key that marks an empty slot. An entry with this key is stored separately.
+     */
+    private static final long FREE_KEY = 0L;
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private long[] keys;
+    private long[] values;
+    private int mask;
+    private int size;
+    private int threshold;
+
+    private boolean hasFreeKey;
+    private long freeKeyValue;
+
+    public LongLongHashMap() {
+        this(16);
+    }
+
+    /**
+     * Creates a new map that can hold the given number of entries without being resized
+     *
+     * @param expectedSize
+     */
+    public LongLongHashMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, (int) Math.ceil(expectedSize / LOAD_FACTOR)) - 1) << 1;
+        allocate(capacity);
+    }
+
+    /**
+     * Packs two non-negative ints into a single long key, e.g. the ids of the source and destination vertex of an edge
+     *
+     * @param a
+     * @param b
+     * @return
+     */
+    public static long pack(int a, int b) {
+        return ((long) a << 32) | (b & 0xFFFFFFFFL);
+    }
+
+    public static int unpackA(long key) {
+        return (int) (key >>> 32);
+    }
+
+    public static int unpackB(long key) {
+        return (int) key;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean containsKey(long key) {
+        if (key == FREE_KEY) {
+            return hasFreeKey;
+        }
+        return keys[find(key)] == key;
+    }
+
+    /**
+     * Returns the value for the given key, or defaultValue if the key is not in this map
+     *
+     * @param key
+     * @param defaultValue
+     * @return
+     */
+    public long get(long key, long defaultValue) {
+        if (key == FREE_KEY) {
+            return hasFreeKey ? freeKeyValue : defaultValue;
+        }
+        int slot = find(key);
+        return keys[slot] == key ? values[slot] : defaultValue;
+    }
+
+    /**
+     * Associates the given value with the given key
+     *
+     * @param key
+     * @param value
+     */
+    public void put(long key, long value) {
+        if (key == FREE_KEY) {
+            if (!hasFreeKey) {
+                hasFreeKey = true;
+                size++;
+            }
+            freeKeyValue = value;
+            return;
+        }
+        int slot = find(key);
+        if (keys[slot] == key) {
+            values[slot] = value;
+            return;
+        }
+        insert(slot, key, value);
+    }
+
+    /**
+     * Adds delta to the value for the given key, a key that is not in this map is inserted with value delta.
+     *
+     * @param key
+     * @param delta
+     * @return The new value for the key
+     */
+    public long addTo(long key, long delta) {
+        if (key == FREE_KEY) {
+            if (!hasFreeKey) {
+                hasFreeKey = true;
+                freeKeyValue = 0;
+                size++;
+            }
+            return freeKeyValue += delta;
+        }
+        int slot = find(key);
+        if (keys[slot] == key) {
+            return values[slot] += delta;
+        }
+        insert(slot, key, delta);
+        return delta;
+    }
+
+    /**
+     * Removes all entries from this map, keeping its capacity
+     */
+    public void clear() {
+        Arrays.fill(keys, FREE_KEY);
+        hasFreeKey = false;
+        size = 0;
+    }
+
+    /**
+     * Passes all entries of this map to the given consumer, in no particular order
+     *
+     * @param consumer
+     */
+    public void forEach(EntryConsumer consumer) {
+        if (hasFreeKey) {
+            consumer.accept(FREE_KEY, freeKeyValue);
+        }
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != FREE_KEY) {
+                consumer.accept(keys[slot], values[slot]);
+            }
+        }
+    }
+
+    /**
+     * Returns the slot containing the given key, or the empty slot where it should be inserted
+     */
+    private int find(long key) {
+        int slot = mix(key) & mask;
+        while (keys[slot] != FREE_KEY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void insert(int slot, long key, long value) {
+        keys[slot] = key;
+        values[slot] = value;
+        size++;
+        if (size >= threshold) {
+            rehash(keys.length << 1);
+        }
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        long[] oldValues = values;
+        allocate(capacity);
+        for (int slot = 0; slot < oldKeys.length; slot++) {
+            if (oldKeys[slot] != FREE_KEY) {
+                int newSlot = find(oldKeys[slot]);
+                keys[newSlot] = oldKeys[slot];
+                values[newSlot] = oldValues[slot];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        if (capacity <= 0 || capacity > (1 << 30)) {
+            throw new IllegalStateException("LongLongHashMap cannot grow beyond 2^30 slots");
+        }
+        keys = new long[capacity];
+        values = new long[capacity];
+        mask = capacity - 1;
+        threshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    /**
+     * Spreads the bits of the key, so packed keys that only differ in their low or high half do not cluster
+     */
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     * Receives the entries of a LongLongHashMap
+     */
+    public interface EntryConsumer {
+        void accept(long key, long value);
+    }
+}
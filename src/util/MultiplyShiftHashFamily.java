@@ -0,0 +1,75 @@
+package util;
+
+/**
+ * Multiply-shift hashing: the label is reduced to a 64 bit key by a polynomial hash of its chars with a random odd
+ * multiplier, or used as the key directly if it is numeric. The sketch with index i maps the key to the high bits of
+ * a_i * key + b_i, for random a_i (odd) and b_i. The multipliers are derived from the seed, so the family can be
+ * recreated from it.
+ */
+public class MultiplyShiftHashFamily implements HashFamily {
+
+    private final long seed;
+    private final long polynomialMultiplier;
+
+    MultiplyShiftHashFamily(long seed) {
+        this.seed = seed;
+        this.polynomialMultiplier = polynomialMultiplier(seed);
+    }
+
+    @Override
+    public long baseHash(String label) {
+        return polynomialHash(label, polynomialMultiplier);
+    }
+
+    @Override
+    public long baseHash(long label) {
+        return label;
+    }
+
+    @Override
+    public int bin(long baseHash, int index, int nrOfBins) {
+        long a = mix(seed + 2L * index + 1) | 1;
+        long b = mix(seed + 2L * index + 2);
+        long hash = (a * baseHash + b) >>> 32;
+        return (int) ((hash * nrOfBins) >>> 32);
+    }
+
+    @Override
+    public int getId() {
+        return MULTIPLY_SHIFT;
+    }
+
+    @Override
+    public long getSeed() {
+        return seed;
+    }
+
+    @Override
+    public String toString() {
+        return "Multiply-shift";
+    }
+
+    /**
+     * Returns the polynomial hash of the chars of the label, evaluated at the given multiplier modulo 2^64
+     */
+    static long polynomialHash(String label, long multiplier) {
+        long hash = label.length();
+        for (int i = 0; i < label.length(); i++) {
+            hash = hash * multiplier + label.charAt(i);
+        }
+        return hash;
+    }
+
+    static long polynomialMultiplier(long seed) {
+        return mix(seed) | 1;
+    }
+
+    /**
+     * The SplitMix64 finalizer, used to derive independent looking values from the seed
+     */
+    static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
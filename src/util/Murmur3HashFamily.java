@@ -0,0 +1,47 @@
+package util;
+
+/**
+ * Derives the bins of a label from two MurmurHash3 hashes of its chars, the second seeded with the first, using the
+ * combinatorial approach of Kirsch and Mitzenmacher
+ */
+public class Murmur3HashFamily implements HashFamily {
+
+    static final Murmur3HashFamily INSTANCE = new Murmur3HashFamily();
+
+    private Murmur3HashFamily() {
+    }
+
+    @Override
+    public long baseHash(String label) {
+        int hash1 = MurmurHash.murmur3(label, 0);
+        int hash2 = MurmurHash.murmur3(label, hash1);
+        return ((long) hash1 << 32) | (hash2 & 0xFFFFFFFFL);
+    }
+
+    @Override
+    public long baseHash(long label) {
+        int hash1 = MurmurHash.murmur3(label, 0);
+        int hash2 = MurmurHash.murmur3(label, hash1);
+        return ((long) hash1 << 32) | (hash2 & 0xFFFFFFFFL);
+    }
+
+    @Override
+    public int bin(long baseHash, int index, int nrOfBins) {
+        return Hash.getHashBuckets(baseHash, index, nrOfBins);
+    }
+
+    @Override
+    public int getId() {
+        return MURMUR3;
+    }
+
+    @Override
+    public long getSeed() {
+        return 0;
+    }
+
+    @Override
+    public String toString() {
+        return "Murmur3";
+    }
+}
@@ -84,11 +84,160 @@ public class MurmurHash {
         return h;
     }
 
+    /**
+     * Computes the same hash as hash(key.getBytes("UTF-16"), length, seed) directly over the chars of the key, without
+     * allocating the byte array. The UTF-16 encoding of a String is a big-endian byte order mark followed by the high
+     * and low byte of each char, which is what is fed to the hash here. Only keys without surrogate chars are
+     * encoded this way, callers should use the byte array version for keys for which hasSurrogates returns true.
+     *
+     * @param key
+     * @param seed
+     * @return
+     */
+    public static int hashUtf16(CharSequence key, int seed) {
+        int m = 0x5bd1e995;
+        int r = 24;
+
+        int chars = key.length();
+        // The encoding of an empty string has no byte order mark
+        int length = chars == 0 ? 0 : 2 + 2 * chars;
+        int h = seed ^ length;
+
+        int len_4 = length >> 2;
+        for (int i = 0; i < len_4; i++) {
+            int k;
+            if (i == 0) {
+                // Bytes 0xFE 0xFF of the byte order mark, followed by the first char
+                char c = key.charAt(0);
+                k = 0xFE | 0xFF << 8 | (c >>> 8) << 16 | (c & 0xff) << 24;
+            }
+            else {
+                char c = key.charAt(2 * i - 1);
+                char d = key.charAt(2 * i);
+                k = (c >>> 8) | (c & 0xff) << 8 | (d >>> 8) << 16 | (d & 0xff) << 24;
+            }
+            k *= m;
+            k ^= k >>> r;
+            k *= m;
+            h *= m;
+            h ^= k;
+        }
+
+        // As the length is even, either 0 or 2 bytes are left. The byte version sign-extends these.
+        if ((length & 3) != 0) {
+            int hi = chars == 0 ? 0xFE : key.charAt(chars - 1) >>> 8;
+            int lo = chars == 0 ? 0xFF : key.charAt(chars - 1) & 0xff;
+            h ^= (int) (byte) hi << 8;
+            h ^= (int) (byte) lo;
+            h *= m;
+        }
+
+        h ^= h >>> 13;
+        h *= m;
+        h ^= h >>> 15;
+
+        return h;
+    }
+
+    /**
+     * Returns whether the given key contains surrogate chars, which hashUtf16 does not encode like String.getBytes
+     *
+     * @param key
+     * @return
+     */
+    public static boolean hasSurrogates(CharSequence key) {
+        for (int i = 0; i < key.length(); i++) {
+            if (Character.isSurrogate(key.charAt(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Computes the 32 bit MurmurHash3 of the UTF-16 code units of the given key, two chars per block, without
+     * allocating. This does not give the same result as any of the byte array versions.
+     *
+     * @param key
+     * @param seed
+     * @return
+     */
+    public static int murmur3(CharSequence key, int seed) {
+        final int c1 = 0xcc9e2d51;
+        final int c2 = 0x1b873593;
+
+        int h = seed;
+        int length = key.length();
+        for (int i = 1; i < length; i += 2) {
+            int k = key.charAt(i - 1) | (key.charAt(i) << 16);
+            k *= c1;
+            k = Integer.rotateLeft(k, 15);
+            k *= c2;
+            h ^= k;
+            h = Integer.rotateLeft(h, 13);
+            h = h * 5 + 0xe6546b64;
+        }
+
+        if ((length & 1) == 1) {
+            int k = key.charAt(length - 1);
+            k *= c1;
+            k = Integer.rotateLeft(k, 15);
+            k *= c2;
+            h ^= k;
+        }
+
+        return fmix(h ^ (2 * length));
+    }
+
+    /**
+     * Computes the 32 bit MurmurHash3 of a single long, e.g. a numeric label
+     *
+     * @param data
+     * @param seed
+     * @return
+     */
+    public static int murmur3(long data, int seed) {
+        final int c1 = 0xcc9e2d51;
+        final int c2 = 0x1b873593;
+
+        int h = seed;
+        for (int i = 0; i < 2; i++) {
+            int k = i == 0 ? (int) data : (int) (data >>> 32);
+            k *= c1;
+            k = Integer.rotateLeft(k, 15);
+            k *= c2;
+            h ^= k;
+            h = Integer.rotateLeft(h, 13);
+            h = h * 5 + 0xe6546b64;
+        }
+        return fmix(h ^ 8);
+    }
+
+    private static int fmix(int h) {
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+
     public static int hashLong(long data) {
+        return hashLong(data, 0);
+    }
+
+    /**
+     * Computes the Murmur2 hash of a single long with the given seed, e.g. a numeric label
+     *
+     * @param data
+     * @param seed
+     * @return
+     */
+    public static int hashLong(long data, int seed) {
         int m = 0x5bd1e995;
         int r = 24;
 
-        int h = 0;
+        int h = seed;
 
         int k = (int) data * m;
         k ^= k >>> r;
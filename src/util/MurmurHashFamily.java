@@ -0,0 +1,45 @@
+package util;
+
+/**
+ * Derives the bins of a label from two Murmur2 hashes of its UTF-16 encoding, using the combinatorial approach of
+ * Kirsch and Mitzenmacher. This is the family sketches have always used, see Hash.baseHash.
+ */
+public class MurmurHashFamily implements HashFamily {
+
+    static final MurmurHashFamily INSTANCE = new MurmurHashFamily();
+
+    private MurmurHashFamily() {
+    }
+
+    @Override
+    public long baseHash(String label) {
+        return Hash.baseHash(label);
+    }
+
+    @Override
+    public long baseHash(long label) {
+        int hash1 = MurmurHash.hashLong(label, 0);
+        int hash2 = MurmurHash.hashLong(label, hash1);
+        return ((long) hash1 << 32) | (hash2 & 0xFFFFFFFFL);
+    }
+
+    @Override
+    public int bin(long baseHash, int index, int nrOfBins) {
+        return Hash.getHashBuckets(baseHash, index, nrOfBins);
+    }
+
+    @Override
+    public int getId() {
+        return MURMUR2;
+    }
+
+    @Override
+    public long getSeed() {
+        return 0;
+    }
+
+    @Override
+    public String toString() {
+        return "Murmur2";
+    }
+}
@@ -0,0 +1,55 @@
+package util;
+
+/**
+ * Treats labels as numbers: a String label is parsed and hashed with the baseHash(long) of the underlying family, so
+ * that edges with numeric labels can be added without creating Strings, and queried using either form of the label.
+ */
+public class NumericLabelHashFamily implements HashFamily {
+
+    private final HashFamily family;
+
+    NumericLabelHashFamily(HashFamily family) {
+        this.family = family;
+    }
+
+    @Override
+    public long baseHash(String label) {
+        long value;
+        try {
+            value = Long.parseLong(label);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(String.format("Label '%s' is not numeric", label), e);
+        }
+        return family.baseHash(value);
+    }
+
+    @Override
+    public long baseHash(long label) {
+        return family.baseHash(label);
+    }
+
+    @Override
+    public boolean hasNumericLabels() {
+        return true;
+    }
+
+    @Override
+    public int bin(long baseHash, int index, int nrOfBins) {
+        return family.bin(baseHash, index, nrOfBins);
+    }
+
+    @Override
+    public int getId() {
+        return NUMERIC_LABELS | family.getId();
+    }
+
+    @Override
+    public long getSeed() {
+        return family.getSeed();
+    }
+
+    @Override
+    public String toString() {
+        return "Numeric " + family;
+    }
+}
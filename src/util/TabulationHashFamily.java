@@ -0,0 +1,81 @@
+package util;
+
+/**
+ * Simple tabulation hashing: the label is reduced to a 64 bit key by a polynomial hash of its chars, or used as the key
+ * directly if it is numeric. The sketch with index i maps the key to the XOR of 8 random table entries, one for each
+ * byte of the key. The tables of each index are generated from the seed when the index is first used, so the family
+ * can be recreated from it.
+ */
+public class TabulationHashFamily implements HashFamily {
+
+    private final long seed;
+    private final long polynomialMultiplier;
+    // tables[index][byte * 256 + value]
+    private volatile int[][] tables;
+
+    TabulationHashFamily(long seed) {
+        this.seed = seed;
+        this.polynomialMultiplier = MultiplyShiftHashFamily.polynomialMultiplier(seed);
+        this.tables = new int[0][];
+    }
+
+    @Override
+    public long baseHash(String label) {
+        return MultiplyShiftHashFamily.polynomialHash(label, polynomialMultiplier);
+    }
+
+    @Override
+    public long baseHash(long label) {
+        return label;
+    }
+
+    @Override
+    public int bin(long baseHash, int index, int nrOfBins) {
+        int[] table = table(index);
+        int hash = 0;
+        for (int i = 0; i < 8; i++) {
+            hash ^= table[(i << 8) | (int) ((baseHash >>> (i << 3)) & 0xff)];
+        }
+        return (int) (((hash & 0xFFFFFFFFL) * nrOfBins) >>> 32);
+    }
+
+    private int[] table(int index) {
+        int[][] current = tables;
+        if (index < current.length) {
+            return current[index];
+        }
+        synchronized (this) {
+            current = tables;
+            if (index >= current.length) {
+                int[][] grown = new int[index + 1][];
+                System.arraycopy(current, 0, grown, 0, current.length);
+                for (int i = current.length; i <= index; i++) {
+                    grown[i] = new int[8 * 256];
+                    long state = MultiplyShiftHashFamily.mix(seed ^ (0x9E3779B97F4A7C15L * (i + 1)));
+                    for (int j = 0; j < grown[i].length; j++) {
+                        state += 0x9E3779B97F4A7C15L;
+                        grown[i][j] = (int) MultiplyShiftHashFamily.mix(state);
+                    }
+                }
+                tables = grown;
+                current = grown;
+            }
+            return current[index];
+        }
+    }
+
+    @Override
+    public int getId() {
+        return TABULATION;
+    }
+
+    @Override
+    public long getSeed() {
+        return seed;
+    }
+
+    @Override
+    public String toString() {
+        return "Tabulation";
+    }
+}
@@ -0,0 +1,64 @@
+package util;
+
+import net.jpountz.xxhash.XXHash64;
+import net.jpountz.xxhash.XXHashFactory;
+
+/**
+ * Derives the bins of a label from the two halves of the 64 bit xxHash of its chars, using the combinatorial approach
+ * of Kirsch and Mitzenmacher. The chars are copied to a reusable per-thread buffer, as xxHash works on bytes.
+ */
+public class XXHashFamily implements HashFamily {
+
+    private final XXHash64 hash64;
+    private final ThreadLocal<byte[]> buffers;
+
+    XXHashFamily() {
+        this.hash64 = XXHashFactory.fastestInstance().hash64();
+        this.buffers = ThreadLocal.withInitial(() -> new byte[64]);
+    }
+
+    @Override
+    public long baseHash(String label) {
+        int length = 2 * label.length();
+        byte[] buffer = buffers.get();
+        if (buffer.length < length) {
+            buffer = new byte[Math.max(length, 2 * buffer.length)];
+            buffers.set(buffer);
+        }
+        for (int i = 0; i < label.length(); i++) {
+            char c = label.charAt(i);
+            buffer[2 * i] = (byte) c;
+            buffer[2 * i + 1] = (byte) (c >>> 8);
+        }
+        return hash64.hash(buffer, 0, length, 0);
+    }
+
+    @Override
+    public long baseHash(long label) {
+        byte[] buffer = buffers.get();
+        for (int i = 0; i < 8; i++) {
+            buffer[i] = (byte) (label >>> (i << 3));
+        }
+        return hash64.hash(buffer, 0, 8, 0);
+    }
+
+    @Override
+    public int bin(long baseHash, int index, int nrOfBins) {
+        return Hash.getHashBuckets(baseHash, index, nrOfBins);
+    }
+
+    @Override
+    public int getId() {
+        return XXHASH;
+    }
+
+    @Override
+    public long getSeed() {
+        return 0;
+    }
+
+    @Override
+    public String toString() {
+        return "xxHash";
+    }
+}